@@ -7,6 +7,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -21,6 +22,7 @@ public class Actuator {
     private ObjectId id;
 
     @NotNull(message = "El registro debe estar asociado a un cultivo")
+    @Indexed(name = "crop")
     @Field("crop")
     private ObjectId crop;
 
@@ -1,12 +1,14 @@
 package app.smartpot.api.actuators.repository;
 
 import app.smartpot.api.actuators.model.entity.Actuator;
+import app.smartpot.api.actuators.model.entity.ActuatorType;
 import jakarta.validation.constraints.NotNull;
 import org.bson.types.ObjectId;
 import org.springframework.data.mongodb.repository.MongoRepository;
 import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -33,4 +35,13 @@ public interface ActuatorRepository extends MongoRepository<Actuator, ObjectId>
     List<Actuator> findByCrop(
             @NotNull(message = "El registro debe estar asociado a un cultivo")
             ObjectId crop);
+
+    /**
+     * Busca en una sola consulta los actuadores de un tipo que pertenecen a cualquiera de los cultivos indicados.
+     *
+     * @param crops Los identificadores de los cultivos.
+     * @param type  El tipo de actuador.
+     * @return Devuelve una lista de actuadores.
+     */
+    List<Actuator> findByCropInAndType(Collection<ObjectId> crops, ActuatorType type);
 }
@@ -1,7 +1,9 @@
 package app.smartpot.api.actuators.service;
 
 import app.smartpot.api.actuators.model.dto.ActuatorDTO;
+import app.smartpot.api.actuators.model.entity.ActuatorType;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface ActuatorService {
@@ -11,6 +13,8 @@ public interface ActuatorService {
 
     List<ActuatorDTO> getActuatorsByCrop(String crop) throws Exception;
 
+    List<ActuatorDTO> getActuatorsByCropsAndType(Collection<String> crops, ActuatorType type);
+
     ActuatorDTO createActuator(ActuatorDTO actuator) throws Exception;
 
     ActuatorDTO updateActuator(String id, ActuatorDTO actuator) throws Exception;
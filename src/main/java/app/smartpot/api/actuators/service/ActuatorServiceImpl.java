@@ -2,6 +2,7 @@ package app.smartpot.api.actuators.service;
 
 import app.smartpot.api.actuators.mapper.ActuatorMapper;
 import app.smartpot.api.actuators.model.dto.ActuatorDTO;
+import app.smartpot.api.actuators.model.entity.ActuatorType;
 import app.smartpot.api.actuators.repository.ActuatorRepository;
 import app.smartpot.api.crops.service.CropService;
 import jakarta.validation.ValidationException;
@@ -11,6 +12,7 @@ import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -75,6 +77,21 @@ public class ActuatorServiceImpl implements ActuatorService {
                 .orElseThrow(() -> new Exception("El actuador no existe"));
     }
 
+    @Override
+    public List<ActuatorDTO> getActuatorsByCropsAndType(Collection<String> crops, ActuatorType type) {
+        List<ObjectId> ids = crops.stream()
+                .map(id -> {
+                    if (!ObjectId.isValid(id)) {
+                        throw new ValidationException("Id de crop invalido");
+                    }
+                    return new ObjectId(id);
+                })
+                .toList();
+        return actuatorRepository.findByCropInAndType(ids, type).stream()
+                .map(actuatorMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     @Override
     public ActuatorDTO createActuator(ActuatorDTO actuator) throws Exception {
         return Optional.of(actuator)
@@ -3,9 +3,12 @@ package app.smartpot.api.commands.controller;
 import app.smartpot.api.actuators.model.dto.ActuatorDTO;
 import app.smartpot.api.actuators.model.entity.ActuatorType;
 import app.smartpot.api.actuators.service.ActuatorService;
+import app.smartpot.api.commands.model.dto.BulkCommandDTO;
+import app.smartpot.api.commands.model.dto.BulkCommandResultDTO;
 import app.smartpot.api.commands.model.dto.CommandDTO;
 import app.smartpot.api.commands.service.CommandService;
 import app.smartpot.api.crops.model.dto.CropDTO;
+import app.smartpot.api.exception.ApiException;
 import app.smartpot.api.responses.DeleteResponse;
 import app.smartpot.api.responses.ErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
@@ -18,6 +21,9 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.List;
 
 @RestController
 @RequestMapping("/Commands")
@@ -54,6 +60,28 @@ public class CommandController {
         }
     }
 
+    @PostMapping("/Bulk")
+    @Operation(summary = "Crear un comando para varios cultivos",
+            description = "Crea el mismo comando para todos los cultivos indicados por un único selector: una lista de IDs de cultivo, "
+                    + "un tipo de cultivo o un usuario. Si se indica un tipo de actuador, cada comando se dirige al actuador de ese tipo "
+                    + "de su cultivo y los cultivos sin él se omiten.",
+            responses = {
+                    @ApiResponse(description = "Comandos creados",
+                            responseCode = "201",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = BulkCommandResultDTO.class))),
+                    @ApiResponse(responseCode = "404",
+                            description = "No se pudieron crear los Comandos debido a un error.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    public ResponseEntity<?> createCommands(@Parameter(description = "Tipo de comando, tipo de actuador opcional y un único selector de cultivos.",
+            required = true) @RequestBody BulkCommandDTO bulkCommandDTO) {
+        try {
+            return new ResponseEntity<>(commandService.createCommands(bulkCommandDTO), HttpStatus.CREATED);
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ErrorResponse("Error al crear los comandos [" + e.getMessage() + "]", HttpStatus.NOT_FOUND.value()), HttpStatus.NOT_FOUND);
+        }
+    }
+
     @GetMapping("/All")
     @Operation(summary = "Obtener todos los comandos",
             description = "Recupera todos los comandos registrados en el sistema. "
@@ -96,6 +124,55 @@ public class CommandController {
         }
     }
 
+    @GetMapping("/crop/{crop}/pending")
+    @Operation(summary = "Esperar comandos pendientes de un cultivo",
+            description = "Mantiene la petición abierta hasta que el cultivo tenga comandos pendientes o se agote el tiempo de espera. "
+                    + "Si ya hay comandos pendientes se devuelven de inmediato; si se agota la espera se responde sin contenido "
+                    + "y el dispositivo debe volver a consultar.",
+            responses = {
+                    @ApiResponse(description = "Comandos pendientes",
+                            responseCode = "200",
+                            content = @Content(mediaType = "application/json",
+                                    array = @ArraySchema(schema = @Schema(implementation = CommandDTO.class)))),
+                    @ApiResponse(description = "No hubo comandos pendientes durante la espera",
+                            responseCode = "204"),
+                    @ApiResponse(responseCode = "404",
+                            description = "El cultivo no es válido o no existe.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    public DeferredResult<ResponseEntity<?>> awaitPendingCommands(@PathVariable String crop,
+                                                                  @Parameter(description = "Tiempo máximo de espera en milisegundos.")
+                                                                  @RequestParam(required = false) Long timeout) {
+        try {
+            return commandService.awaitPendingCommands(crop, timeout);
+        } catch (Exception e) {
+            DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+            result.setResult(new ResponseEntity<>(new ErrorResponse("Error al esperar los comandos del cultivo '" + crop + "' [" + e.getMessage() + "]", HttpStatus.NOT_FOUND.value()), HttpStatus.NOT_FOUND));
+            return result;
+        }
+    }
+
+    @GetMapping("/status/counts")
+    @Operation(summary = "Contar comandos por estado de varios cultivos",
+            description = "Devuelve, para cada cultivo indicado, el número de comandos en cada estado. "
+                    + "Los conteos se mantienen a medida que los comandos se crean, ejecutan, fallan o eliminan.",
+            responses = {
+                    @ApiResponse(description = "Conteos por cultivo",
+                            responseCode = "200",
+                            content = @Content(mediaType = "application/json")),
+                    @ApiResponse(responseCode = "400",
+                            description = "Algún ID de cultivo no es válido o se pidieron demasiados cultivos.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    public ResponseEntity<?> getStatusCounts(@Parameter(description = "IDs de los cultivos a consultar.", required = true)
+                                             @RequestParam List<String> crops) {
+        try {
+            return new ResponseEntity<>(commandService.getStatusCounts(crops), HttpStatus.OK);
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ErrorResponse("Error al contar los comandos [" + e.getMessage() + "]", HttpStatus.BAD_REQUEST.value()), HttpStatus.BAD_REQUEST);
+        }
+    }
+
     @GetMapping("/id/{id}")
     @Operation(summary = "Buscar comando por ID",
             description = "Recupera un comando utilizando su ID único. "
@@ -126,11 +203,41 @@ public class CommandController {
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = CommandDTO.class))),
                     @ApiResponse(responseCode = "404",
                             description = "No se pudo actualizar el Comando. El Comando puede no existir o los datos pueden ser incorrectos.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409",
+                            description = "El Comando ya no está pendiente y no puede cambiar de estado.",
                             content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
             })
     public ResponseEntity<?> executeCommand(@PathVariable String id, @PathVariable String response) {
         try {
             return new ResponseEntity<>(commandService.executeCommand(id, response), HttpStatus.OK);
+        } catch (ApiException e) {
+            throw e;
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ErrorResponse("Error al actualizar el comando con ID '" + id + "' [" + e.getMessage() + "]", HttpStatus.NOT_FOUND.value()), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    @PutMapping("/{id}/fail/{response}")
+    @Operation(summary = "Actualizar un comando a fallido",
+            description = "Marca como fallido un comando pendiente y registra el error reportado por el dispositivo. "
+                    + "Si el comando no existe se devolverá un error con código HTTP 404, y si ya no está pendiente, con código HTTP 409.",
+            responses = {
+                    @ApiResponse(description = "Comando actualizado",
+                            responseCode = "200",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = CommandDTO.class))),
+                    @ApiResponse(responseCode = "404",
+                            description = "No se pudo actualizar el Comando. El Comando puede no existir o no estar pendiente.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class))),
+                    @ApiResponse(responseCode = "409",
+                            description = "El Comando ya no está pendiente y no puede cambiar de estado.",
+                            content = @Content(mediaType = "application/json", schema = @Schema(implementation = ErrorResponse.class)))
+            })
+    public ResponseEntity<?> failCommand(@PathVariable String id, @PathVariable String response) {
+        try {
+            return new ResponseEntity<>(commandService.failCommand(id, response), HttpStatus.OK);
+        } catch (ApiException e) {
+            throw e;
         } catch (Exception e) {
             return new ResponseEntity<>(new ErrorResponse("Error al actualizar el comando con ID '" + id + "' [" + e.getMessage() + "]", HttpStatus.NOT_FOUND.value()), HttpStatus.NOT_FOUND);
         }
@@ -0,0 +1,453 @@
+package app.smartpot.api.commands.counter;
+
+import app.smartpot.api.commands.model.entity.Command;
+import app.smartpot.api.commands.model.entity.CommandStatus;
+import app.smartpot.api.commands.notify.CommandCreatedEvent;
+import app.smartpot.api.commands.repository.CommandRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.Cursor;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.ScanOptions;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Number of commands of each crop by status, maintained incrementally.
+ *
+ * <p>
+ * The counters of a crop live in a Redis hash with one field per status. Creating, transitioning and deleting
+ * commands apply their deltas with a script that updates every affected crop atomically in one round trip, and
+ * only touches hashes that already exist, so a crop is never left with partial counts. A crop without a hash is
+ * counted in MongoDB the first time it is read and its hash is stored.
+ * </p>
+ *
+ * <p>
+ * Reads are served from an in-process mirror, whose entries expire after {@code local-ttl} seconds so that
+ * changes made by other instances are seen; the crops missing from the mirror are read from Redis in a single
+ * pipeline. A periodic job recounts every crop in MongoDB and rewrites the hashes, correcting any drift left by
+ * lost updates or races between a first count and concurrent changes.
+ * </p>
+ *
+ * <p>
+ * Every hash carries a {@code version} field that each delta and each rewrite increments. A recount reads the
+ * versions before counting and only rewrites the hashes whose version is still the same, so deltas applied while
+ * MongoDB was being counted are never overwritten; a skipped crop is corrected on the next reconciliation.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CommandStatusCounters {
+
+    private static final String KEY_PREFIX = "commands:status:";
+    private static final String VERSION_FIELD = "version";
+    private static final CommandStatus[] STATUSES = CommandStatus.values();
+
+    /**
+     * ARGV[1] is the number of statuses N, ARGV[2..N+1] their field names, and the following N values per key
+     * are the deltas of that key, in the same order.
+     */
+    private static final RedisScript<Long> APPLY_DELTAS = new DefaultRedisScript<>("""
+            local n = tonumber(ARGV[1])
+            for k = 1, #KEYS do
+              if redis.call('EXISTS', KEYS[k]) == 1 then
+                for j = 1, n do
+                  local delta = tonumber(ARGV[1 + n + (k - 1) * n + j])
+                  if delta ~= 0 then
+                    redis.call('HINCRBY', KEYS[k], ARGV[1 + j], delta)
+                  end
+                end
+                redis.call('HINCRBY', KEYS[k], 'version', 1)
+              end
+            end
+            return 0
+            """, Long.class);
+
+    /**
+     * ARGV[1] is the number of statuses N and ARGV[2..N+1] their field names. Each key is followed by the
+     * version read before counting (empty when the hash did not exist) and its N counts. A hash is only written
+     * when its version is unchanged. Returns the number of hashes written.
+     */
+    private static final RedisScript<Long> STORE_IF_UNCHANGED = new DefaultRedisScript<>("""
+            local n = tonumber(ARGV[1])
+            local stored = 0
+            for k = 1, #KEYS do
+              local base = 1 + n + (k - 1) * (n + 1)
+              local current = redis.call('HGET', KEYS[k], 'version')
+              if (current or '') == ARGV[base + 1] then
+                for j = 1, n do
+                  redis.call('HSET', KEYS[k], ARGV[1 + j], ARGV[base + 1 + j])
+                end
+                redis.call('HINCRBY', KEYS[k], 'version', 1)
+                stored = stored + 1
+              end
+            end
+            return stored
+            """, Long.class);
+
+    private final CommandRepository commandRepository;
+    private final StringRedisTemplate redisTemplate;
+    private final Map<ObjectId, Mirrored> mirror = new ConcurrentHashMap<>();
+
+    @Value("${commands.counters.local-ttl}")
+    private long localTtlSeconds;
+
+    @Value("${commands.counters.local-max-crops}")
+    private int localMaxCrops;
+
+    @Value("${commands.counters.reconcile-batch}")
+    private int reconcileBatch;
+
+    @Autowired
+    public CommandStatusCounters(CommandRepository commandRepository, StringRedisTemplate redisTemplate) {
+        this.commandRepository = commandRepository;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Obtains the counters of the given crops.
+     *
+     * @param crops the crops to read
+     * @return the number of commands by status of each crop, including statuses without commands
+     */
+    public Map<ObjectId, Map<CommandStatus, Long>> get(Collection<ObjectId> crops) {
+        Map<ObjectId, Map<CommandStatus, Long>> counts = new LinkedHashMap<>();
+        List<ObjectId> missing = new ArrayList<>();
+        long now = System.nanoTime();
+        for (ObjectId crop : crops) {
+            Mirrored mirrored = mirror.get(crop);
+            if (mirrored != null && now - mirrored.loadedAt() <= TimeUnit.SECONDS.toNanos(localTtlSeconds)) {
+                counts.put(crop, toMap(mirrored.counts()));
+            } else {
+                counts.put(crop, null);
+                missing.add(crop);
+            }
+        }
+        if (missing.isEmpty()) {
+            return counts;
+        }
+
+        List<Object> stored = fetchRedis(missing);
+        List<ObjectId> uncounted = new ArrayList<>();
+        for (int i = 0; i < missing.size(); i++) {
+            ObjectId crop = missing.get(i);
+            Object value = stored != null ? stored.get(i) : null;
+            if (value instanceof Map<?, ?> hash && !hash.isEmpty()) {
+                long[] values = new long[STATUSES.length];
+                for (CommandStatus status : STATUSES) {
+                    Object field = hash.get(status.name());
+                    values[status.ordinal()] = field != null ? Long.parseLong(field.toString()) : 0;
+                }
+                remember(crop, values);
+                counts.put(crop, toMap(values));
+            } else {
+                uncounted.add(crop);
+            }
+        }
+        if (uncounted.isEmpty()) {
+            return counts;
+        }
+
+        Map<ObjectId, long[]> recounted = count(uncounted);
+        recounted.forEach((crop, values) -> {
+            remember(crop, values);
+            counts.put(crop, toMap(values));
+        });
+        storeIfUnchanged(recounted, Map.of());
+        return counts;
+    }
+
+    /**
+     * Counts the commands created once their creation is committed.
+     *
+     * @param event the event with the stored commands
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommandCreated(CommandCreatedEvent event) {
+        Map<ObjectId, long[]> deltas = new HashMap<>();
+        for (Command command : event.commands()) {
+            add(deltas, command.getCrop(), command.getStatus(), 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Moves a command of a crop from one status to another.
+     *
+     * @param crop the crop of the command
+     * @param from the previous status
+     * @param to   the new status
+     */
+    public void moved(ObjectId crop, CommandStatus from, CommandStatus to) {
+        Map<ObjectId, long[]> deltas = new HashMap<>();
+        add(deltas, crop, from, -1);
+        add(deltas, crop, to, 1);
+        apply(deltas);
+    }
+
+    /**
+     * Moves several commands from one status to another.
+     *
+     * @param commands the commands, with their crop
+     * @param from     the previous status
+     * @param to       the new status
+     */
+    public void moved(Collection<Command> commands, CommandStatus from, CommandStatus to) {
+        Map<ObjectId, long[]> deltas = new HashMap<>();
+        for (Command command : commands) {
+            add(deltas, command.getCrop(), from, -1);
+            add(deltas, command.getCrop(), to, 1);
+        }
+        apply(deltas);
+    }
+
+    /**
+     * Discounts a deleted command.
+     *
+     * @param crop   the crop of the command
+     * @param status the status the command had
+     */
+    public void removed(ObjectId crop, CommandStatus status) {
+        Map<ObjectId, long[]> deltas = new HashMap<>();
+        add(deltas, crop, status, -1);
+        apply(deltas);
+    }
+
+    /**
+     * Counts the given crops again in MongoDB and replaces their counters. Used when a change cannot be
+     * expressed as exact deltas.
+     *
+     * @param crops the crops to recount
+     */
+    public void recount(Collection<ObjectId> crops) {
+        List<ObjectId> distinct = crops.stream().filter(crop -> crop != null).distinct().toList();
+        if (distinct.isEmpty()) {
+            return;
+        }
+        try {
+            Map<ObjectId, String> versions = fetchVersions(distinct);
+            Map<ObjectId, long[]> recounted = count(distinct);
+            distinct.forEach(mirror::remove);
+            storeIfUnchanged(recounted, versions);
+        } catch (DataAccessException e) {
+            log.warn("Could not recount the commands of {} crops: {}", distinct.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Recounts every crop in MongoDB and rewrites the hashes that did not change meanwhile, removing those of
+     * crops without commands.
+     */
+    @Scheduled(fixedDelayString = "${commands.counters.reconcile-interval}", initialDelayString = "${commands.counters.reconcile-interval}")
+    public void reconcile() {
+        try {
+            Set<String> stale = new HashSet<>();
+            List<ObjectId> stored = new ArrayList<>();
+            try (Cursor<String> keys = redisTemplate.scan(ScanOptions.scanOptions().match(KEY_PREFIX + "*").count(1000).build())) {
+                while (keys.hasNext()) {
+                    String key = keys.next();
+                    String crop = key.substring(KEY_PREFIX.length());
+                    if (ObjectId.isValid(crop)) {
+                        stored.add(new ObjectId(crop));
+                    } else {
+                        stale.add(key);
+                    }
+                }
+            }
+            Map<ObjectId, String> versions = new HashMap<>();
+            for (int from = 0; from < stored.size(); from += reconcileBatch) {
+                versions.putAll(fetchVersions(stored.subList(from, Math.min(from + reconcileBatch, stored.size()))));
+            }
+
+            Map<ObjectId, long[]> counted = new HashMap<>();
+            commandRepository.countByCropAndStatus(null).forEach((crop, byStatus) -> counted.put(crop, toArray(byStatus)));
+
+            long written = 0;
+            Map<ObjectId, long[]> batch = new HashMap<>();
+            for (Map.Entry<ObjectId, long[]> entry : counted.entrySet()) {
+                batch.put(entry.getKey(), entry.getValue());
+                if (batch.size() >= reconcileBatch) {
+                    written += storeIfUnchanged(batch, versions);
+                    batch.clear();
+                }
+            }
+            written += storeIfUnchanged(batch, versions);
+
+            for (ObjectId crop : stored) {
+                if (!counted.containsKey(crop)) {
+                    stale.add(key(crop));
+                }
+            }
+            if (!stale.isEmpty()) {
+                redisTemplate.delete(stale);
+            }
+            mirror.clear();
+            log.debug("Command counters reconciled for {} crops ({} changed meanwhile), {} stale removed",
+                    counted.size(), counted.size() - written, stale.size());
+        } catch (DataAccessException e) {
+            log.warn("Could not reconcile the command counters: {}", e.getMessage());
+        }
+    }
+
+    private void apply(Map<ObjectId, long[]> deltas) {
+        if (deltas.isEmpty()) {
+            return;
+        }
+        deltas.forEach((crop, delta) -> mirror.computeIfPresent(crop, (key, mirrored) -> {
+            long[] values = mirrored.counts().clone();
+            for (int i = 0; i < values.length; i++) {
+                values[i] += delta[i];
+            }
+            return new Mirrored(values, mirrored.loadedAt());
+        }));
+
+        List<String> keys = new ArrayList<>(deltas.size());
+        List<String> args = new ArrayList<>(1 + STATUSES.length * (deltas.size() + 1));
+        args.add(String.valueOf(STATUSES.length));
+        for (CommandStatus status : STATUSES) {
+            args.add(status.name());
+        }
+        deltas.forEach((crop, delta) -> {
+            keys.add(key(crop));
+            for (long value : delta) {
+                args.add(String.valueOf(value));
+            }
+        });
+        try {
+            redisTemplate.execute(APPLY_DELTAS, keys, args.toArray());
+        } catch (DataAccessException e) {
+            log.warn("Could not update the command counters of {} crops: {}", deltas.size(), e.getMessage());
+        }
+    }
+
+    private Map<ObjectId, long[]> count(List<ObjectId> crops) {
+        Map<ObjectId, Map<CommandStatus, Long>> counted = commandRepository.countByCropAndStatus(crops);
+        Map<ObjectId, long[]> values = new LinkedHashMap<>();
+        for (ObjectId crop : crops) {
+            values.put(crop, toArray(counted.getOrDefault(crop, Map.of())));
+        }
+        return values;
+    }
+
+    private List<Object> fetchRedis(List<ObjectId> crops) {
+        try {
+            return redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                @SuppressWarnings("unchecked")
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    crops.forEach(crop -> operations.opsForHash().entries((K) key(crop)));
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("Could not read the command counters of {} crops from Redis: {}", crops.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    private Map<ObjectId, String> fetchVersions(List<ObjectId> crops) {
+        List<Object> stored = redisTemplate.executePipelined(new SessionCallback<Object>() {
+            @Override
+            @SuppressWarnings("unchecked")
+            public <K, V> Object execute(RedisOperations<K, V> operations) {
+                crops.forEach(crop -> operations.opsForHash().get((K) key(crop), VERSION_FIELD));
+                return null;
+            }
+        });
+        Map<ObjectId, String> versions = new HashMap<>();
+        for (int i = 0; i < crops.size(); i++) {
+            Object version = stored.get(i);
+            if (version != null) {
+                versions.put(crops.get(i), version.toString());
+            }
+        }
+        return versions;
+    }
+
+    /**
+     * Writes the counts of the crops whose hash still has the version read before counting them.
+     *
+     * @param counts   the counts of each crop
+     * @param versions the versions read before counting; crops without one had no hash
+     * @return the number of hashes written
+     */
+    private long storeIfUnchanged(Map<ObjectId, long[]> counts, Map<ObjectId, String> versions) {
+        if (counts.isEmpty()) {
+            return 0;
+        }
+        List<String> keys = new ArrayList<>(counts.size());
+        List<String> args = new ArrayList<>(1 + STATUSES.length + counts.size() * (STATUSES.length + 1));
+        args.add(String.valueOf(STATUSES.length));
+        for (CommandStatus status : STATUSES) {
+            args.add(status.name());
+        }
+        counts.forEach((crop, values) -> {
+            keys.add(key(crop));
+            args.add(versions.getOrDefault(crop, ""));
+            for (long value : values) {
+                args.add(String.valueOf(value));
+            }
+        });
+        try {
+            Long stored = redisTemplate.execute(STORE_IF_UNCHANGED, keys, args.toArray());
+            return stored != null ? stored : 0;
+        } catch (DataAccessException e) {
+            log.warn("Could not store the command counters of {} crops in Redis: {}", counts.size(), e.getMessage());
+            return 0;
+        }
+    }
+
+    private void remember(ObjectId crop, long[] values) {
+        if (mirror.size() < localMaxCrops || mirror.containsKey(crop)) {
+            mirror.put(crop, new Mirrored(values, System.nanoTime()));
+        }
+    }
+
+    private static void add(Map<ObjectId, long[]> deltas, ObjectId crop, CommandStatus status, long delta) {
+        if (crop == null || status == null) {
+            return;
+        }
+        deltas.computeIfAbsent(crop, key -> new long[STATUSES.length])[status.ordinal()] += delta;
+    }
+
+    private static long[] toArray(Map<CommandStatus, Long> byStatus) {
+        long[] values = new long[STATUSES.length];
+        byStatus.forEach((status, count) -> values[status.ordinal()] = count);
+        return values;
+    }
+
+    private static Map<CommandStatus, Long> toMap(long[] values) {
+        Map<CommandStatus, Long> counts = new EnumMap<>(CommandStatus.class);
+        for (CommandStatus status : STATUSES) {
+            counts.put(status, values[status.ordinal()]);
+        }
+        return counts;
+    }
+
+    private static String key(ObjectId crop) {
+        return KEY_PREFIX + crop.toHexString();
+    }
+
+    private record Mirrored(long[] counts, long loadedAt) {
+    }
+}
@@ -0,0 +1,172 @@
+package app.smartpot.api.commands.expiry;
+
+import app.smartpot.api.commands.counter.CommandStatusCounters;
+import app.smartpot.api.commands.model.entity.Command;
+import app.smartpot.api.commands.model.entity.CommandStatus;
+import app.smartpot.api.commands.notify.CommandCreatedEvent;
+import app.smartpot.api.commands.repository.CommandRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Marks as "FAILED" the commands that are still pending when their deadline passes.
+ *
+ * <p>
+ * Pending commands whose deadline falls within the next {@code horizon} seconds are kept in a
+ * {@link HashedTimingWheel}, loaded through the {@code status_deadline} index. Every time half of the horizon
+ * has elapsed the next stretch is loaded, so each pending command is read once and no periodic scan of the
+ * collection is needed. Commands created with a deadline inside the loaded stretch are added to the wheel as
+ * soon as their creation is committed. Commands stored before deadlines existed are loaded through the
+ * {@code status_dateCreated} index and expire {@code timeout} seconds after their creation.
+ * </p>
+ *
+ * <p>
+ * On every tick the expired commands that are still pending are failed with bulk updates that only match
+ * pending commands, so commands acknowledged in the meantime are left untouched; their status counters are
+ * moved and their cache entries evicted. Running the sweeper on several instances only repeats those
+ * conditional updates.
+ * </p>
+ */
+@Slf4j
+@Component
+public class CommandExpirySweeper {
+
+    static final String TIMEOUT_RESPONSE = "TIMEOUT";
+
+    private final CommandRepository commandRepository;
+    private final CacheManager cacheManager;
+    private final CommandStatusCounters commandStatusCounters;
+    private HashedTimingWheel<ObjectId> wheel;
+    private volatile long loadedUntil;
+
+    @Value("${commands.expiry.enabled}")
+    private boolean enabled;
+
+    @Value("${commands.expiry.timeout}")
+    private long timeoutSeconds;
+
+    @Value("${commands.expiry.tick}")
+    private long tickMillis;
+
+    @Value("${commands.expiry.wheel-size}")
+    private int wheelSize;
+
+    @Value("${commands.expiry.horizon}")
+    private long horizonSeconds;
+
+    @Value("${commands.expiry.batch-size}")
+    private int batchSize;
+
+    @Autowired
+    public CommandExpirySweeper(CommandRepository commandRepository, CacheManager cacheManager,
+                                CommandStatusCounters commandStatusCounters) {
+        this.commandRepository = commandRepository;
+        this.cacheManager = cacheManager;
+        this.commandStatusCounters = commandStatusCounters;
+    }
+
+    @PostConstruct
+    public void start() {
+        wheel = new HashedTimingWheel<>(tickMillis, wheelSize, System.currentTimeMillis());
+    }
+
+    /**
+     * Tracks new commands whose deadline falls within the stretch already loaded into the wheel.
+     * Later deadlines are picked up when their stretch is loaded.
+     *
+     * @param event the event with the stored commands
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommandCreated(CommandCreatedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        synchronized (this) {
+            for (Command command : event.commands()) {
+                if (command.getDeadline() != null && command.getDeadline().getTime() < loadedUntil) {
+                    wheel.add(command.getId(), command.getDeadline().getTime());
+                }
+            }
+        }
+    }
+
+    /**
+     * Loads the next stretch of deadlines when needed and fails the commands that expired.
+     */
+    @Scheduled(fixedDelayString = "${commands.expiry.tick}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        long horizonMillis = TimeUnit.SECONDS.toMillis(horizonSeconds);
+        if (now + horizonMillis / 2 >= loadedUntil) {
+            try {
+                load(now + horizonMillis);
+            } catch (DataAccessException e) {
+                log.warn("Could not load the pending command deadlines: {}", e.getMessage());
+            }
+        }
+
+        List<ObjectId> expired = wheel.advance(now);
+        if (expired.isEmpty()) {
+            return;
+        }
+        Date when = new Date(now);
+        Cache cache = cacheManager.getCache("commands");
+        long failed = 0;
+        for (int from = 0; from < expired.size(); from += batchSize) {
+            List<ObjectId> batch = expired.subList(from, Math.min(from + batchSize, expired.size()));
+            List<Command> pending;
+            long modified;
+            try {
+                pending = commandRepository.findPendingByIds(batch);
+                if (pending.isEmpty()) {
+                    continue;
+                }
+                modified = commandRepository.failPending(pending.stream().map(Command::getId).toList(), when, TIMEOUT_RESPONSE);
+            } catch (DataAccessException e) {
+                log.warn("Could not fail {} expired commands, retrying on the next tick: {}", batch.size(), e.getMessage());
+                batch.forEach(id -> wheel.add(id, now));
+                continue;
+            }
+            if (modified == pending.size()) {
+                commandStatusCounters.moved(pending, CommandStatus.PENDING, CommandStatus.FAILED);
+            } else {
+                commandStatusCounters.recount(pending.stream().map(Command::getCrop).toList());
+            }
+            failed += modified;
+            if (cache != null) {
+                pending.forEach(command -> cache.evict("id_" + command.getId().toHexString()));
+            }
+        }
+        if (failed > 0) {
+            log.info("{} expired commands marked as FAILED", failed);
+        }
+    }
+
+    private synchronized void load(long until) {
+        long from = loadedUntil;
+        long timeoutMillis = TimeUnit.SECONDS.toMillis(timeoutSeconds);
+        List<Command> withDeadline = commandRepository.findPendingByDeadline(new Date(from), new Date(until));
+        List<Command> legacy = commandRepository.findPendingWithoutDeadlineByDateCreated(
+                new Date(from - timeoutMillis), new Date(until - timeoutMillis));
+        withDeadline.forEach(command -> wheel.add(command.getId(), command.getDeadline().getTime()));
+        legacy.forEach(command -> wheel.add(command.getId(), command.getDateCreated().getTime() + timeoutMillis));
+        loadedUntil = until;
+        log.debug("Loaded {} command deadlines until {}, {} waiting", withDeadline.size() + legacy.size(), new Date(until), wheel.size());
+    }
+}
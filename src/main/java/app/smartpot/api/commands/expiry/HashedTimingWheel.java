@@ -0,0 +1,104 @@
+package app.smartpot.api.commands.expiry;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hashed timing wheel holding items until their deadline.
+ *
+ * <p>
+ * Time is divided into ticks of {@code tickMillis}, and each deadline is hashed to the slot of its tick modulo the
+ * wheel size. Adding an item is O(1). Advancing the wheel only visits the slots of the elapsed ticks, at most
+ * one full turn, so the cost depends on the number of items in those slots and not on the total number of
+ * items held. Items whose deadline lies more than one turn ahead share a slot with earlier ones and are kept
+ * until their own tick is reached.
+ * </p>
+ *
+ * <p>
+ * An item never expires before its deadline, and expires at most one tick after it once the wheel is advanced.
+ * Deadlines already in the past expire on the next advance. This class is thread-safe.
+ * </p>
+ *
+ * @param <T> the type of the items
+ */
+public class HashedTimingWheel<T> {
+
+    private final long tickMillis;
+    private final List<List<Entry<T>>> slots;
+    private long cursor;
+    private int size;
+
+    /**
+     * Creates an empty wheel.
+     *
+     * @param tickMillis the duration of a tick, in milliseconds
+     * @param wheelSize  the number of slots
+     * @param now        the current time, in milliseconds since the epoch
+     */
+    public HashedTimingWheel(long tickMillis, int wheelSize, long now) {
+        if (tickMillis <= 0 || wheelSize <= 0) {
+            throw new IllegalArgumentException("The tick and the wheel size must be positive");
+        }
+        this.tickMillis = tickMillis;
+        this.slots = new ArrayList<>(wheelSize);
+        for (int i = 0; i < wheelSize; i++) {
+            slots.add(new ArrayList<>());
+        }
+        this.cursor = now / tickMillis;
+    }
+
+    /**
+     * Adds an item that expires at the given deadline.
+     *
+     * @param item     the item
+     * @param deadline the deadline, in milliseconds since the epoch
+     */
+    public synchronized void add(T item, long deadline) {
+        long tick = Math.max(-Math.floorDiv(-deadline, tickMillis), cursor);
+        slot(tick).add(new Entry<>(item, tick));
+        size++;
+    }
+
+    /**
+     * Advances the wheel up to the given time and removes the items whose deadline has passed.
+     *
+     * @param now the current time, in milliseconds since the epoch
+     * @return the expired items, in no particular order
+     */
+    public synchronized List<T> advance(long now) {
+        long target = now / tickMillis;
+        if (target < cursor) {
+            return List.of();
+        }
+        List<T> expired = new ArrayList<>();
+        long last = Math.min(target, cursor + slots.size() - 1);
+        for (long tick = cursor; tick <= last; tick++) {
+            slot(tick).removeIf(entry -> {
+                if (entry.tick() > target) {
+                    return false;
+                }
+                expired.add(entry.item());
+                return true;
+            });
+        }
+        cursor = target + 1;
+        size -= expired.size();
+        return expired;
+    }
+
+    /**
+     * Number of items waiting in the wheel.
+     *
+     * @return the number of items not yet expired
+     */
+    public synchronized int size() {
+        return size;
+    }
+
+    private List<Entry<T>> slot(long tick) {
+        return slots.get((int) Math.floorMod(tick, (long) slots.size()));
+    }
+
+    private record Entry<T>(T item, long tick) {
+    }
+}
@@ -20,6 +20,7 @@ public interface CommandMapper {
     @Mapping(source = "actuator", target = "actuator", qualifiedByName = "stringToObjectId")
     @Mapping(source = "dateCreated", target = "dateCreated", qualifiedByName = "stringToDate")
     @Mapping(source = "dateExecuted", target = "dateExecuted", qualifiedByName = "stringToDate")
+    @Mapping(source = "deadline", target = "deadline", qualifiedByName = "stringToDate")
     Command toEntity(CommandDTO commandDTO);
 
     @Mapping(source = "id", target = "id", qualifiedByName = "objectIdToString")
@@ -27,6 +28,7 @@ public interface CommandMapper {
     @Mapping(source = "actuator", target = "actuator", qualifiedByName = "objectIdToString")
     @Mapping(source = "dateCreated", target = "dateCreated", qualifiedByName = "dateToString")
     @Mapping(source = "dateExecuted", target = "dateExecuted", qualifiedByName = "dateToString")
+    @Mapping(source = "deadline", target = "deadline", qualifiedByName = "dateToString")
     CommandDTO toDTO(Command command);
 
     @org.mapstruct.Named("objectIdToString")
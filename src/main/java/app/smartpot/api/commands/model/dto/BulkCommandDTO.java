@@ -0,0 +1,25 @@
+package app.smartpot.api.commands.model.dto;
+
+import app.smartpot.api.actuators.model.entity.ActuatorType;
+import lombok.Data;
+
+import java.io.Serializable;
+import java.util.List;
+
+/**
+ * Command to send to many crops at once.
+ *
+ * <p>
+ * Exactly one target selector must be set: {@code crops} (crop IDs), {@code cropType} (every crop of a type)
+ * or {@code user} (every crop a user owns). When {@code actuatorType} is set, each command is addressed to the
+ * actuator of that type in its crop, and crops without one are skipped.
+ * </p>
+ */
+@Data
+public class BulkCommandDTO implements Serializable {
+    private String commandType;
+    private ActuatorType actuatorType;
+    private List<String> crops;
+    private String cropType;
+    private String user;
+}
@@ -0,0 +1,21 @@
+package app.smartpot.api.commands.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Outcome of a bulk command: the commands created and the targeted crops that were skipped,
+ * either because they do not exist or because they lack the requested actuator.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BulkCommandResultDTO {
+    private List<CommandDTO> created;
+    private List<String> skipped;
+}
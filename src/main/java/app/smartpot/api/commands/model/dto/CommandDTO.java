@@ -13,6 +13,7 @@ public class CommandDTO implements Serializable {
     private CommandStatus status;
     private String dateCreated;
     private String dateExecuted;
+    private String deadline;
     private String response;
     private String crop;
 }
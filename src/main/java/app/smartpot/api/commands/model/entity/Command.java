@@ -8,6 +8,9 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -18,6 +21,13 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "comandos")
+@CompoundIndexes({
+        @CompoundIndex(name = "crop_status", def = "{'crop': 1, 'status': 1}"),
+        @CompoundIndex(name = "crop_dateCreated", def = "{'crop': 1, 'dateCreated': -1}"),
+        @CompoundIndex(name = "status_dateCreated", def = "{'status': 1, 'dateCreated': 1}"),
+        @CompoundIndex(name = "status_deadline", def = "{'status': 1, 'deadline': 1}"),
+        @CompoundIndex(name = "commandType_status", def = "{'commandType': 1, 'status': 1}")
+})
 public class Command {
     /**
      * Representa un comando que puede ser ejecutado en un cultivo específico.
@@ -45,13 +55,19 @@ public class Command {
 
     @NotNull(message = "La fecha de creación no puede estar vacía")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    @Indexed(name = "dateCreated")
     @Field("dateCreated")
     private Date dateCreated;
 
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    @Indexed(name = "dateExecuted")
     @Field("dateExecuted")
     private Date dateExecuted;
 
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSX")
+    @Field("deadline")
+    private Date deadline;
+
     @Field("response")
     private String response;
 
@@ -73,6 +89,7 @@ public class Command {
  * - status: Estado del comando (ej. "PENDING", "EXECUTED", "FAILED").
  * - dateCreated: Fecha de creación del comando (debe ser proporcionada, no puede ser nula).
  * - dateExecuted: Fecha en la que se ejecutó el comando (opcional, puede ser nula si no se ha ejecutado).
+ * - deadline: Fecha límite para confirmar el comando; pasada esta fecha un comando pendiente se marca como fallido.
  * - response: Respuesta después de la ejecución (ej. éxito, error).
  * - crop: Referencia al cultivo asociado (debe ser proporcionado, no puede ser nulo).
  */
\ No newline at end of file
@@ -0,0 +1,28 @@
+package app.smartpot.api.commands.notify;
+
+import app.smartpot.api.commands.model.entity.Command;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Published after commands are stored, so that devices waiting for work on their crops are woken up
+ * and the commands are tracked until their deadline.
+ *
+ * @param commands the stored commands
+ */
+public record CommandCreatedEvent(List<Command> commands) {
+
+    /**
+     * The crops the commands were issued for.
+     *
+     * @return the distinct crops of the commands
+     */
+    public Set<ObjectId> crops() {
+        return commands.stream()
+                .map(Command::getCrop)
+                .collect(Collectors.toSet());
+    }
+}
@@ -0,0 +1,149 @@
+package app.smartpot.api.commands.notify;
+
+import app.smartpot.api.commands.mapper.CommandMapper;
+import app.smartpot.api.commands.model.entity.Command;
+import app.smartpot.api.commands.model.dto.CommandDTO;
+import app.smartpot.api.commands.repository.CommandRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.context.request.async.DeferredResult;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Parks long-poll requests from devices until a pending command exists for their crop.
+ *
+ * <p>
+ * Each waiting request is a {@link DeferredResult}, so no servlet thread is held while it waits. A waiter is
+ * registered before the pending commands are queried, which guarantees that a command created between the query
+ * and the registration still wakes it up. When commands are created, the pending commands of every crop with
+ * waiters are queried at once and handed to the waiters of each crop. Waiters that time out receive
+ * {@code 204 No Content} and are expected to poll again.
+ * </p>
+ *
+ * <p>
+ * Waiters live in the memory of this instance: a command created on another instance is picked up by the
+ * device on its next poll, at most one timeout later.
+ * </p>
+ */
+@Slf4j
+@Component
+public class PendingCommandNotifier {
+
+    private final CommandRepository commandRepository;
+    private final CommandMapper commandMapper;
+    private final Map<ObjectId, Set<DeferredResult<ResponseEntity<?>>>> waiters = new ConcurrentHashMap<>();
+    private final AtomicInteger waiting = new AtomicInteger();
+
+    @Value("${commands.long-poll.max-waiters}")
+    private int maxWaiters;
+
+    @Autowired
+    public PendingCommandNotifier(CommandRepository commandRepository, CommandMapper commandMapper) {
+        this.commandRepository = commandRepository;
+        this.commandMapper = commandMapper;
+    }
+
+    /**
+     * Waits for the pending commands of a crop.
+     *
+     * <p>
+     * If the crop already has pending commands they are returned at once. When the timeout is zero or less, or
+     * the maximum number of waiters is reached, the request is answered immediately with the current pending
+     * commands, degrading to a plain poll.
+     * </p>
+     *
+     * @param crop          the crop to wait on
+     * @param timeoutMillis how long to hold the request open
+     * @return a deferred response with the pending commands, or {@code 204 No Content} on timeout
+     */
+    public DeferredResult<ResponseEntity<?>> await(ObjectId crop, long timeoutMillis) {
+        if (timeoutMillis <= 0) {
+            return answerNow(crop);
+        }
+        if (waiting.incrementAndGet() > maxWaiters) {
+            waiting.decrementAndGet();
+            return answerNow(crop);
+        }
+
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>(timeoutMillis, ResponseEntity.noContent().build());
+
+        waiters.compute(crop, (key, set) -> {
+            Set<DeferredResult<ResponseEntity<?>>> registered = set != null ? set : ConcurrentHashMap.newKeySet();
+            registered.add(result);
+            return registered;
+        });
+        result.onCompletion(() -> release(crop, result));
+
+        List<CommandDTO> pending = findPending(crop);
+        if (!pending.isEmpty()) {
+            result.setResult(ResponseEntity.ok(pending));
+        }
+        return result;
+    }
+
+    /**
+     * Wakes the waiters of the affected crops once the command creation is committed.
+     *
+     * @param event the event with the crops of the new commands
+     */
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCommandCreated(CommandCreatedEvent event) {
+        List<ObjectId> crops = event.crops().stream()
+                .filter(waiters::containsKey)
+                .toList();
+        if (crops.isEmpty()) {
+            return;
+        }
+        try {
+            Map<ObjectId, List<CommandDTO>> pending = new HashMap<>();
+            for (Command command : commandRepository.findPendingCommandsByCropIds(crops)) {
+                pending.computeIfAbsent(command.getCrop(), crop -> new ArrayList<>()).add(commandMapper.toDTO(command));
+            }
+            pending.forEach((crop, commands) -> {
+                Set<DeferredResult<ResponseEntity<?>>> registered = waiters.get(crop);
+                if (registered == null) {
+                    return;
+                }
+                ResponseEntity<?> response = ResponseEntity.ok(commands);
+                for (DeferredResult<ResponseEntity<?>> waiter : registered) {
+                    waiter.setResult(response);
+                }
+            });
+        } catch (Exception e) {
+            log.warn("Could not wake the waiters of {} crops: {}", crops.size(), e.getMessage());
+        }
+    }
+
+    private DeferredResult<ResponseEntity<?>> answerNow(ObjectId crop) {
+        DeferredResult<ResponseEntity<?>> result = new DeferredResult<>();
+        List<CommandDTO> pending = findPending(crop);
+        result.setResult(pending.isEmpty() ? ResponseEntity.noContent().build() : ResponseEntity.ok(pending));
+        return result;
+    }
+
+    private void release(ObjectId crop, DeferredResult<ResponseEntity<?>> result) {
+        waiters.computeIfPresent(crop, (key, set) -> {
+            set.remove(result);
+            return set.isEmpty() ? null : set;
+        });
+        waiting.decrementAndGet();
+    }
+
+    private List<CommandDTO> findPending(ObjectId crop) {
+        return commandRepository.findPendingCommandsByCropId(crop).stream()
+                .map(commandMapper::toDTO)
+                .toList();
+    }
+}
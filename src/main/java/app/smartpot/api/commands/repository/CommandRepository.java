@@ -7,11 +7,12 @@ import org.springframework.data.mongodb.repository.Query;
 import org.springframework.stereotype.Repository;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
 @Repository
-public interface CommandRepository extends MongoRepository<Command, ObjectId> {
+public interface CommandRepository extends MongoRepository<Command, ObjectId>, CommandRepositoryCustom {
 
     // Búsqueda por tipo de comando
     @Query("{ 'commandType' : { $regex: ?0, $options: 'i' } }")
@@ -41,6 +42,10 @@ public interface CommandRepository extends MongoRepository<Command, ObjectId> {
     @Query("{ 'crop' : ?0, 'status' : 'PENDING' }")
     List<Command> findPendingCommandsByCropId(ObjectId cropId);
 
+    // Búsqueda de comandos pendientes de varios cultivos
+    @Query("{ 'crop' : { $in: ?0 }, 'status' : 'PENDING' }")
+    List<Command> findPendingCommandsByCropIds(Collection<ObjectId> cropIds);
+
     // Búsqueda de comandos ejecutados por cultivo
     @Query("{ 'crop' : ?0, 'status' : 'EXECUTED' }")
     List<Command> findExecutedCommandsByCropId(ObjectId cropId);
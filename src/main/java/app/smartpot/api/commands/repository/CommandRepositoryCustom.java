@@ -0,0 +1,91 @@
+package app.smartpot.api.commands.repository;
+
+import app.smartpot.api.commands.model.entity.Command;
+import app.smartpot.api.commands.model.entity.CommandStatus;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operaciones del repositorio de comandos que no pueden expresarse como consultas derivadas
+ * o anotadas con {@link org.springframework.data.mongodb.repository.Query}.
+ * <p>
+ * La implementación se resuelve automáticamente por Spring Data mediante {@link CommandRepositoryCustomImpl}.
+ * </p>
+ */
+public interface CommandRepositoryCustom {
+
+    /**
+     * Cambia el estado de un comando en una única operación atómica, solo si su estado actual es el esperado.
+     *
+     * @param id           Identificador del comando.
+     * @param expected     Estado que debe tener el comando para aplicar el cambio.
+     * @param target       Nuevo estado.
+     * @param dateExecuted Fecha de ejecución a registrar.
+     * @param response     Respuesta del dispositivo a registrar.
+     * @return El comando ya actualizado, o {@code null} si no existe o su estado no era el esperado.
+     */
+    Command transitionStatus(ObjectId id, CommandStatus expected, CommandStatus target, Date dateExecuted, String response);
+
+    /**
+     * Actualiza los datos editables de un comando sin reescribir el documento completo. Los campos nulos se
+     * conservan y el estado no se modifica, de modo que una edición no deshace un cambio de estado concurrente.
+     *
+     * @param id          Identificador del comando.
+     * @param commandType Nuevo tipo de comando, o {@code null}.
+     * @param response    Nueva respuesta, o {@code null}.
+     * @param crop        Nuevo cultivo, o {@code null}.
+     * @return El comando ya actualizado, o {@code null} si no existe.
+     */
+    Command updateDetails(ObjectId id, String commandType, String response, ObjectId crop);
+
+    /**
+     * Marca como fallidos, en una sola escritura, los comandos indicados que sigan pendientes.
+     *
+     * @param ids          Identificadores de los comandos vencidos.
+     * @param dateExecuted Fecha a registrar como fecha de ejecución.
+     * @param response     Respuesta a registrar.
+     * @return Número de comandos modificados.
+     */
+    long failPending(Collection<ObjectId> ids, Date dateExecuted, String response);
+
+    /**
+     * Obtiene los comandos pendientes cuya fecha límite está en {@code [from, until)}, usando el índice
+     * {@code status_deadline}. Solo se leen el identificador y la fecha límite.
+     *
+     * @param from  Inicio del rango (inclusivo).
+     * @param until Fin del rango (exclusivo).
+     * @return Los comandos pendientes del rango.
+     */
+    List<Command> findPendingByDeadline(Date from, Date until);
+
+    /**
+     * Obtiene los comandos pendientes sin fecha límite cuya fecha de creación está en {@code [from, until)},
+     * usando el índice {@code status_dateCreated}. Solo se leen el identificador y la fecha de creación.
+     *
+     * @param from  Inicio del rango (inclusivo).
+     * @param until Fin del rango (exclusivo).
+     * @return Los comandos pendientes del rango.
+     */
+    List<Command> findPendingWithoutDeadlineByDateCreated(Date from, Date until);
+
+    /**
+     * Obtiene cuáles de los comandos indicados siguen pendientes. Solo se leen el identificador y el cultivo.
+     *
+     * @param ids Identificadores de los comandos.
+     * @return Los comandos pendientes entre los indicados.
+     */
+    List<Command> findPendingByIds(Collection<ObjectId> ids);
+
+    /**
+     * Cuenta los comandos de cada cultivo agrupados por estado, en una sola agregación que recorre
+     * el índice {@code crop_status}.
+     *
+     * @param crops Cultivos a contar, o {@code null} para contar todos.
+     * @return Para cada cultivo con comandos, el número de comandos por estado.
+     */
+    Map<ObjectId, Map<CommandStatus, Long>> countByCropAndStatus(Collection<ObjectId> crops);
+}
@@ -0,0 +1,125 @@
+package app.smartpot.api.commands.repository;
+
+import app.smartpot.api.commands.model.entity.Command;
+import app.smartpot.api.commands.model.entity.CommandStatus;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.FindAndModifyOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link CommandRepositoryCustom} basada en {@link MongoTemplate}.
+ */
+public class CommandRepositoryCustomImpl implements CommandRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public CommandRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Command transitionStatus(ObjectId id, CommandStatus expected, CommandStatus target, Date dateExecuted, String response) {
+        Query query = new Query(Criteria.where("_id").is(id).and("status").is(expected));
+        Update update = new Update()
+                .set("status", target)
+                .set("dateExecuted", dateExecuted)
+                .set("response", response);
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Command.class);
+    }
+
+    @Override
+    public Command updateDetails(ObjectId id, String commandType, String response, ObjectId crop) {
+        Update update = new Update();
+        if (commandType != null) {
+            update.set("commandType", commandType);
+        }
+        if (response != null) {
+            update.set("response", response);
+        }
+        if (crop != null) {
+            update.set("crop", crop);
+        }
+        Query query = new Query(Criteria.where("_id").is(id));
+        if (update.getUpdateObject().isEmpty()) {
+            return mongoTemplate.findOne(query, Command.class);
+        }
+        return mongoTemplate.findAndModify(query, update, FindAndModifyOptions.options().returnNew(true), Command.class);
+    }
+
+    @Override
+    public long failPending(Collection<ObjectId> ids, Date dateExecuted, String response) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("status").is(CommandStatus.PENDING));
+        Update update = new Update()
+                .set("status", CommandStatus.FAILED)
+                .set("dateExecuted", dateExecuted)
+                .set("response", response);
+        return mongoTemplate.updateMulti(query, update, Command.class).getModifiedCount();
+    }
+
+    @Override
+    public List<Command> findPendingByDeadline(Date from, Date until) {
+        Query query = new Query(Criteria.where("status").is(CommandStatus.PENDING)
+                .and("deadline").gte(from).lt(until));
+        query.fields().include("_id", "deadline");
+        return mongoTemplate.find(query, Command.class);
+    }
+
+    @Override
+    public List<Command> findPendingWithoutDeadlineByDateCreated(Date from, Date until) {
+        Query query = new Query(Criteria.where("status").is(CommandStatus.PENDING)
+                .and("dateCreated").gte(from).lt(until)
+                .and("deadline").is(null));
+        query.fields().include("_id", "dateCreated");
+        return mongoTemplate.find(query, Command.class);
+    }
+
+    @Override
+    public List<Command> findPendingByIds(Collection<ObjectId> ids) {
+        Query query = new Query(Criteria.where("_id").in(ids).and("status").is(CommandStatus.PENDING));
+        query.fields().include("_id", "crop");
+        return mongoTemplate.find(query, Command.class);
+    }
+
+    @Override
+    public Map<ObjectId, Map<CommandStatus, Long>> countByCropAndStatus(Collection<ObjectId> crops) {
+        List<Document> pipeline = new ArrayList<>();
+        if (crops != null) {
+            pipeline.add(new Document("$match", new Document("crop", new Document("$in", crops))));
+        }
+        pipeline.add(new Document("$sort", new Document("crop", 1).append("status", 1)));
+        pipeline.add(new Document("$group", new Document("_id",
+                new Document("crop", "$crop").append("status", "$status"))
+                .append("count", new Document("$sum", 1))));
+
+        Map<ObjectId, Map<CommandStatus, Long>> counts = new HashMap<>();
+        for (Document result : mongoTemplate.getCollection(mongoTemplate.getCollectionName(Command.class)).aggregate(pipeline)) {
+            Document id = result.get("_id", Document.class);
+            ObjectId crop = id.getObjectId("crop");
+            String status = id.getString("status");
+            if (crop == null || status == null) {
+                continue;
+            }
+            try {
+                counts.computeIfAbsent(crop, key -> new EnumMap<>(CommandStatus.class))
+                        .put(CommandStatus.valueOf(status), ((Number) result.get("count")).longValue());
+            } catch (IllegalArgumentException ignored) {
+                // Estado desconocido: no se cuenta
+            }
+        }
+        return counts;
+    }
+}
@@ -1,8 +1,14 @@
 package app.smartpot.api.commands.service;
 
+import app.smartpot.api.commands.model.dto.BulkCommandDTO;
+import app.smartpot.api.commands.model.dto.BulkCommandResultDTO;
 import app.smartpot.api.commands.model.dto.CommandDTO;
+import app.smartpot.api.commands.model.entity.CommandStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.util.List;
+import java.util.Map;
 
 /**
  * Interface for the Command Service.
@@ -28,9 +34,13 @@ import java.util.List;
  *     <li>{@link #getAllCommands()} - Fetches all available commands.</li>
  *     <li>{@link #getCommandById(String)} - Retrieves a command by its unique ID.</li>
  *     <li>{@link #createCommand(CommandDTO)} - Creates a new command in the system.</li>
+ *     <li>{@link #createCommands(BulkCommandDTO)} - Creates the same command for many crops at once.</li>
  *     <li>{@link #updateCommand(String, CommandDTO)} - Updates the details of a command.</li>
  *     <li>{@link #deleteCommand(String)} - Deletes a command by its ID.</li>
  *     <li>{@link #executeCommand(String, String)} - Executes a command and logs its response.</li>
+ *     <li>{@link #failCommand(String, String)} - Marks a command as failed with the reported error.</li>
+ *     <li>{@link #awaitPendingCommands(String, Long)} - Long-polls the pending commands of a crop.</li>
+ *     <li>{@link #getStatusCounts(List)} - Counts the commands of many crops by status.</li>
  * </ul>
  *
  * <h3>Usage:</h3>
@@ -78,6 +88,15 @@ public interface CommandService {
      */
     CommandDTO createCommand(CommandDTO newCommand);
 
+    /**
+     * Creates the same command for every crop matched by a target selector.
+     *
+     * @param bulkCommand the command type, optional actuator type and target selector.
+     * @return the created commands and the crops that were skipped.
+     * @throws Exception if the selector is not valid or matches no crop.
+     */
+    BulkCommandResultDTO createCommands(BulkCommandDTO bulkCommand) throws Exception;
+
     /**
      * Updates the details of an existing command.
      *
@@ -106,4 +125,33 @@ public interface CommandService {
      * @throws Exception if the command does not exist or execution fails.
      */
     CommandDTO executeCommand(String id, String response) throws Exception;
+
+    /**
+     * Marks a pending command as failed and records the reported error.
+     *
+     * @param id       the unique identifier of the command that failed.
+     * @param response the error reported by the device.
+     * @return the updated {@link CommandDTO} reflecting the failure.
+     * @throws Exception if the command does not exist or is no longer pending.
+     */
+    CommandDTO failCommand(String id, String response) throws Exception;
+
+    /**
+     * Waits until a crop has pending commands, answering asynchronously.
+     *
+     * @param crop    the unique identifier of the crop.
+     * @param timeout how long to wait in milliseconds, or {@code null} for the configured default.
+     * @return a deferred response with the pending {@link CommandDTO}s, or {@code 204 No Content} on timeout.
+     * @throws Exception if the crop identifier is not valid or the crop does not exist.
+     */
+    DeferredResult<ResponseEntity<?>> awaitPendingCommands(String crop, Long timeout) throws Exception;
+
+    /**
+     * Retrieves the number of commands of each crop by status.
+     *
+     * @param crops the unique identifiers of the crops.
+     * @return for each crop identifier, the number of its commands in each status.
+     * @throws Exception if an identifier is not valid or too many crops are requested.
+     */
+    Map<String, Map<CommandStatus, Long>> getStatusCounts(List<String> crops) throws Exception;
 }
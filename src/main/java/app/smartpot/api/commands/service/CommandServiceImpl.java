@@ -1,27 +1,50 @@
 package app.smartpot.api.commands.service;
 
+import app.smartpot.api.actuators.model.dto.ActuatorDTO;
+import app.smartpot.api.actuators.service.ActuatorService;
+import app.smartpot.api.commands.counter.CommandStatusCounters;
 import app.smartpot.api.commands.mapper.CommandMapper;
+import app.smartpot.api.commands.model.dto.BulkCommandDTO;
+import app.smartpot.api.commands.model.dto.BulkCommandResultDTO;
 import app.smartpot.api.commands.model.dto.CommandDTO;
+import app.smartpot.api.commands.model.entity.Command;
 import app.smartpot.api.commands.model.entity.CommandStatus;
+import app.smartpot.api.commands.notify.CommandCreatedEvent;
+import app.smartpot.api.commands.notify.PendingCommandNotifier;
 import app.smartpot.api.commands.repository.CommandRepository;
+import app.smartpot.api.crops.model.dto.CropDTO;
 import app.smartpot.api.crops.service.CropService;
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
 import jakarta.validation.ValidationException;
-import lombok.Builder;
 import lombok.Data;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.cache.annotation.CacheEvict;
 import org.springframework.cache.annotation.CachePut;
 import org.springframework.cache.annotation.Cacheable;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.context.request.async.DeferredResult;
 
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * Service implementation for managing commands.
@@ -35,7 +58,6 @@ import java.util.stream.Collectors;
  * <h3>Annotations:</h3>
  * <ul>
  *     <li>{@code @Data} - Generates boilerplate code such as getters, setters, and toString.</li>
- *     <li>{@code @Builder} - Enables the builder pattern for constructing instances of this class.</li>
  *     <li>{@code @Service} - Marks this class as a Spring-managed service component.</li>
  * </ul>
  *
@@ -43,7 +65,10 @@ import java.util.stream.Collectors;
  * <ul>
  *     <li>{@code RCommand} - Repository for accessing and persisting command entities.</li>
  *     <li>{@code SCropI} - Service for managing crops, used for operations involving crop data.</li>
+ *     <li>{@code ActuatorService} - Service for managing actuators, used to address bulk commands.</li>
  *     <li>{@code MCommand} - Mapper for converting between entity and DTO representations of commands.</li>
+ *     <li>{@code PendingCommandNotifier} - Holds the long-poll requests of devices waiting for pending commands.</li>
+ *     <li>{@code CommandStatusCounters} - Keeps the number of commands of each crop by status.</li>
  * </ul>
  *
  * <h3>Responsibilities:</h3>
@@ -65,26 +90,54 @@ import java.util.stream.Collectors;
  * @see CommandMapper
  */
 @Data
-@Builder
 @Service
 public class CommandServiceImpl implements CommandService {
 
     private final CommandRepository commandRepository;
     private final CropService cropService;
+    private final ActuatorService actuatorService;
     private final CommandMapper commandMapper;
+    private final PendingCommandNotifier pendingCommandNotifier;
+    private final CommandStatusCounters commandStatusCounters;
+    private final ApplicationEventPublisher eventPublisher;
+
+    @Value("${commands.long-poll.default-timeout}")
+    private long defaultPollTimeout;
+
+    @Value("${commands.long-poll.max-timeout}")
+    private long maxPollTimeout;
+
+    @Value("${commands.bulk.max-targets}")
+    private int maxBulkTargets;
+
+    @Value("${commands.expiry.timeout}")
+    private long commandTimeoutSeconds;
+
+    @Value("${commands.counters.max-crops}")
+    private int maxCounterCrops;
 
     /**
      * Constructs an instance of {@code SCommand} with the required dependencies.
      *
-     * @param commandRepository the repository for command-related database operations
-     * @param cropService       the service responsible for crop-related logic
-     * @param commandMapper     the mapper for converting entities to DTOs and vice versa
+     * @param commandRepository      the repository for command-related database operations
+     * @param cropService            the service responsible for crop-related logic
+     * @param actuatorService        the service responsible for actuator-related logic
+     * @param commandMapper          the mapper for converting entities to DTOs and vice versa
+     * @param pendingCommandNotifier the registry of devices waiting for pending commands
+     * @param commandStatusCounters  the per-crop command counters by status
+     * @param eventPublisher         the publisher used to announce created commands
      */
     @Autowired
-    public CommandServiceImpl(CommandRepository commandRepository, CropService cropService, CommandMapper commandMapper) {
+    public CommandServiceImpl(CommandRepository commandRepository, CropService cropService, ActuatorService actuatorService,
+                              CommandMapper commandMapper, PendingCommandNotifier pendingCommandNotifier,
+                              CommandStatusCounters commandStatusCounters, ApplicationEventPublisher eventPublisher) {
         this.commandRepository = commandRepository;
         this.cropService = cropService;
+        this.actuatorService = actuatorService;
         this.commandMapper = commandMapper;
+        this.pendingCommandNotifier = pendingCommandNotifier;
+        this.commandStatusCounters = commandStatusCounters;
+        this.eventPublisher = eventPublisher;
     }
 
     /**
@@ -161,7 +214,10 @@ public class CommandServiceImpl implements CommandService {
      *
      * <p>
      * This method assigns a default status of "PENDING" and records the current timestamp
-     * as the creation date in the format "yyyy-MM-dd HH:mm:ss".
+     * as the creation date in the format "yyyy-MM-dd HH:mm:ss". Unless the DTO sets a deadline,
+     * the command must be acknowledged within the configured timeout or it is marked as "FAILED".
+     * Devices long-polling the crop
+     * of the command are woken up once the creation is committed.
      * </p>
      *
      * @param commandDTO the {@code CommandDTO} containing the details of the command to create
@@ -184,44 +240,209 @@ public class CommandServiceImpl implements CommandService {
                 })
                 .map(dto -> {
                     SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                    dto.setDateCreated(formatter.format(new Date()));
+                    Date now = new Date();
+                    dto.setDateCreated(formatter.format(now));
                     dto.setStatus(CommandStatus.PENDING);
+                    if (dto.getDeadline() == null) {
+                        dto.setDeadline(formatter.format(deadlineFrom(now)));
+                    }
                     return dto;
                 })
                 .map(commandMapper::toEntity)
                 .map(commandRepository::save)
+                .map(saved -> {
+                    eventPublisher.publishEvent(new CommandCreatedEvent(List.of(saved)));
+                    return saved;
+                })
                 .map(commandMapper::toDTO)
                 .orElseThrow(() -> new IllegalStateException("El Comando ya existe"));
     }
 
+    /**
+     * Creates the same command for every crop matched by the target selector of the DTO.
+     *
+     * <p>
+     * The target crops are resolved with a single query, the commands are stored with one bulk
+     * insert and the devices long-polling any of those crops are woken up in one pass. When an
+     * actuator type is requested, the actuators of all target crops are also resolved with one
+     * query, and crops without an actuator of that type are reported as skipped, as are the
+     * requested crop IDs that do not exist.
+     * </p>
+     *
+     * @param bulkCommand the command type, the optional actuator type and exactly one target selector
+     * @return the created commands and the skipped crops
+     * @throws Exception if the selector is not valid, targets too many crops or matches no crop
+     */
+    @Override
+    @Transactional
+    public BulkCommandResultDTO createCommands(BulkCommandDTO bulkCommand) throws Exception {
+        if (bulkCommand.getCommandType() == null || bulkCommand.getCommandType().isBlank()) {
+            throw new ApiException(new ApiResponse(
+                    "El tipo de comando es obligatorio",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        boolean byCrops = bulkCommand.getCrops() != null && !bulkCommand.getCrops().isEmpty();
+        long selectors = Stream.of(byCrops, bulkCommand.getCropType() != null, bulkCommand.getUser() != null)
+                .filter(Boolean::booleanValue)
+                .count();
+        if (selectors != 1) {
+            throw new ApiException(new ApiResponse(
+                    "Se debe indicar exactamente un destino: crops, cropType o user",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        if (byCrops && bulkCommand.getCrops().size() > maxBulkTargets) {
+            throw tooManyTargets();
+        }
+
+        List<CropDTO> targets = byCrops ? cropService.getCropsByIds(bulkCommand.getCrops())
+                : bulkCommand.getCropType() != null ? cropService.getCropsByType(bulkCommand.getCropType())
+                : cropService.getCropsByUser(bulkCommand.getUser());
+        if (targets.size() > maxBulkTargets) {
+            throw tooManyTargets();
+        }
+
+        Set<String> skipped = new LinkedHashSet<>();
+        if (byCrops) {
+            skipped.addAll(bulkCommand.getCrops());
+            targets.forEach(crop -> skipped.remove(crop.getId()));
+        }
+        Map<String, String> actuators = bulkCommand.getActuatorType() == null ? null
+                : actuatorService.getActuatorsByCropsAndType(targets.stream().map(CropDTO::getId).toList(), bulkCommand.getActuatorType())
+                .stream()
+                .collect(Collectors.toMap(ActuatorDTO::getCrop, ActuatorDTO::getId, (first, second) -> first));
+
+        Date now = new Date();
+        List<Command> commands = new ArrayList<>(targets.size());
+        for (CropDTO crop : targets) {
+            String actuator = actuators != null ? actuators.get(crop.getId()) : null;
+            if (actuators != null && actuator == null) {
+                skipped.add(crop.getId());
+                continue;
+            }
+            commands.add(Command.builder()
+                    .commandType(bulkCommand.getCommandType())
+                    .actuator(actuator != null ? new ObjectId(actuator) : null)
+                    .crop(new ObjectId(crop.getId()))
+                    .status(CommandStatus.PENDING)
+                    .dateCreated(now)
+                    .deadline(deadlineFrom(now))
+                    .build());
+        }
+
+        List<Command> saved = commands.isEmpty() ? List.of() : commandRepository.insert(commands);
+        if (!saved.isEmpty()) {
+            eventPublisher.publishEvent(new CommandCreatedEvent(saved));
+        }
+        return BulkCommandResultDTO.builder()
+                .created(saved.stream().map(commandMapper::toDTO).collect(Collectors.toList()))
+                .skipped(new ArrayList<>(skipped))
+                .build();
+    }
+
+    private Date deadlineFrom(Date created) {
+        return new Date(created.getTime() + TimeUnit.SECONDS.toMillis(commandTimeoutSeconds));
+    }
+
+    private ApiException tooManyTargets() {
+        return new ApiException(new ApiResponse(
+                "El comando no puede enviarse a más de " + maxBulkTargets + " cultivos a la vez",
+                HttpStatus.BAD_REQUEST.value()
+        ));
+    }
+
+    /**
+     * Waits until the specified crop has pending commands, without holding a request thread.
+     *
+     * <p>
+     * The request is answered as soon as a command is created for the crop, or immediately if
+     * pending commands already exist. When the timeout elapses the response is {@code 204 No Content}
+     * and the device is expected to poll again. The timeout is capped at the configured maximum, and
+     * a timeout of zero or less answers immediately, as a plain poll.
+     * </p>
+     *
+     * @param crop    the ID of the crop whose pending commands are awaited
+     * @param timeout how long to wait, in milliseconds; the configured default when {@code null}
+     * @return a deferred response with the pending commands of the crop
+     * @throws Exception if the crop ID is not valid or the crop does not exist
+     */
+    @Override
+    public DeferredResult<ResponseEntity<?>> awaitPendingCommands(String crop, Long timeout) throws Exception {
+        if (!ObjectId.isValid(crop)) {
+            throw new ApiException(new ApiResponse(
+                    "El id '" + crop + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        cropService.getCropById(crop);
+        long wait = timeout == null ? defaultPollTimeout : Math.min(timeout, maxPollTimeout);
+        return pendingCommandNotifier.await(new ObjectId(crop), wait);
+    }
+
     /**
      * Executes a command by updating its status to "EXECUTED" and setting a response message.
      *
      * <p>
-     * This method updates the specified command with the current timestamp, sets its status to
-     * "EXECUTED", and records the provided response message.
+     * The transition is applied with a single conditional update that only matches a "PENDING"
+     * command, so concurrent acknowledgements cannot overwrite each other. Repeating the
+     * acknowledgement of an executed command returns it unchanged. The cache entry is refreshed
+     * from the updated document.
      * </p>
      *
      * @param id       the ID of the command to execute
      * @param response the response message to associate with the executed command
      * @return a {@code CommandDTO} representing the updated command
-     * @throws Exception if the command cannot be found or updated
+     * @throws Exception if the command cannot be found or is no longer pending
      */
     @Override
-    @CachePut(value = "commands", key = "'id:'+#id")
+    @CachePut(value = "commands", key = "'id_'+#id")
     public CommandDTO executeCommand(String id, String response) throws Exception {
-        return Optional.of(getCommandById(id))
-                .map(commandDTO -> {
-                    SimpleDateFormat formatter = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-                    commandDTO.setDateExecuted(formatter.format(new Date()));
-                    commandDTO.setStatus(CommandStatus.EXECUTED);
-                    commandDTO.setResponse(response);
-                    return commandDTO;
-                })
-                .map(commandMapper::toEntity)
-                .map(commandRepository::save)
-                .map(commandMapper::toDTO)
-                .orElseThrow(() -> new Exception("El Comando no se pudo actualizar"));
+        return transition(id, CommandStatus.EXECUTED, response);
+    }
+
+    /**
+     * Marks a command as failed by updating its status to "FAILED" and setting a response message.
+     *
+     * <p>
+     * Like {@link #executeCommand(String, String)}, the transition only applies to a "PENDING"
+     * command and a repeated report of the same failure returns the command unchanged.
+     * </p>
+     *
+     * @param id       the ID of the command that failed
+     * @param response the error reported by the device
+     * @return a {@code CommandDTO} representing the updated command
+     * @throws Exception if the command cannot be found or is no longer pending
+     */
+    @Override
+    @CachePut(value = "commands", key = "'id_'+#id")
+    public CommandDTO failCommand(String id, String response) throws Exception {
+        return transition(id, CommandStatus.FAILED, response);
+    }
+
+    private CommandDTO transition(String id, CommandStatus target, String response) throws Exception {
+        if (!ObjectId.isValid(id)) {
+            throw new ApiException(new ApiResponse(
+                    "El id '" + id + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        ObjectId commandId = new ObjectId(id);
+        Command updated = commandRepository.transitionStatus(commandId, CommandStatus.PENDING, target, new Date(), response);
+        if (updated != null) {
+            commandStatusCounters.moved(updated.getCrop(), CommandStatus.PENDING, target);
+            return commandMapper.toDTO(updated);
+        }
+
+        Command current = commandRepository.findById(commandId)
+                .orElseThrow(() -> new Exception("El Comando no existe"));
+        if (current.getStatus() == target) {
+            return commandMapper.toDTO(current);
+        }
+        throw new ApiException(new ApiResponse(
+                "El Comando está en estado " + current.getStatus() + " y no puede pasar a " + target,
+                HttpStatus.CONFLICT.value()
+        ));
     }
 
     /**
@@ -230,6 +451,8 @@ public class CommandServiceImpl implements CommandService {
      * <p>
      * This method updates fields in the command only if the corresponding fields in the
      * update DTO are non-null. The existing values are retained for fields that are null in the update DTO.
+     * Only the type, response and crop are written, so the status set by an execution or failure that happens
+     * meanwhile is never overwritten.
      * </p>
      *
      * @param id            the ID of the command to update
@@ -242,19 +465,55 @@ public class CommandServiceImpl implements CommandService {
     @CachePut(value = "commands", key = "'id_'+#id")
     public CommandDTO updateCommand(String id, CommandDTO updateCommand) throws Exception {
         CommandDTO existingCommand = getCommandById(id);
-        return Optional.of(updateCommand)
-                .map(dto -> {
-                    existingCommand.setId(dto.getCommandType() != null ? dto.getCommandType() : existingCommand.getCommandType());
-                    existingCommand.setResponse(dto.getResponse() != null ? dto.getResponse() : existingCommand.getResponse());
-                    existingCommand.setCrop(dto.getCrop() != null ? dto.getCrop() : existingCommand.getCrop());
-                    return existingCommand;
+        ObjectId previousCrop = commandMapper.stringToObjectId(existingCommand.getCrop());
+        return Optional.ofNullable(commandRepository.updateDetails(new ObjectId(existingCommand.getId()),
+                        updateCommand.getCommandType(), updateCommand.getResponse(),
+                        commandMapper.stringToObjectId(updateCommand.getCrop())))
+                .map(saved -> {
+                    if (!Objects.equals(saved.getCrop(), previousCrop)) {
+                        commandStatusCounters.recount(Arrays.asList(saved.getCrop(), previousCrop));
+                    }
+                    return saved;
                 })
-                .map(commandMapper::toEntity)
-                .map(commandRepository::save)
                 .map(commandMapper::toDTO)
                 .orElseThrow(() -> new Exception("El Comando no se pudo actualizar"));
     }
 
+    /**
+     * Retrieves the number of commands of each crop by status.
+     *
+     * <p>
+     * The counts come from counters maintained as commands are created, executed, failed and deleted,
+     * so reading the badges of many crops does not run a count query per crop.
+     * </p>
+     *
+     * @param crops the IDs of the crops
+     * @return for each crop ID, the number of its commands in each status
+     * @throws Exception if an ID is not valid or too many crops are requested
+     */
+    @Override
+    public Map<String, Map<CommandStatus, Long>> getStatusCounts(List<String> crops) throws Exception {
+        if (crops.size() > maxCounterCrops) {
+            throw new ApiException(new ApiResponse(
+                    "No se pueden consultar más de " + maxCounterCrops + " cultivos a la vez",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        List<ObjectId> ids = new ArrayList<>(crops.size());
+        for (String crop : crops) {
+            if (!ObjectId.isValid(crop)) {
+                throw new ApiException(new ApiResponse(
+                        "El id '" + crop + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                        HttpStatus.BAD_REQUEST.value()
+                ));
+            }
+            ids.add(new ObjectId(crop));
+        }
+        Map<String, Map<CommandStatus, Long>> counts = new LinkedHashMap<>();
+        commandStatusCounters.get(ids).forEach((crop, byStatus) -> counts.put(crop.toHexString(), byStatus));
+        return counts;
+    }
+
     /**
      * Deletes the specified command by its ID.
      *
@@ -273,6 +532,9 @@ public class CommandServiceImpl implements CommandService {
         return Optional.of(getCommandById(id))
                 .map(command -> {
                     commandRepository.deleteById(new ObjectId(command.getId()));
+                    if (command.getCrop() != null) {
+                        commandStatusCounters.removed(new ObjectId(command.getCrop()), command.getStatus());
+                    }
                     return "El Comando con ID '" + id + "' fue eliminado.";
                 })
                 .orElseThrow(() -> new Exception("El Comando no existe."));
@@ -0,0 +1,12 @@
+package app.smartpot.api.config;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Habilita la ejecución de los métodos anotados con {@link org.springframework.scheduling.annotation.Scheduled}.
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
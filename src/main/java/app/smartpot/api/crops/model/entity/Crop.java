@@ -8,6 +8,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -33,10 +34,12 @@ public class Crop implements Serializable {
     @Field("_id")
     private ObjectId id;
 
+    @Indexed(name = "status")
     @Field("status")
     private CropStatus cropStatus;
 
     @NotEmpty(message = "El tipo no puede estar vacío")
+    @Indexed(name = "type")
     @Field("type")
     private CropType cropType;
 
@@ -45,6 +48,7 @@ public class Crop implements Serializable {
      */
     //@DBRef
     @NotNull(message = "El cultivo debe pertenecer a un usuario")
+    @Indexed(name = "user")
     @Field("user")
     private ObjectId user;
 }
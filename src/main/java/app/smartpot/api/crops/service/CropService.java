@@ -2,6 +2,7 @@ package app.smartpot.api.crops.service;
 
 import app.smartpot.api.crops.model.dto.CropDTO;
 
+import java.util.Collection;
 import java.util.List;
 
 public interface CropService {
@@ -10,6 +11,8 @@ public interface CropService {
 
     CropDTO getCropById(String id) throws Exception;
 
+    List<CropDTO> getCropsByIds(Collection<String> ids) throws Exception;
+
     List<CropDTO> getCropsByUser(String id) throws Exception;
 
     long countCropsByUser(String id) throws Exception;
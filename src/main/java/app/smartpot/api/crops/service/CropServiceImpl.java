@@ -20,6 +20,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -175,6 +176,36 @@ public class CropServiceImpl implements CropService {
                 .orElseThrow(() -> new Exception("El cultivo no existe"));
     }
 
+    /**
+     * Obtiene en una sola consulta los cultivos cuyos identificadores se indican.
+     *
+     * <p>Cada ID se valida con el validador {@link CropValidator} antes de consultar. Los identificadores que no
+     * corresponden a ningún cultivo se omiten del resultado, por lo que el llamador puede detectarlos comparando
+     * ambas listas. El resultado no se guarda en caché porque cada combinación de IDs es distinta.</p>
+     *
+     * @param ids Los identificadores de los cultivos que se desean obtener.
+     * @return Una lista de objetos {@link CropDTO} con los cultivos encontrados.
+     * @throws ValidationException Si alguno de los IDs no es válido según las reglas del validador {@link CropValidator}.
+     * @see #getCropById(String)
+     */
+    @Override
+    public List<CropDTO> getCropsByIds(Collection<String> ids) throws Exception {
+        List<ObjectId> cropIds = ids.stream()
+                .map(ValidCropId -> {
+                    cropValidator.validateId(ValidCropId);
+                    if (!cropValidator.isValid()) {
+                        throw new ValidationException(cropValidator.getErrors().toString());
+                    }
+                    cropValidator.Reset();
+                    return new ObjectId(ValidCropId);
+                })
+                .distinct()
+                .toList();
+        return cropRepository.findAllById(cropIds).stream()
+                .map(cropMapper::toDTO)
+                .collect(Collectors.toList());
+    }
+
     /**
      * Obtiene los cultivos asociados a un usuario específico mediante su ID.
      *
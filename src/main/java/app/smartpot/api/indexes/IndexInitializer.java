@@ -0,0 +1,127 @@
+package app.smartpot.api.indexes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.SmartInitializingSingleton;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexDefinition;
+import org.springframework.data.mongodb.core.index.IndexResolver;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentEntity;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Crea al iniciar la aplicación los índices declarados en las entidades y verifica los planes de las consultas.
+ *
+ * <p>Los índices se declaran en cada entidad con {@link org.springframework.data.mongodb.core.index.Indexed}
+ * y {@link org.springframework.data.mongodb.core.index.CompoundIndex}, junto a las consultas del repositorio
+ * a las que dan servicio. La creación es idempotente: un índice que ya existe con la misma definición no
+ * se modifica.</p>
+ *
+ * <p>MongoDB no admite índices únicos ni dispersos en colecciones de series temporales; en ellas esos índices
+ * se crean como índices ordinarios sobre las mismas claves, de modo que las consultas siguen usándolos y la
+ * unicidad queda a cargo de la aplicación.</p>
+ *
+ * <p>Se ejecuta después de instanciar todos los beans (incluida la preparación de la colección de históricos)
+ * y antes de que el servidor web empiece a aceptar peticiones. Con {@code indexes.fail-fast=true} cualquier
+ * índice que no pueda crearse o cualquier consulta con plan {@code COLLSCAN} detiene el arranque, lo que
+ * se recomienda en producción.</p>
+ */
+@Slf4j
+@Component
+public class IndexInitializer implements SmartInitializingSingleton {
+
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+    private final QueryPlanVerifier queryPlanVerifier;
+
+    @Value("${indexes.verification.enabled}")
+    private boolean verificationEnabled;
+
+    @Value("${indexes.fail-fast}")
+    private boolean failFast;
+
+    @Autowired
+    public IndexInitializer(MongoTemplate mongoTemplate, MongoMappingContext mappingContext, QueryPlanVerifier queryPlanVerifier) {
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+        this.queryPlanVerifier = queryPlanVerifier;
+    }
+
+    @Override
+    public void afterSingletonsInstantiated() {
+        List<String> problems = new ArrayList<>(ensureIndexes());
+
+        if (verificationEnabled) {
+            queryPlanVerifier.findCollectionScans().forEach(name -> problems.add("COLLSCAN en " + name));
+        }
+
+        if (!problems.isEmpty() && failFast) {
+            throw new IllegalStateException("Verificación de índices fallida: " + problems);
+        }
+    }
+
+    /**
+     * Crea los índices declarados en todas las entidades anotadas con {@link Document}.
+     *
+     * @return Descripción de los índices que no pudieron crearse.
+     */
+    private List<String> ensureIndexes() {
+        List<String> failures = new ArrayList<>();
+        IndexResolver resolver = IndexResolver.create(mappingContext);
+        Set<String> timeSeries = timeSeriesCollections();
+        for (MongoPersistentEntity<?> entity : mappingContext.getPersistentEntities()) {
+            if (!entity.isAnnotationPresent(Document.class)) {
+                continue;
+            }
+            for (IndexDefinition resolved : resolver.resolveIndexFor(entity.getType())) {
+                IndexDefinition definition = timeSeries.contains(entity.getCollection()) ? withoutUniqueness(resolved) : resolved;
+                try {
+                    mongoTemplate.indexOps(entity.getType()).createIndex(definition);
+                } catch (Exception e) {
+                    log.error("No se pudo crear el índice {} en '{}': {}",
+                            definition.getIndexKeys().toJson(), entity.getCollection(), e.getMessage());
+                    failures.add(entity.getCollection() + " " + definition.getIndexKeys().toJson());
+                }
+            }
+        }
+        log.info("Índices declarados verificados en {} colecciones", mappingContext.getPersistentEntities().size());
+        return failures;
+    }
+
+    private Set<String> timeSeriesCollections() {
+        Set<String> names = new HashSet<>();
+        for (org.bson.Document info : mongoTemplate.getDb().listCollections()
+                .filter(new org.bson.Document("type", "timeseries"))) {
+            names.add(info.getString("name"));
+        }
+        return names;
+    }
+
+    private static IndexDefinition withoutUniqueness(IndexDefinition definition) {
+        org.bson.Document options = new org.bson.Document(definition.getIndexOptions());
+        boolean unique = options.remove("unique") != null;
+        boolean sparse = options.remove("sparse") != null;
+        if (!unique && !sparse) {
+            return definition;
+        }
+        return new IndexDefinition() {
+            @Override
+            public org.bson.Document getIndexKeys() {
+                return definition.getIndexKeys();
+            }
+
+            @Override
+            public org.bson.Document getIndexOptions() {
+                return options;
+            }
+        };
+    }
+}
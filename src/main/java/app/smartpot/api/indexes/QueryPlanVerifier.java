@@ -0,0 +1,93 @@
+package app.smartpot.api.indexes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Verifica, mediante {@code explain}, que las consultas de los repositorios se resuelvan con un índice.
+ *
+ * <p>Cada consulta de ejemplo generada por {@link QueryProbeFactory} se explica en modo {@code queryPlanner}
+ * y se reporta si el plan ganador contiene una etapa {@code COLLSCAN}. Las consultas listadas en
+ * {@code indexes.verification.ignore} (por ejemplo, búsquedas por expresión regular sin distinguir
+ * mayúsculas, que no pueden usar un índice) se omiten.</p>
+ */
+@Slf4j
+@Component
+public class QueryPlanVerifier {
+
+    private final MongoTemplate mongoTemplate;
+    private final QueryProbeFactory queryProbeFactory;
+
+    @Value("${indexes.verification.ignore}")
+    private String ignoredQueries;
+
+    @Autowired
+    public QueryPlanVerifier(MongoTemplate mongoTemplate, QueryProbeFactory queryProbeFactory) {
+        this.mongoTemplate = mongoTemplate;
+        this.queryProbeFactory = queryProbeFactory;
+    }
+
+    /**
+     * Explica todas las consultas de los repositorios y devuelve las que recorren la colección completa.
+     *
+     * @return Nombres de los métodos de repositorio cuyo plan es un {@code COLLSCAN}.
+     */
+    public List<String> findCollectionScans() {
+        Set<String> ignored = Set.copyOf(Arrays.asList(ignoredQueries.split(",")));
+        List<String> scans = new ArrayList<>();
+        for (QueryProbe probe : queryProbeFactory.createProbes()) {
+            if (ignored.contains(probe.name()) || probe.filter().isEmpty()) {
+                continue;
+            }
+            try {
+                Document find = new Document("find", probe.collection()).append("filter", probe.filter());
+                if (!probe.sort().isEmpty()) {
+                    find.append("sort", probe.sort());
+                }
+                Document explain = mongoTemplate.getDb().runCommand(
+                        new Document("explain", find).append("verbosity", "queryPlanner"));
+                if (containsCollectionScan(explain, false)) {
+                    log.warn("La consulta {} sobre '{}' recorre la colección completa (COLLSCAN): {}",
+                            probe.name(), probe.collection(), probe.filter().toJson());
+                    scans.add(probe.name());
+                }
+            } catch (Exception e) {
+                log.warn("No se pudo verificar el plan de {}: {}", probe.name(), e.getMessage());
+            }
+        }
+        return scans;
+    }
+
+    /**
+     * Busca recursivamente una etapa {@code COLLSCAN} dentro de los planes ganadores de un resultado de explain.
+     */
+    private static boolean containsCollectionScan(Object node, boolean inWinningPlan) {
+        if (node instanceof Document document) {
+            if (inWinningPlan && "COLLSCAN".equals(document.get("stage"))) {
+                return true;
+            }
+            for (Map.Entry<String, Object> entry : document.entrySet()) {
+                if (containsCollectionScan(entry.getValue(), inWinningPlan || "winningPlan".equals(entry.getKey()))) {
+                    return true;
+                }
+            }
+        } else if (node instanceof List<?> list) {
+            for (Object item : list) {
+                if (containsCollectionScan(item, inWinningPlan)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,14 @@
+package app.smartpot.api.indexes;
+
+import org.bson.Document;
+
+/**
+ * Consulta representativa de un método de repositorio, usada para verificar su plan de ejecución.
+ *
+ * @param name       Nombre del método, en la forma {@code Repositorio.metodo}.
+ * @param collection Colección sobre la que se ejecuta la consulta.
+ * @param filter     Filtro de la consulta con valores de ejemplo.
+ * @param sort       Orden de la consulta, vacío si no tiene.
+ */
+public record QueryProbe(String name, String collection, Document filter, Document sort) {
+}
@@ -0,0 +1,167 @@
+package app.smartpot.api.indexes;
+
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.ListableBeanFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.ResolvableType;
+import org.springframework.data.core.PropertyPath;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.mapping.MongoMappingContext;
+import org.springframework.data.mongodb.core.mapping.MongoPersistentProperty;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.data.repository.core.RepositoryInformation;
+import org.springframework.data.repository.query.parser.Part;
+import org.springframework.data.repository.query.parser.PartTree;
+import org.springframework.data.repository.support.Repositories;
+import org.springframework.stereotype.Component;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Construye una consulta de ejemplo por cada método de consulta declarado en los repositorios de MongoDB.
+ *
+ * <p>Para los métodos anotados con {@link Query} se toma el filtro JSON declarado y se sustituyen los
+ * parámetros {@code ?n} por valores de ejemplo del tipo adecuado; los parámetros de tipo colección o arreglo
+ * se sustituyen por un arreglo con un elemento de ejemplo. Para las consultas derivadas del nombre
+ * del método se construye el filtro equivalente a partir de sus condiciones (igualdad, rangos y listas).
+ * Los métodos cuyo filtro no puede construirse se omiten.</p>
+ */
+@Slf4j
+@Component
+public class QueryProbeFactory {
+
+    private static final Pattern PARAMETER = Pattern.compile("\\?(\\d+)");
+
+    private final ListableBeanFactory beanFactory;
+    private final MongoTemplate mongoTemplate;
+    private final MongoMappingContext mappingContext;
+
+    @Autowired
+    public QueryProbeFactory(ListableBeanFactory beanFactory, MongoTemplate mongoTemplate, MongoMappingContext mappingContext) {
+        this.beanFactory = beanFactory;
+        this.mongoTemplate = mongoTemplate;
+        this.mappingContext = mappingContext;
+    }
+
+    /**
+     * Obtiene las consultas de ejemplo de todos los repositorios registrados.
+     *
+     * @return Las consultas de ejemplo, una por método de consulta.
+     */
+    public List<QueryProbe> createProbes() {
+        List<QueryProbe> probes = new ArrayList<>();
+        Repositories repositories = new Repositories(beanFactory);
+        for (Class<?> domainType : repositories) {
+            RepositoryInformation information = repositories.getRepositoryInformationFor(domainType).orElse(null);
+            if (information == null) {
+                continue;
+            }
+            String collection = mongoTemplate.getCollectionName(domainType);
+            for (Method method : information.getQueryMethods()) {
+                String name = information.getRepositoryInterface().getSimpleName() + "." + method.getName();
+                try {
+                    QueryProbe probe = method.isAnnotationPresent(Query.class)
+                            ? fromAnnotation(name, collection, method)
+                            : fromMethodName(name, collection, method, domainType);
+                    if (probe != null) {
+                        probes.add(probe);
+                    }
+                } catch (Exception e) {
+                    log.debug("No se pudo construir la consulta de ejemplo de {}: {}", name, e.getMessage());
+                }
+            }
+        }
+        return probes;
+    }
+
+    private QueryProbe fromAnnotation(String name, String collection, Method method) {
+        Query query = method.getAnnotation(Query.class);
+        if (query.value().isBlank() || query.delete()) {
+            return null;
+        }
+        Matcher matcher = PARAMETER.matcher(query.value());
+        StringBuilder json = new StringBuilder();
+        while (matcher.find()) {
+            int index = Integer.parseInt(matcher.group(1));
+            matcher.appendReplacement(json, Matcher.quoteReplacement(sampleJson(ResolvableType.forMethodParameter(method, index))));
+        }
+        matcher.appendTail(json);
+
+        Document filter = Document.parse(json.toString());
+        Document sort = query.sort().isBlank() ? new Document() : Document.parse(query.sort());
+        return new QueryProbe(name, collection, filter, sort);
+    }
+
+    private QueryProbe fromMethodName(String name, String collection, Method method, Class<?> domainType) {
+        PartTree tree = new PartTree(method.getName(), domainType);
+        Document filter = new Document();
+        for (Part part : tree.getParts()) {
+            PropertyPath property = part.getProperty();
+            String field = mappingContext.getPersistentPropertyPath(property)
+                    .toDotPath(MongoPersistentProperty::getFieldName);
+            Object value = sampleValue(property.getLeafProperty().getType());
+            Object condition = switch (part.getType()) {
+                case SIMPLE_PROPERTY, TRUE, FALSE, IS_NULL -> value;
+                case BETWEEN -> new Document("$gt", value).append("$lt", value);
+                case GREATER_THAN, AFTER -> new Document("$gt", value);
+                case GREATER_THAN_EQUAL -> new Document("$gte", value);
+                case LESS_THAN, BEFORE -> new Document("$lt", value);
+                case LESS_THAN_EQUAL -> new Document("$lte", value);
+                case IN -> new Document("$in", List.of(value));
+                default -> null;
+            };
+            if (condition == null) {
+                return null;
+            }
+            filter.append(field, condition);
+        }
+        return new QueryProbe(name, collection, filter, new Document());
+    }
+
+    private static Object sampleValue(Class<?> type) {
+        if (ObjectId.class.equals(type)) {
+            return new ObjectId();
+        }
+        if (Date.class.isAssignableFrom(type)) {
+            return new Date();
+        }
+        if (Boolean.class.equals(type) || boolean.class.equals(type)) {
+            return true;
+        }
+        if (Number.class.isAssignableFrom(type) || type.isPrimitive()) {
+            return 0;
+        }
+        if (type.isEnum() && type.getEnumConstants().length > 0) {
+            return ((Enum<?>) type.getEnumConstants()[0]).name();
+        }
+        return "sample";
+    }
+
+    private static String sampleJson(ResolvableType type) {
+        if (type.isArray()) {
+            return "[ " + sampleJson(type.getComponentType()) + " ]";
+        }
+        if (Collection.class.isAssignableFrom(type.toClass())) {
+            return "[ " + sampleJson(type.asCollection().getGeneric(0)) + " ]";
+        }
+        Object value = sampleValue(type.toClass());
+        if (value instanceof ObjectId id) {
+            return "{ '$oid' : '" + id.toHexString() + "' }";
+        }
+        if (value instanceof Date date) {
+            return "{ '$date' : " + date.getTime() + " }";
+        }
+        if (value instanceof String text) {
+            return "'" + text + "'";
+        }
+        return String.valueOf(value);
+    }
+}
@@ -32,6 +32,8 @@ public class EmailServiceImpl implements EmailService {
     private final EmailMapper emailMapper;
     @Value("${spring.mail.username}")
     private String sender;
+    @Value("${mail.scheduled.enabled}")
+    private boolean scheduledEnabled;
 
     @Autowired
     public EmailServiceImpl(JavaMailSender javaMailSender, EmailRepository emailRepository, EmailMapper emailMapper) {
@@ -131,6 +133,9 @@ public class EmailServiceImpl implements EmailService {
 
     @Scheduled(fixedRate = 60000) // Runs every minute
     public void processScheduledEmails() {
+        if (!scheduledEnabled) {
+            return;
+        }
         Date now = new Date();
 
         List<EmailDetails> emailsToSend = emailRepository.findAll().stream()
@@ -10,6 +10,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.CompoundIndexes;
 import org.springframework.data.mongodb.core.mapping.DBRef;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
@@ -22,6 +24,10 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "notificaciones")
+@CompoundIndexes({
+        @CompoundIndex(name = "user_type", def = "{'user_id': 1, 'type': 1}"),
+        @CompoundIndex(name = "user_date", def = "{'user_id': 1, 'date': 1}")
+})
 public class Notification implements Serializable {
 
     /**
@@ -0,0 +1,121 @@
+package app.smartpot.api.records.admission;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Límite de concurrencia adaptativo con una cola de espera acotada.
+ * <p>
+ * El límite se ajusta con AIMD (incremento aditivo, decremento multiplicativo) según la latencia observada:
+ * cada petición que termina por debajo de la latencia objetivo amplía el límite en {@code 1/limit}, de modo que
+ * crece una unidad por cada ventana completa de peticiones, y cada petición lenta o fallida lo reduce un 10 %,
+ * como mucho una vez por intervalo de latencia objetivo para no encadenar reducciones por una misma ráfaga.
+ * Cuando el límite está lleno, las peticiones esperan en una cola de tamaño fijo durante un tiempo máximo;
+ * si la cola también está llena, se rechazan de inmediato.
+ * </p>
+ */
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double BACKOFF_RATIO = 0.9;
+
+    private final int minLimit;
+    private final int maxLimit;
+    private final int queueSize;
+    private final long targetLatencyNanos;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition released = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int waiting;
+    private long lastBackoff;
+
+    public AdaptiveConcurrencyLimiter(int initialLimit, int minLimit, int maxLimit, int queueSize, long targetLatencyMillis) {
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.queueSize = queueSize;
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos(targetLatencyMillis);
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    /**
+     * Intenta admitir una petición, esperando en la cola como mucho el tiempo indicado.
+     *
+     * @param maxWaitMillis Espera máxima en la cola.
+     * @return {@code true} si la petición fue admitida y debe liberarse con {@link #release(long, boolean)}.
+     * @throws InterruptedException Si el hilo se interrumpe mientras espera.
+     */
+    public boolean acquire(long maxWaitMillis) throws InterruptedException {
+        lock.lock();
+        try {
+            if (inFlight < (int) limit) {
+                inFlight++;
+                return true;
+            }
+            if (waiting >= queueSize) {
+                return false;
+            }
+            waiting++;
+            try {
+                long remaining = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+                while (inFlight >= (int) limit) {
+                    if (remaining <= 0) {
+                        return false;
+                    }
+                    remaining = released.awaitNanos(remaining);
+                }
+                inFlight++;
+                return true;
+            } finally {
+                waiting--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Libera una petición admitida y ajusta el límite con su resultado.
+     *
+     * @param latencyNanos Duración de la petición.
+     * @param success      {@code false} si la petición falló por un error del servidor.
+     */
+    public void release(long latencyNanos, boolean success) {
+        lock.lock();
+        try {
+            inFlight--;
+            long now = System.nanoTime();
+            if (!success || latencyNanos > targetLatencyNanos) {
+                if (now - lastBackoff > targetLatencyNanos) {
+                    limit = Math.max(minLimit, limit * BACKOFF_RATIO);
+                    lastBackoff = now;
+                }
+            } else if (inFlight + 1 >= limit / 2) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            released.signal();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return (int) limit;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
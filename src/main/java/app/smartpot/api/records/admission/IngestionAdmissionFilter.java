@@ -0,0 +1,188 @@
+package app.smartpot.api.records.admission;
+
+import app.smartpot.api.exception.ApiResponse;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Control de admisión para los endpoints de ingesta de históricos.
+ * <p>
+ * Las escrituras pasan por un {@link AdaptiveConcurrencyLimiter} cuyo límite se adapta a la latencia observada
+ * de la ingesta (dominada por MongoDB). Cuando el límite y su cola de espera están llenos, la petición se
+ * rechaza al instante con {@code 503} y una cabecera {@code Retry-After}, de modo que los dispositivos
+ * reintentan más tarde y los hilos quedan libres para las consultas. Las lecturas no se ven afectadas.
+ * </p>
+ */
+@Slf4j
+@Component
+public class IngestionAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Set<String> INGESTION_PATHS = Set.of(
+            "/Records/Create",
+            "/Records/Batch",
+            "/Records/Numeric",
+            "/Records/Numeric/Batch"
+    );
+
+    private final MeterRegistry meterRegistry;
+    private final JsonMapper jsonMapper;
+    private AdaptiveConcurrencyLimiter limiter;
+    private Counter rejected;
+
+    @Value("${records.admission.enabled}")
+    private boolean enabled;
+
+    @Value("${records.admission.initial-limit}")
+    private int initialLimit;
+
+    @Value("${records.admission.min-limit}")
+    private int minLimit;
+
+    @Value("${records.admission.max-limit}")
+    private int maxLimit;
+
+    @Value("${records.admission.queue-size}")
+    private int queueSize;
+
+    @Value("${records.admission.max-wait}")
+    private long maxWaitMillis;
+
+    @Value("${records.admission.target-latency}")
+    private long targetLatencyMillis;
+
+    @Value("${records.admission.retry-after}")
+    private int retryAfterSeconds;
+
+    @Autowired
+    public IngestionAdmissionFilter(MeterRegistry meterRegistry, JsonMapper jsonMapper) {
+        this.meterRegistry = meterRegistry;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        limiter = new AdaptiveConcurrencyLimiter(initialLimit, minLimit, maxLimit, queueSize, targetLatencyMillis);
+        rejected = Counter.builder("records.admission.rejected")
+                .description("Peticiones de ingesta rechazadas por sobrecarga")
+                .register(meterRegistry);
+        Gauge.builder("records.admission.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .description("Límite actual de ingestas concurrentes")
+                .register(meterRegistry);
+        Gauge.builder("records.admission.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .description("Ingestas en curso")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Fracción del límite de concurrencia ocupada por ingestas en curso.
+     * Permite a las tareas de mantenimiento ceder cuando la ingesta está cargada.
+     *
+     * @return Valor entre 0 y 1 (o mayor si hay peticiones por encima del límite), 0 si el control está desactivado.
+     */
+    public double getUtilization() {
+        if (!enabled) {
+            return 0;
+        }
+        return (double) limiter.getInFlight() / Math.max(1, limiter.getLimit());
+    }
+
+    @Override
+    protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+        if (!enabled || !"POST".equals(request.getMethod())) {
+            return true;
+        }
+        String uri = request.getRequestURI();
+        int index = uri.indexOf("/Records/");
+        return index < 0 || !INGESTION_PATHS.contains(uri.substring(index));
+    }
+
+    @Override
+    protected void doFilterInternal(
+            @NonNull HttpServletRequest request,
+            @NonNull HttpServletResponse response,
+            @NonNull FilterChain filterChain
+    ) throws ServletException, IOException {
+        boolean admitted;
+        try {
+            admitted = limiter.acquire(maxWaitMillis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            admitted = false;
+        }
+        if (!admitted) {
+            reject(response);
+            return;
+        }
+
+        long start = System.nanoTime();
+        AtomicBoolean done = new AtomicBoolean();
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                request.getAsyncContext().addListener(new AsyncListener() {
+                    @Override
+                    public void onComplete(AsyncEvent event) {
+                        release(done, start, response.getStatus() < 500);
+                    }
+
+                    @Override
+                    public void onTimeout(AsyncEvent event) {
+                        release(done, start, false);
+                    }
+
+                    @Override
+                    public void onError(AsyncEvent event) {
+                        release(done, start, false);
+                    }
+
+                    @Override
+                    public void onStartAsync(AsyncEvent event) {
+                    }
+                });
+            } else {
+                release(done, start, response.getStatus() < 500);
+            }
+        }
+    }
+
+    private void release(AtomicBoolean done, long start, boolean success) {
+        if (done.compareAndSet(false, true)) {
+            limiter.release(System.nanoTime() - start, success);
+        }
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        rejected.increment();
+        response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(retryAfterSeconds));
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        jsonMapper.writeValue(response.getOutputStream(), new ApiResponse(
+                "El servicio de ingesta está saturado; reintenta en " + retryAfterSeconds + " s",
+                HttpStatus.SERVICE_UNAVAILABLE.value()
+        ));
+    }
+}
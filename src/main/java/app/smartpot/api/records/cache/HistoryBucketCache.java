@@ -0,0 +1,370 @@
+package app.smartpot.api.records.cache;
+
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import app.smartpot.api.records.query.ParallelRangeReader;
+import app.smartpot.api.records.repository.RecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Caché de históricos por cultivo y bucket de tiempo alineado (por hora o por día).
+ * <p>
+ * Las lecturas de un bucket ya cerrado no cambian, así que un rango de fechas se resuelve con los buckets
+ * cerrados que contiene, buscados primero en una LRU local, luego en Redis y, si faltan, en MongoDB con una
+ * consulta por cada tramo contiguo de buckets ausentes; los buckets vacíos también se guardan. Solo la parte del
+ * rango posterior al último bucket cerrado se consulta siempre en vivo.
+ * </p>
+ * <p>
+ * Un bucket se considera cerrado cuando terminó hace más de {@code settle} segundos, margen para las lecturas
+ * que llegan con retraso. Las lecturas que aun así caen en un bucket cerrado, y las actualizaciones y
+ * eliminaciones de históricos (incluidas las de la retención), invalidan el bucket en la LRU y en Redis. Las entradas locales caducan tras
+ * {@code local-ttl} segundos para acotar el tiempo que otra instancia puede servir un bucket ya invalidado.
+ * </p>
+ */
+@Slf4j
+@Component
+public class HistoryBucketCache {
+
+    private static final String KEY_PREFIX = "records:bucket:";
+
+    private final RecordRepository recordRepository;
+    private final ParallelRangeReader rangeReader;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final MeterRegistry meterRegistry;
+    private LocalBuckets local;
+    private Counter localHits;
+    private Counter redisHits;
+    private Counter misses;
+
+    @Value("${records.bucket-cache.enabled}")
+    private boolean enabled;
+
+    @Value("${records.bucket-cache.resolution}")
+    private RollupResolution resolution;
+
+    @Value("${records.bucket-cache.settle}")
+    private long settleSeconds;
+
+    @Value("${records.bucket-cache.ttl}")
+    private long ttlHours;
+
+    @Value("${records.bucket-cache.local-max-readings}")
+    private long localMaxReadings;
+
+    @Value("${records.bucket-cache.local-ttl}")
+    private long localTtlSeconds;
+
+    @Value("${records.bucket-cache.max-buckets}")
+    private int maxBuckets;
+
+    @Autowired
+    public HistoryBucketCache(RecordRepository recordRepository, ParallelRangeReader rangeReader,
+                              RedisTemplate<String, Object> redisTemplate, MeterRegistry meterRegistry) {
+        this.recordRepository = recordRepository;
+        this.rangeReader = rangeReader;
+        this.redisTemplate = redisTemplate;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        local = new LocalBuckets(localMaxReadings, TimeUnit.SECONDS.toNanos(localTtlSeconds));
+        localHits = bucketCounter("local");
+        redisHits = bucketCounter("redis");
+        misses = bucketCounter("mongo");
+    }
+
+    private Counter bucketCounter(String source) {
+        return Counter.builder("records.bucket_cache.buckets")
+                .description("Buckets de históricos resueltos, por origen")
+                .tag("source", source)
+                .register(meterRegistry);
+    }
+
+    /**
+     * Obtiene los históricos de un cultivo en el rango {@code (startDate, endDate)}, ordenados por fecha.
+     * Los rangos con más buckets de los configurados se leen directamente, sin pasar por la caché.
+     *
+     * @param cropId    Identificador del cultivo.
+     * @param startDate Inicio del rango (exclusivo).
+     * @param endDate   Fin del rango (exclusivo).
+     * @return Los históricos del rango.
+     */
+    public List<History> read(ObjectId cropId, Date startDate, Date endDate) {
+        long from = startDate.getTime() + 1;
+        long until = endDate.getTime();
+        long step = resolution.duration().toMillis();
+        long first = resolution.truncate(new Date(from)).getTime();
+        long open = resolution.truncate(new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(settleSeconds))).getTime();
+        long closedEnd = Math.min(open, until);
+        int count = from < until && first < closedEnd ? (int) Math.min(Integer.MAX_VALUE, (closedEnd - first + step - 1) / step) : 0;
+        if (!enabled || count == 0 || count > maxBuckets) {
+            return rangeReader.read(cropId, startDate, endDate);
+        }
+
+        List<List<History>> buckets = load(cropId, first, count);
+        List<History> histories = new ArrayList<>();
+        for (List<History> bucket : buckets) {
+            for (History history : bucket) {
+                long date = history.getDate().getTime();
+                if (date >= from && date < until) {
+                    histories.add(history);
+                }
+            }
+        }
+        long liveFrom = first + count * step;
+        if (liveFrom < until) {
+            histories.addAll(recordRepository.findSliceByCrop(cropId, new Date(Math.max(liveFrom, from)), endDate));
+        }
+        return histories;
+    }
+
+    /**
+     * Invalida el bucket que contiene el histórico indicado.
+     *
+     * @param history Histórico creado, modificado o eliminado.
+     */
+    public void evict(History history) {
+        if (!enabled || history == null || history.getCrop() == null || history.getDate() == null) {
+            return;
+        }
+        String key = key(history.getCrop(), resolution.truncate(history.getDate()).getTime());
+        local.remove(key);
+        try {
+            redisTemplate.delete(key);
+        } catch (DataAccessException e) {
+            log.warn("No se pudo invalidar el bucket {} en Redis: {}", key, e.getMessage());
+        }
+    }
+
+    /**
+     * Invalida los buckets que contienen los históricos indicados, con un único borrado en Redis.
+     * Lo usa la retención al purgar cada lote, para que no se sigan sirviendo lecturas ya eliminadas.
+     *
+     * @param histories Históricos eliminados.
+     */
+    public void evictAll(Collection<History> histories) {
+        if (!enabled) {
+            return;
+        }
+        Set<String> keys = new HashSet<>();
+        for (History history : histories) {
+            if (history.getCrop() != null && history.getDate() != null) {
+                keys.add(key(history.getCrop(), resolution.truncate(history.getDate()).getTime()));
+            }
+        }
+        if (keys.isEmpty()) {
+            return;
+        }
+        keys.forEach(local::remove);
+        try {
+            redisTemplate.delete(keys);
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron invalidar {} buckets en Redis: {}", keys.size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Invalida los buckets ya cerrados que reciben lecturas atrasadas.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        long open = resolution.truncate(new Date(System.currentTimeMillis() - TimeUnit.SECONDS.toMillis(settleSeconds))).getTime();
+        for (History history : event.histories()) {
+            if (history.getDate() != null && history.getDate().getTime() < open) {
+                evict(history);
+            }
+        }
+    }
+
+    private List<List<History>> load(ObjectId cropId, long first, int count) {
+        long step = resolution.duration().toMillis();
+        List<String> keys = new ArrayList<>(count);
+        List<List<History>> buckets = new ArrayList<>(Collections.nCopies(count, null));
+        List<Integer> pending = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String key = key(cropId, first + i * step);
+            keys.add(key);
+            List<History> cached = local.get(key);
+            if (cached != null) {
+                buckets.set(i, cached);
+                localHits.increment();
+            } else {
+                pending.add(i);
+            }
+        }
+        if (pending.isEmpty()) {
+            return buckets;
+        }
+
+        List<Object> stored = fetchRedis(pending.stream().map(keys::get).toList());
+        List<Integer> missing = new ArrayList<>();
+        for (int j = 0; j < pending.size(); j++) {
+            int i = pending.get(j);
+            Object value = stored != null ? stored.get(j) : null;
+            if (value instanceof byte[] bytes) {
+                List<History> bucket = Collections.unmodifiableList(HistoryBucketCodec.decode(cropId, bytes));
+                local.put(keys.get(i), bucket);
+                buckets.set(i, bucket);
+                redisHits.increment();
+            } else {
+                missing.add(i);
+            }
+        }
+        if (missing.isEmpty()) {
+            return buckets;
+        }
+
+        Map<String, byte[]> loaded = new LinkedHashMap<>();
+        int start = 0;
+        while (start < missing.size()) {
+            int end = start;
+            while (end + 1 < missing.size() && missing.get(end + 1) == missing.get(end) + 1) {
+                end++;
+            }
+            int firstIndex = missing.get(start);
+            int lastIndex = missing.get(end);
+            List<History> run = recordRepository.findSliceByCrop(cropId,
+                    new Date(first + firstIndex * step), new Date(first + (lastIndex + 1) * step));
+            Iterator<History> iterator = run.iterator();
+            History next = iterator.hasNext() ? iterator.next() : null;
+            for (int i = firstIndex; i <= lastIndex; i++) {
+                long bucketEnd = first + (i + 1) * step;
+                List<History> bucket = new ArrayList<>();
+                while (next != null && next.getDate().getTime() < bucketEnd) {
+                    bucket.add(next);
+                    next = iterator.hasNext() ? iterator.next() : null;
+                }
+                bucket = Collections.unmodifiableList(bucket);
+                local.put(keys.get(i), bucket);
+                loaded.put(keys.get(i), HistoryBucketCodec.encode(bucket));
+                buckets.set(i, bucket);
+                misses.increment();
+            }
+            start = end + 1;
+        }
+        storeRedis(loaded);
+        return buckets;
+    }
+
+    private List<Object> fetchRedis(List<String> keys) {
+        try {
+            return redisTemplate.opsForValue().multiGet(keys);
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron leer {} buckets de Redis: {}", keys.size(), e.getMessage());
+            return null;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void storeRedis(Map<String, byte[]> buckets) {
+        Duration ttl = Duration.ofHours(ttlHours);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    buckets.forEach((key, value) -> {
+                        if (ttlHours > 0) {
+                            operations.opsForValue().set((K) key, (V) value, ttl);
+                        } else {
+                            operations.opsForValue().set((K) key, (V) value);
+                        }
+                    });
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron guardar {} buckets en Redis: {}", buckets.size(), e.getMessage());
+        }
+    }
+
+    private String key(ObjectId cropId, long bucket) {
+        return KEY_PREFIX + resolution.name() + ":" + cropId.toHexString() + ":" + bucket;
+    }
+
+    /**
+     * LRU local acotada por el número total de lecturas guardadas, no por el de buckets.
+     */
+    private static final class LocalBuckets {
+
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(256, 0.75f, true);
+        private final long maxReadings;
+        private final long ttlNanos;
+        private long readings;
+
+        private LocalBuckets(long maxReadings, long ttlNanos) {
+            this.maxReadings = maxReadings;
+            this.ttlNanos = ttlNanos;
+        }
+
+        private synchronized List<History> get(String key) {
+            Entry entry = entries.get(key);
+            if (entry == null) {
+                return null;
+            }
+            if (System.nanoTime() - entry.loadedAt() > ttlNanos) {
+                remove(key);
+                return null;
+            }
+            return entry.histories();
+        }
+
+        private synchronized void put(String key, List<History> histories) {
+            Entry previous = entries.put(key, new Entry(histories, System.nanoTime()));
+            if (previous != null) {
+                readings -= weight(previous.histories());
+            }
+            readings += weight(histories);
+            Iterator<Entry> eldest = entries.values().iterator();
+            while (readings > maxReadings && eldest.hasNext()) {
+                readings -= weight(eldest.next().histories());
+                eldest.remove();
+            }
+        }
+
+        private synchronized void remove(String key) {
+            Entry entry = entries.remove(key);
+            if (entry != null) {
+                readings -= weight(entry.histories());
+            }
+        }
+
+        private static long weight(List<History> histories) {
+            return Math.max(1, histories.size());
+        }
+
+        private record Entry(List<History> histories, long loadedAt) {
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package app.smartpot.api.records.cache;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Codifica los históricos de un bucket en binario para guardarlos en Redis.
+ * <pre>
+ * count    4 bytes  número de históricos
+ * por cada histórico:
+ *   id      12 bytes  ObjectId
+ *   date     8 bytes  milisegundos desde epoch
+ *   medidas 48 bytes  seis float64 en el orden de {@link Measure} (NaN = ausente)
+ *   keyLen   2 bytes  longitud UTF-8 de la clave de deduplicación (-1 = sin clave)
+ *   key      keyLen bytes
+ * </pre>
+ * El cultivo no se guarda: forma parte de la clave del bucket.
+ */
+final class HistoryBucketCodec {
+
+    private static final int FIXED_SIZE = 12 + Long.BYTES + Measure.VALUES.length * Double.BYTES + Short.BYTES;
+
+    private HistoryBucketCodec() {
+    }
+
+    static byte[] encode(List<History> histories) {
+        List<byte[]> keys = new ArrayList<>(histories.size());
+        int size = Integer.BYTES;
+        for (History history : histories) {
+            byte[] key = history.getDedupKey() != null ? history.getDedupKey().getBytes(StandardCharsets.UTF_8) : null;
+            keys.add(key);
+            size += FIXED_SIZE + (key != null ? key.length : 0);
+        }
+
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(histories.size());
+        for (int i = 0; i < histories.size(); i++) {
+            History history = histories.get(i);
+            history.getId().putToByteBuffer(buffer);
+            buffer.putLong(history.getDate().getTime());
+            for (Measure measure : Measure.VALUES) {
+                Double value = history.getMeasures() != null ? measure.valueOf(history.getMeasures()) : null;
+                buffer.putDouble(value != null ? value : Double.NaN);
+            }
+            byte[] key = keys.get(i);
+            buffer.putShort(key != null ? (short) key.length : -1);
+            if (key != null) {
+                buffer.put(key);
+            }
+        }
+        return buffer.array();
+    }
+
+    static List<History> decode(ObjectId cropId, byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        int count = buffer.getInt();
+        List<History> histories = new ArrayList<>(count);
+        byte[] id = new byte[12];
+        double[] values = new double[Measure.VALUES.length];
+        for (int i = 0; i < count; i++) {
+            buffer.get(id);
+            long date = buffer.getLong();
+            for (int m = 0; m < values.length; m++) {
+                values[m] = buffer.getDouble();
+            }
+            short keyLength = buffer.getShort();
+            String key = null;
+            if (keyLength >= 0) {
+                byte[] keyBytes = new byte[keyLength];
+                buffer.get(keyBytes);
+                key = new String(keyBytes, StandardCharsets.UTF_8);
+            }
+            histories.add(History.builder()
+                    .id(new ObjectId(id))
+                    .crop(cropId)
+                    .date(new Date(date))
+                    .measures(new Measures(value(values[0]), value(values[1]), value(values[2]),
+                            value(values[3]), value(values[4]), value(values[5])))
+                    .dedupKey(key)
+                    .build());
+        }
+        return histories;
+    }
+
+    private static Double value(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
@@ -0,0 +1,92 @@
+package app.smartpot.api.records.config;
+
+import app.smartpot.api.records.model.entity.History;
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.mongodb.core.CollectionOptions;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.timeseries.Granularity;
+import org.springframework.stereotype.Component;
+
+import java.util.Locale;
+
+/**
+ * Prepara la colección de históricos según el modo de almacenamiento configurado.
+ *
+ * <p>Con {@code records.storage.mode=document} (valor por defecto) la colección {@code registros} se mantiene
+ * como una colección ordinaria con un documento por lectura.</p>
+ *
+ * <p>Con {@code records.storage.mode=timeseries} la colección se crea como una colección de series temporales
+ * de MongoDB, usando {@code date} como campo de tiempo y {@code crop} como campo meta. MongoDB agrupa internamente
+ * las lecturas de cada cultivo en buckets comprimidos, de modo que las consultas existentes del repositorio
+ * siguen funcionando sin cambios mientras el índice y el almacenamiento se reducen y los rangos de fechas se leen
+ * de forma secuencial.</p>
+ *
+ * <p>Se ejecuta antes que {@link app.smartpot.api.indexes.IndexInitializer}, de modo que los índices declarados
+ * en {@link History} se crean sobre la colección ya preparada.</p>
+ *
+ * <p>Una colección existente no se puede convertir en sitio: si {@code registros} ya existe como colección
+ * ordinaria se registra una advertencia y se conserva tal cual; la migración debe hacerse copiando los datos
+ * a una colección de series temporales nueva.</p>
+ */
+@Slf4j
+@Component
+public class RecordStorageInitializer {
+
+    public static final String TIME_FIELD = "date";
+    public static final String META_FIELD = "crop";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Value("${records.storage.mode}")
+    private String mode;
+
+    @Value("${records.storage.granularity}")
+    private String granularity;
+
+    @Autowired
+    public RecordStorageInitializer(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * Indica si los históricos se almacenan en una colección de series temporales.
+     *
+     * @return {@code true} si el modo configurado es {@code timeseries}.
+     */
+    public boolean isTimeSeries() {
+        return "timeseries".equalsIgnoreCase(mode);
+    }
+
+    /**
+     * Crea la colección de series temporales al iniciar la aplicación cuando el modo lo requiere.
+     */
+    @PostConstruct
+    public void initialize() {
+        if (!isTimeSeries()) {
+            return;
+        }
+
+        String collection = mongoTemplate.getCollectionName(History.class);
+        Document info = mongoTemplate.getDb()
+                .listCollections()
+                .filter(new Document("name", collection))
+                .first();
+
+        if (info == null) {
+            mongoTemplate.createCollection(collection, CollectionOptions.empty().timeSeries(
+                    CollectionOptions.TimeSeriesOptions.timeSeries(TIME_FIELD)
+                            .metaField(META_FIELD)
+                            .granularity(Granularity.valueOf(granularity.toUpperCase(Locale.ROOT)))
+            ));
+            log.info("Colección '{}' creada como serie temporal (tiempo: {}, meta: {}, granularidad: {})",
+                    collection, TIME_FIELD, META_FIELD, granularity);
+        } else if (!"timeseries".equals(info.getString("type"))) {
+            log.warn("La colección '{}' ya existe como colección ordinaria y no puede convertirse en serie temporal. "
+                    + "Migre los datos a una colección de series temporales para usar este modo.", collection);
+        }
+    }
+}
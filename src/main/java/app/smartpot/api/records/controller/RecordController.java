@@ -1,27 +1,72 @@
 package app.smartpot.api.records.controller;
 
+import app.smartpot.api.exception.ApiException;
 import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.dto.CropStatsDTO;
+import app.smartpot.api.records.model.dto.CropTrendDTO;
+import app.smartpot.api.records.model.dto.HistoryPageDTO;
+import app.smartpot.api.records.model.dto.NumericRecordDTO;
+import app.smartpot.api.records.model.dto.RecordBatchResultDTO;
 import app.smartpot.api.records.model.dto.RecordDTO;
 import app.smartpot.api.records.model.entity.DateRange;
 import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.HistoryRollup;
+import app.smartpot.api.records.service.RecentReadingsService;
+import app.smartpot.api.records.service.RecordLiveService;
+import app.smartpot.api.records.service.RecordRollupService;
 import app.smartpot.api.records.service.RecordService;
+import app.smartpot.api.records.service.RecordStatsService;
+import app.smartpot.api.records.service.RecordTrendService;
+import app.smartpot.api.records.stream.BinaryRecordReader;
+import app.smartpot.api.records.stream.NdjsonWriter;
 import app.smartpot.api.responses.ErrorResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/Records")
 public class RecordController {
 
     private final RecordService recordService;
+    private final RecordRollupService recordRollupService;
+    private final RecentReadingsService recentReadingsService;
+    private final RecordLiveService recordLiveService;
+    private final RecordStatsService recordStatsService;
+    private final RecordTrendService recordTrendService;
+    private final NdjsonWriter ndjsonWriter;
+
+    @Value("${records.batch.max-size}")
+    private int maxBatchSize;
+
+    @Value("${records.pagination.default-size}")
+    private int defaultPageSize;
+
+    @Value("${records.pagination.max-size}")
+    private int maxPageSize;
 
     @Autowired
-    public RecordController(RecordService recordService) {
+    public RecordController(RecordService recordService, RecordRollupService recordRollupService,
+                            RecentReadingsService recentReadingsService, RecordLiveService recordLiveService,
+                            RecordStatsService recordStatsService, RecordTrendService recordTrendService,
+                            NdjsonWriter ndjsonWriter) {
         this.recordService = recordService;
+        this.recordRollupService = recordRollupService;
+        this.recentReadingsService = recentReadingsService;
+        this.recordLiveService = recordLiveService;
+        this.recordStatsService = recordStatsService;
+        this.recordTrendService = recordTrendService;
+        this.ndjsonWriter = ndjsonWriter;
     }
 
     /**
@@ -34,16 +79,157 @@ public class RecordController {
         return recordService.getAllHistories();
     }
 
+    /**
+     * Transmite todos los históricos como NDJSON a medida que se leen de la base de datos.
+     * Se selecciona con la cabecera {@code Accept: application/x-ndjson}.
+     *
+     * @return Flujo NDJSON con un histórico por línea
+     */
+    @GetMapping(value = "/All", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamAllHistories() {
+        return ndjson(ndjsonWriter.of(recordService.streamAllHistories()));
+    }
+
     /**
      * Crea un nuevo histórico
      *
-     * @param newHistory El objeto histórico que contiene los datos del histórico que se debe guardar
+     * @param newHistory     El objeto histórico que contiene los datos del histórico que se debe guardar
+     * @param idempotencyKey Cabecera opcional {@code Idempotency-Key}; un reintento con la misma clave devuelve el histórico original
      * @return El objeto histórico creado
      */
     @PostMapping("/Create")
     @ResponseStatus(HttpStatus.CREATED)
-    public History createHistory(@RequestBody RecordDTO newHistory) throws Exception {
-        return recordService.Createhistory(newHistory);
+    public CompletableFuture<History> createHistory(@RequestBody RecordDTO newHistory,
+                                                    @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
+        return recordService.Createhistory(newHistory, idempotencyKey);
+    }
+
+    /**
+     * Crea un lote de históricos en una sola petición.
+     * Cada registro se valida de forma independiente; los inválidos se reportan sin afectar al resto.
+     *
+     * @param records Lista de históricos a crear
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada
+     */
+    @PostMapping("/Batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public RecordBatchResultDTO createHistories(@RequestBody List<RecordDTO> records) {
+        validateBatchSize(records);
+        return recordService.createHistories(records);
+    }
+
+    /**
+     * Crea un nuevo histórico con medidas numéricas, evitando la conversión desde texto.
+     *
+     * @param newHistory     Datos del histórico; la fecha se expresa en milisegundos desde epoch
+     * @param idempotencyKey Cabecera opcional {@code Idempotency-Key}; un reintento con la misma clave devuelve el histórico original
+     * @return El objeto histórico creado
+     */
+    @PostMapping("/Numeric")
+    @ResponseStatus(HttpStatus.CREATED)
+    public CompletableFuture<History> createNumericHistory(@RequestBody NumericRecordDTO newHistory,
+                                                           @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey) throws Exception {
+        return recordService.createNumericHistory(newHistory, idempotencyKey);
+    }
+
+    /**
+     * Crea un lote de históricos con medidas numéricas en una sola petición.
+     *
+     * @param records Lista de históricos a crear
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada
+     */
+    @PostMapping("/Numeric/Batch")
+    @ResponseStatus(HttpStatus.CREATED)
+    public RecordBatchResultDTO createNumericHistories(@RequestBody List<NumericRecordDTO> records) {
+        validateBatchSize(records);
+        return recordService.createNumericHistories(records);
+    }
+
+    /**
+     * Crea un lote de históricos enviado en el formato binario compacto de las macetas.
+     * Los registros se decodifican directamente del cuerpo de la petición; el formato se describe en {@link BinaryRecordReader}.
+     *
+     * @param body Cuerpo binario con uno o más registros
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada
+     */
+    @PostMapping(value = "/Batch", consumes = BinaryRecordReader.MEDIA_TYPE)
+    @ResponseStatus(HttpStatus.CREATED)
+    public RecordBatchResultDTO createBinaryHistories(InputStream body) throws IOException {
+        return recordService.ingestHistories(BinaryRecordReader.read(body, maxBatchSize));
+    }
+
+    /**
+     * Verifica que el lote no esté vacío ni supere el tamaño máximo configurado.
+     *
+     * @param records Registros del lote
+     */
+    private void validateBatchSize(List<?> records) {
+        if (records == null || records.isEmpty()) {
+            throw new ApiException(new ApiResponse("El lote no contiene registros", HttpStatus.BAD_REQUEST.value()));
+        }
+        if (records.size() > maxBatchSize) {
+            throw new ApiException(new ApiResponse(
+                    "El lote supera el máximo de " + maxBatchSize + " registros",
+                    HttpStatus.CONTENT_TOO_LARGE.value()
+            ));
+        }
+    }
+
+    /**
+     * Obtiene la lectura más reciente de un cultivo desde memoria.
+     *
+     * @param id Identificador ObjectId del cultivo
+     * @return La lectura más reciente
+     */
+    @GetMapping("/crop/latest/{id}")
+    public History getLatestByCrop(@PathVariable String id) throws Exception {
+        return recentReadingsService.getLatest(id);
+    }
+
+    /**
+     * Obtiene las últimas lecturas de un cultivo desde memoria, de la más nueva a la más antigua.
+     *
+     * @param id    Identificador ObjectId del cultivo
+     * @param limit Número de lecturas a devolver
+     * @return Las últimas lecturas
+     */
+    @GetMapping("/crop/recent/{id}")
+    public List<History> getRecentByCrop(@PathVariable String id, @RequestParam(defaultValue = "10") int limit) throws Exception {
+        return recentReadingsService.getRecent(id, limit);
+    }
+
+    /**
+     * Obtiene desde memoria la tendencia actual de las medidas de un cultivo: media móvil exponencial,
+     * mínimo y máximo de la ventana deslizante y tasa de cambio por hora.
+     *
+     * @param id Identificador ObjectId del cultivo
+     * @return Tendencia por medida
+     */
+    @GetMapping("/crop/{id}/trend")
+    public CropTrendDTO getTrendByCrop(@PathVariable String id) throws Exception {
+        return recordTrendService.getTrend(id);
+    }
+
+    /**
+     * Abre un flujo de eventos con cada nueva lectura de un cultivo en cuanto se persiste.
+     *
+     * @param id Identificador ObjectId del cultivo
+     * @return Conexión SSE; cada evento {@code reading} contiene un histórico en JSON
+     */
+    @GetMapping(value = "/crop/live/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveByCrop(@PathVariable String id) throws Exception {
+        return recordLiveService.subscribeToCrop(id);
+    }
+
+    /**
+     * Abre un flujo de eventos con cada nueva lectura de los cultivos de un usuario.
+     *
+     * @param id Identificador ObjectId del usuario
+     * @return Conexión SSE; cada evento {@code reading} contiene un histórico en JSON
+     */
+    @GetMapping(value = "/user/live/{id}", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLiveByUser(@PathVariable String id) throws Exception {
+        return recordLiveService.subscribeToUser(id);
     }
 
     /**
@@ -57,6 +243,40 @@ public class RecordController {
         return recordService.getByCrop(id);
     }
 
+    /**
+     * Transmite como NDJSON los históricos de un cultivo, ordenados por fecha.
+     * Se selecciona con la cabecera {@code Accept: application/x-ndjson}.
+     *
+     * @param id Identificador ObjectId del cultivo
+     * @return Flujo NDJSON con un histórico por línea
+     */
+    @GetMapping(value = "/crop/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCrop(@PathVariable String id) throws Exception {
+        return ndjson(ndjsonWriter.of(recordService.streamByCrop(id)));
+    }
+
+    /**
+     * Obtiene una página de históricos de un cultivo ordenados por fecha.
+     *
+     * @param id    Identificador ObjectId del cultivo
+     * @param token Token de continuación devuelto por la página anterior (opcional)
+     * @param size  Tamaño de la página (opcional)
+     * @return La página de históricos y el token de la siguiente, si existe
+     */
+    @GetMapping("/crop/page/{id}")
+    public HistoryPageDTO getPageByCrop(@PathVariable String id,
+                                        @RequestParam(required = false) String token,
+                                        @RequestParam(required = false) Integer size) throws Exception {
+        int pageSize = size == null ? defaultPageSize : size;
+        if (pageSize < 1 || pageSize > maxPageSize) {
+            throw new ApiException(new ApiResponse(
+                    "El tamaño de página debe estar entre 1 y " + maxPageSize,
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        return recordService.getPageByCrop(id, token, pageSize);
+    }
+
     /**
      * Busca un histórico filtrando por un cultivo y por un rango de fechas.
      *
@@ -69,6 +289,56 @@ public class RecordController {
         return recordService.getHistoriesByCropAndDateBetween(id, ranges);
     }
 
+    /**
+     * Transmite como NDJSON los históricos de un cultivo dentro de un rango de fechas, ordenados por fecha.
+     * Se selecciona con la cabecera {@code Accept: application/x-ndjson}.
+     *
+     * @param id     Identificador ObjectId del cultivo
+     * @param ranges Rango de fechas
+     * @return Flujo NDJSON con un histórico por línea
+     */
+    @PostMapping(value = "/crop/between/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByCropAndDateRange(@PathVariable String id, @RequestBody DateRange ranges) {
+        return ndjson(ndjsonWriter.of(recordService.streamHistoriesByCropAndDateBetween(id, ranges)));
+    }
+
+    /**
+     * Calcula en el servidor las estadísticas de las medidas de un cultivo en un rango de fechas:
+     * mínimo, máximo, media, desviación estándar y percentiles aproximados.
+     *
+     * @param id     Identificador ObjectId del cultivo
+     * @param ranges Rango de fechas
+     * @return Resumen estadístico por medida
+     */
+    @PostMapping("/crop/{id}/stats")
+    public CropStatsDTO getStatsByCropAndDateRange(@PathVariable String id, @RequestBody DateRange ranges) throws Exception {
+        return recordStatsService.getStats(id, ranges);
+    }
+
+    /**
+     * Obtiene los resúmenes (mínimo, máximo, promedio y conteo) de las medidas de un cultivo en un rango de fechas.
+     * La resolución (horaria o diaria) se elige según la amplitud del rango.
+     *
+     * @param id     Identificador ObjectId del cultivo
+     * @param ranges Rango de fechas
+     * @return Los resúmenes encontrados, ordenados por fecha
+     */
+    @PostMapping("/crop/rollups/{id}")
+    public List<HistoryRollup> getRollupsByCropAndDateRange(@PathVariable String id, @RequestBody DateRange ranges) {
+        return recordRollupService.getRollups(id, ranges);
+    }
+
+    /**
+     * Recalcula los resúmenes de todos los cultivos en un rango de fechas a partir de los históricos.
+     *
+     * @param ranges Rango de fechas a reconstruir
+     */
+    @PostMapping("/rollups/rebuild")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void rebuildRollups(@RequestBody DateRange ranges) {
+        recordRollupService.rebuild(ranges);
+    }
+
     /**
      * Busca un histórico filtrando por un cultivo.
      *
@@ -84,6 +354,47 @@ public class RecordController {
         }
     }
 
+    /**
+     * Busca los históricos de los cultivos de un usuario dentro de un rango de fechas.
+     *
+     * @param id     Identificador ObjectId del usuario
+     * @param ranges Rango de fechas
+     * @return Los históricos encontrados
+     */
+    @PostMapping("/user/between/{id}")
+    public ResponseEntity<?> getByUserAndDateRange(@PathVariable String id, @RequestBody DateRange ranges) {
+        try {
+            return new ResponseEntity<>(recordService.getByUser(id, ranges), HttpStatus.OK);
+        } catch (ApiException e) {
+            throw e;
+        } catch (Exception e) {
+            return new ResponseEntity<>(new ErrorResponse(e.getMessage(), HttpStatus.NOT_FOUND.value()), HttpStatus.NOT_FOUND);
+        }
+    }
+
+    /**
+     * Recorre en streaming los históricos de los cultivos de un usuario.
+     *
+     * @param id Identificador ObjectId del usuario
+     * @return Flujo NDJSON con un registro por línea
+     */
+    @GetMapping(value = "/user/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByUser(@PathVariable String id) throws Exception {
+        return ndjson(ndjsonWriter.of(recordService.streamByUser(id, null)));
+    }
+
+    /**
+     * Recorre en streaming los históricos de los cultivos de un usuario dentro de un rango de fechas.
+     *
+     * @param id     Identificador ObjectId del usuario
+     * @param ranges Rango de fechas
+     * @return Flujo NDJSON con un registro por línea
+     */
+    @PostMapping(value = "/user/between/{id}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> streamByUserAndDateRange(@PathVariable String id, @RequestBody DateRange ranges) throws Exception {
+        return ndjson(ndjsonWriter.of(recordService.streamByUser(id, ranges)));
+    }
+
     /**
      * Busca un histórico por su identificador único.
      *
@@ -118,4 +429,8 @@ public class RecordController {
     public ResponseEntity<ApiResponse> deleteHistory(@PathVariable String id) {
         return recordService.deleteHistory(recordService.getHistoryById(id));
     }
-}
\ No newline at end of file
+
+    private static ResponseEntity<StreamingResponseBody> ndjson(StreamingResponseBody body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+}
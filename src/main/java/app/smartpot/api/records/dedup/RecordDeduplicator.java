@@ -0,0 +1,161 @@
+package app.smartpot.api.records.dedup;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.repository.RecordRepository;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Detecta lecturas repetidas por reintentos de los gateways.
+ * <p>
+ * Cada lectura puede llevar una clave de idempotencia o un par (dispositivo, secuencia), que se guarda en el
+ * campo {@code dedupKey} del histórico con un índice único. Un {@link RotatingBloomFilter} recuerda las claves
+ * recientes: si la clave no está en el filtro la lectura es nueva y no se consulta MongoDB; si puede estar, se
+ * busca el histórico existente. Las claves que el filtro ya olvidó las detiene el índice único (que no existe
+ * en las colecciones de series temporales, donde solo queda la consulta).
+ * </p>
+ * <p>
+ * Con el WAL o la escritura diferida una lectura aceptada tarda en llegar a MongoDB, y un reintento que llegue
+ * antes no la encontraría. Por eso cada lectura con clave se reserva en memoria desde que se acepta hasta que
+ * se persiste (o se descarta): el reintento recibe la lectura reservada, con su identificador, en vez de uno
+ * nuevo que nunca se guardaría.
+ * </p>
+ */
+@Component
+public class RecordDeduplicator {
+
+    /**
+     * Longitud máxima de una clave en bytes UTF-8; también fija el hueco reservado en las entradas del WAL.
+     */
+    public static final int MAX_KEY_BYTES = 200;
+
+    private final RecordRepository recordRepository;
+    private final Map<String, History> inFlight = new ConcurrentHashMap<>();
+    private RotatingBloomFilter filter;
+
+    @Value("${records.dedup.enabled}")
+    private boolean enabled;
+
+    @Value("${records.dedup.capacity}")
+    private long capacity;
+
+    @Value("${records.dedup.false-positive-rate}")
+    private double falsePositiveRate;
+
+    @Autowired
+    public RecordDeduplicator(RecordRepository recordRepository) {
+        this.recordRepository = recordRepository;
+    }
+
+    @PostConstruct
+    public void init() {
+        filter = new RotatingBloomFilter(capacity, falsePositiveRate);
+    }
+
+    /**
+     * Construye la clave de deduplicación de una lectura.
+     * La clave de idempotencia tiene prioridad sobre el par (dispositivo, secuencia).
+     *
+     * @param idempotencyKey Clave de idempotencia enviada por el cliente, o {@code null}.
+     * @param device         Identificador del dispositivo, o {@code null}.
+     * @param sequence       Número de secuencia de la lectura en el dispositivo, o {@code null}.
+     * @return La clave, o {@code null} si la lectura no se deduplica.
+     * @throws ApiException Si la clave es demasiado larga.
+     */
+    public String keyOf(String idempotencyKey, String device, Long sequence) {
+        if (!enabled) {
+            return null;
+        }
+        String key = null;
+        if (idempotencyKey != null && !idempotencyKey.isBlank()) {
+            key = "k:" + idempotencyKey.trim();
+        } else if (device != null && !device.isBlank() && sequence != null) {
+            key = "d:" + device.trim() + ":" + sequence;
+        }
+        if (key != null && key.getBytes(StandardCharsets.UTF_8).length > MAX_KEY_BYTES) {
+            throw new ApiException(new ApiResponse(
+                    "La clave de idempotencia no puede superar los " + MAX_KEY_BYTES + " bytes",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        return key;
+    }
+
+    /**
+     * Busca el histórico ya persistido con la clave, consultando MongoDB solo si el filtro indica que pudo verse.
+     *
+     * @param key Clave de deduplicación, o {@code null}.
+     * @return El histórico existente, si lo hay.
+     */
+    public Optional<History> findExisting(String key) {
+        if (key == null || !filter.mightContain(key)) {
+            return Optional.empty();
+        }
+        return recordRepository.findByDedupKey(key);
+    }
+
+    /**
+     * Busca el histórico con la clave sin consultar el filtro, tras un conflicto con el índice único.
+     *
+     * @param key Clave de deduplicación.
+     * @return El histórico existente, si lo hay.
+     */
+    public Optional<History> findPersisted(String key) {
+        filter.put(key);
+        return recordRepository.findByDedupKey(key);
+    }
+
+    /**
+     * Registra la clave de una lectura aceptada.
+     *
+     * @param key Clave de deduplicación, o {@code null}.
+     */
+    public void remember(String key) {
+        if (key != null) {
+            filter.put(key);
+        }
+    }
+
+    /**
+     * Reserva la clave del histórico mientras no esté persistido.
+     *
+     * @param history Histórico aceptado, con su identificador y su clave ya asignados.
+     * @return {@code null} si la reserva se hizo, o el histórico aceptado antes con la misma clave y aún no liberado.
+     */
+    public History claim(History history) {
+        return inFlight.putIfAbsent(history.getDedupKey(), history);
+    }
+
+    /**
+     * Libera la reserva del histórico, una vez persistido o descartado.
+     *
+     * @param history Histórico reservado con {@link #claim(History)}.
+     */
+    public void release(History history) {
+        if (history.getDedupKey() != null) {
+            inFlight.remove(history.getDedupKey(), history);
+        }
+    }
+
+    /**
+     * Libera las reservas de los históricos que ya están en MongoDB.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        event.histories().forEach(this::release);
+    }
+}
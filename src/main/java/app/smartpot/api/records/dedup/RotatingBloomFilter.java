@@ -0,0 +1,115 @@
+package app.smartpot.api.records.dedup;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Filtro de Bloom acotado de dos generaciones para recordar las claves vistas recientemente.
+ * <p>
+ * Cada generación admite {@code capacity} claves con la tasa de falsos positivos indicada. Cuando la actual
+ * se llena, pasa a ser la anterior y se empieza una nueva vacía, por lo que el filtro recuerda siempre al
+ * menos las últimas {@code capacity} claves y su memoria no crece. Un resultado negativo garantiza que la clave
+ * no se vio dentro de esa ventana; uno positivo solo indica que pudo haberse visto.
+ * </p>
+ */
+public class RotatingBloomFilter {
+
+    private final long capacity;
+    private final int bits;
+    private final int hashes;
+
+    private volatile Generation current;
+    private volatile Generation previous;
+
+    public RotatingBloomFilter(long capacity, double falsePositiveRate) {
+        this.capacity = capacity;
+        double optimalBits = -capacity * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2));
+        this.bits = (int) Math.min(Integer.MAX_VALUE - 63, Math.max(64, Math.ceil(optimalBits)));
+        this.hashes = (int) Math.max(1, Math.round(optimalBits / capacity * Math.log(2)));
+        this.current = new Generation(bits);
+        this.previous = new Generation(bits);
+    }
+
+    /**
+     * Comprueba si la clave pudo haberse visto.
+     *
+     * @param key Clave a comprobar.
+     * @return {@code false} si la clave seguro que no se vio recientemente.
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        return current.contains(hash, hashes, bits) || previous.contains(hash, hashes, bits);
+    }
+
+    /**
+     * Registra una clave, rotando de generación si la actual está llena.
+     *
+     * @param key Clave a registrar.
+     */
+    public void put(String key) {
+        long hash = hash(key);
+        Generation generation = current;
+        generation.put(hash, hashes, bits);
+        if (generation.count.incrementAndGet() >= capacity) {
+            rotate(generation);
+        }
+    }
+
+    private synchronized void rotate(Generation full) {
+        if (current == full) {
+            previous = full;
+            current = new Generation(bits);
+        }
+    }
+
+    /**
+     * Hash FNV-1a de 64 bits de los bytes UTF-8 de la clave, con una mezcla final para repartir mejor los bits.
+     */
+    private static long hash(String key) {
+        long hash = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            hash ^= b;
+            hash *= 0x100000001b3L;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    }
+
+    private static final class Generation {
+        private final AtomicLongArray words;
+        private final AtomicLong count = new AtomicLong();
+
+        private Generation(int bits) {
+            this.words = new AtomicLongArray((bits + 63) / 64);
+        }
+
+        private void put(long hash, int hashes, int bits) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                long mask = 1L << bit;
+                int word = bit >>> 6;
+                long value;
+                do {
+                    value = words.get(word);
+                } while ((value & mask) == 0 && !words.compareAndSet(word, value, value | mask));
+            }
+        }
+
+        private boolean contains(long hash, int hashes, int bits) {
+            int h1 = (int) hash;
+            int h2 = (int) (hash >>> 32);
+            for (int i = 0; i < hashes; i++) {
+                int bit = Math.floorMod(h1 + i * h2, bits);
+                if ((words.get(bit >>> 6) & (1L << bit)) == 0) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
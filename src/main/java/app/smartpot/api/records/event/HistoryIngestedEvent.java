@@ -0,0 +1,17 @@
+package app.smartpot.api.records.event;
+
+import app.smartpot.api.records.model.entity.History;
+
+import java.util.List;
+
+/**
+ * Evento publicado cada vez que uno o más históricos quedan persistidos.
+ * <p>
+ * Permite que los componentes derivados (resúmenes, cachés, suscriptores) se actualicen a partir
+ * de la ingesta sin acoplarse a {@link app.smartpot.api.records.service.RecordService}.
+ * </p>
+ *
+ * @param histories Históricos persistidos, con su identificador y fecha asignados.
+ */
+public record HistoryIngestedEvent(List<History> histories) {
+}
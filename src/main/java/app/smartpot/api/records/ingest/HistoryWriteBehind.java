@@ -0,0 +1,299 @@
+package app.smartpot.api.records.ingest;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.repository.RecordRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cola de escritura diferida (write-behind) para los históricos creados de uno en uno.
+ * <p>
+ * Con el modo activo, las lecturas aceptadas se encolan en memoria y un hilo escritor las persiste en grupos
+ * con una única inserción masiva, cuando el grupo alcanza {@code max-batch} lecturas o cuando la más antigua
+ * lleva {@code max-delay} milisegundos en cola. Así una ráfaga de peticiones cuesta unas pocas escrituras
+ * y los hilos de Tomcat no esperan a MongoDB. Si la inserción falla por un error transitorio (un tiempo de espera
+ * o un cambio de primario) y las lecturas se confirmaron al encolar, el grupo se reintenta hasta
+ * {@code max-retries} veces con esperas crecientes; si aun así no se guarda, se registran los identificadores
+ * de las lecturas perdidas. Con confirmación al persistir el fallo se devuelve al cliente sin reintentar. Al detener la aplicación se deja de aceptar lecturas y se
+ * vacía la cola antes de cerrar.
+ * </p>
+ */
+@Slf4j
+@Component
+public class HistoryWriteBehind {
+
+    private static final long SHUTDOWN_TIMEOUT_SECONDS = 30;
+    private static final String DUPLICATE_KEY = "E11000";
+    private static final long MAX_RETRY_BACKOFF_MILLIS = 10_000;
+
+    private final RecordRepository recordRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeterRegistry meterRegistry;
+
+    @Getter
+    @Value("${records.write-behind.enabled}")
+    private boolean enabled;
+
+    @Value("${records.write-behind.durability}")
+    private String durabilityName;
+
+    @Value("${records.write-behind.capacity}")
+    private int capacity;
+
+    @Value("${records.write-behind.max-batch}")
+    private int maxBatch;
+
+    @Value("${records.write-behind.max-delay}")
+    private long maxDelayMillis;
+
+    @Value("${records.write-behind.max-retries}")
+    private int maxRetries;
+
+    @Value("${records.write-behind.retry-backoff}")
+    private long retryBackoffMillis;
+
+    @Getter
+    private WriteBehindDurability durability;
+    private BlockingQueue<Pending> queue;
+    private Thread writer;
+    private volatile boolean accepting;
+
+    private Timer flushLatency;
+    private Timer flushDuration;
+    private DistributionSummary flushSize;
+    private Counter failures;
+
+    @Autowired
+    public HistoryWriteBehind(RecordRepository recordRepository, ApplicationEventPublisher eventPublisher, MeterRegistry meterRegistry) {
+        this.recordRepository = recordRepository;
+        this.eventPublisher = eventPublisher;
+        this.meterRegistry = meterRegistry;
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!enabled) {
+            return;
+        }
+        durability = WriteBehindDurability.valueOf(durabilityName.trim().toUpperCase(Locale.ROOT));
+        queue = new ArrayBlockingQueue<>(capacity);
+
+        flushLatency = Timer.builder("records.write_behind.flush.latency")
+                .description("Tiempo desde que la lectura más antigua de un grupo se encola hasta que se persiste")
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+        flushDuration = Timer.builder("records.write_behind.flush.duration")
+                .description("Duración de cada inserción agrupada")
+                .register(meterRegistry);
+        flushSize = DistributionSummary.builder("records.write_behind.flush.size")
+                .description("Lecturas persistidas por inserción agrupada")
+                .register(meterRegistry);
+        failures = Counter.builder("records.write_behind.failures")
+                .description("Lecturas que no pudieron persistirse")
+                .register(meterRegistry);
+        Gauge.builder("records.write_behind.queue.size", queue, BlockingQueue::size)
+                .description("Lecturas pendientes de persistir")
+                .register(meterRegistry);
+
+        accepting = true;
+        writer = new Thread(this::run, "History-Write-Behind");
+        writer.start();
+        log.info("Escritura diferida de históricos activa (durabilidad {}, grupos de {} o cada {} ms)", durability, maxBatch, maxDelayMillis);
+    }
+
+    /**
+     * Encola un histórico para persistirlo en la siguiente escritura agrupada.
+     *
+     * @param history Histórico con su identificador y fecha ya asignados.
+     * @return Futuro que se completa según la durabilidad configurada: al encolar o al persistir.
+     * @throws ApiException Si la cola está llena o la aplicación se está deteniendo.
+     */
+    public CompletableFuture<History> submit(History history) {
+        Pending pending = new Pending(history, new CompletableFuture<>(), System.nanoTime());
+        if (!accepting || !queue.offer(pending)) {
+            throw new ApiException(new ApiResponse(
+                    "La cola de ingesta está llena; reintenta más tarde",
+                    HttpStatus.SERVICE_UNAVAILABLE.value()
+            ));
+        }
+        return durability == WriteBehindDurability.ENQUEUE ? CompletableFuture.completedFuture(history) : pending.ack();
+    }
+
+    /**
+     * Deja de aceptar lecturas y espera a que el escritor persista las que quedan en cola.
+     */
+    @PreDestroy
+    public void stop() {
+        if (writer == null) {
+            return;
+        }
+        accepting = false;
+        try {
+            writer.join(TimeUnit.SECONDS.toMillis(SHUTDOWN_TIMEOUT_SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (!queue.isEmpty()) {
+            log.error("Se detuvo la escritura diferida con {} lecturas sin persistir", queue.size());
+        }
+    }
+
+    private void run() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (accepting || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(maxDelayMillis, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = first.enqueuedAt() + TimeUnit.MILLISECONDS.toNanos(maxDelayMillis);
+                while (batch.size() < maxBatch && accepting) {
+                    long remaining = deadline - System.nanoTime();
+                    Pending next = remaining > 0 ? queue.poll(remaining, TimeUnit.NANOSECONDS) : null;
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                accepting = false;
+            }
+            queue.drainTo(batch, maxBatch - batch.size());
+            if (!batch.isEmpty()) {
+                flush(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        List<History> histories = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            histories.add(pending.history());
+        }
+
+        long start = System.nanoTime();
+        Map<Integer, String> rejected;
+        boolean retried = false;
+        for (int attempt = 0; ; attempt++) {
+            try {
+                rejected = recordRepository.insertUnordered(histories);
+                break;
+            } catch (Exception e) {
+                if (durability == WriteBehindDurability.FLUSH || attempt >= maxRetries || !backOff(attempt)) {
+                    log.error("Falló la escritura agrupada de {} históricos: {}", histories.size(), e.getMessage());
+                    if (durability == WriteBehindDurability.ENQUEUE) {
+                        log.error("Se perdieron {} lecturas ya confirmadas tras {} intentos: {}", histories.size(), attempt + 1, describe(histories));
+                    }
+                    failures.increment(histories.size());
+                    for (Pending pending : batch) {
+                        pending.ack().completeExceptionally(persistError());
+                    }
+                    return;
+                }
+                log.warn("Falló la escritura agrupada de {} históricos, reintento {} de {}: {}", histories.size(), attempt + 1, maxRetries, e.getMessage());
+                retried = true;
+            }
+        }
+        long end = System.nanoTime();
+        flushDuration.record(end - start, TimeUnit.NANOSECONDS);
+        flushLatency.record(end - batch.get(0).enqueuedAt(), TimeUnit.NANOSECONDS);
+        flushSize.record(histories.size() - rejected.size());
+
+        List<History> persisted = new ArrayList<>(histories.size());
+        for (int i = 0; i < batch.size(); i++) {
+            Pending pending = batch.get(i);
+            String failure = rejected.get(i);
+            if (failure == null) {
+                persisted.add(pending.history());
+                pending.ack().complete(pending.history());
+            } else if (isDuplicate(pending.history(), failure)) {
+                // Reintento concurrente de una lectura ya guardada: se responde con la original.
+                pending.ack().complete(recordRepository.findByDedupKey(pending.history().getDedupKey())
+                        .orElse(pending.history()));
+            } else if (retried && failure.contains(DUPLICATE_KEY)) {
+                // Ya se insertó en un intento anterior que terminó con error.
+                persisted.add(pending.history());
+                pending.ack().complete(pending.history());
+            } else {
+                log.warn("No se pudo persistir el histórico {}: {}", pending.history().getId(), failure);
+                failures.increment();
+                pending.ack().completeExceptionally(persistError());
+            }
+        }
+        if (!persisted.isEmpty()) {
+            try {
+                eventPublisher.publishEvent(new HistoryIngestedEvent(persisted));
+            } catch (Exception e) {
+                log.warn("Falló la notificación de {} históricos persistidos: {}", persisted.size(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Espera antes de reintentar, duplicando la pausa en cada intento hasta un máximo.
+     *
+     * @return {@code false} si la espera se interrumpió y no debe reintentarse.
+     */
+    private boolean backOff(int attempt) {
+        try {
+            Thread.sleep(Math.min(retryBackoffMillis << Math.min(attempt, 20), MAX_RETRY_BACKOFF_MILLIS));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            accepting = false;
+            return false;
+        }
+    }
+
+    private static String describe(List<History> histories) {
+        StringBuilder description = new StringBuilder();
+        for (History history : histories) {
+            if (!description.isEmpty()) {
+                description.append(", ");
+            }
+            description.append(history.getId());
+            if (history.getDedupKey() != null) {
+                description.append(" (").append(history.getDedupKey()).append(')');
+            }
+        }
+        return description.toString();
+    }
+
+    private static boolean isDuplicate(History history, String failure) {
+        return history.getDedupKey() != null && failure.contains(DUPLICATE_KEY);
+    }
+
+    private static ApiException persistError() {
+        return new ApiException(new ApiResponse("No se pudo guardar el registro", HttpStatus.INTERNAL_SERVER_ERROR.value()));
+    }
+
+    private record Pending(History history, CompletableFuture<History> ack, long enqueuedAt) {
+    }
+}
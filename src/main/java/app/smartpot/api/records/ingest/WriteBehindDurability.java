@@ -0,0 +1,15 @@
+package app.smartpot.api.records.ingest;
+
+/**
+ * Momento en que se confirma al cliente una lectura aceptada en modo write-behind.
+ */
+public enum WriteBehindDurability {
+    /**
+     * Se confirma al encolarla: menor latencia, pero las lecturas en cola se pierden si el proceso termina de forma abrupta.
+     */
+    ENQUEUE,
+    /**
+     * Se confirma cuando la escritura agrupada que la contiene se completa en MongoDB.
+     */
+    FLUSH
+}
@@ -0,0 +1,11 @@
+package app.smartpot.api.records.live;
+
+/**
+ * Lectura ya serializada para enviarse como evento SSE.
+ * Se serializa una sola vez y se comparte entre todos los suscriptores que la reciben.
+ *
+ * @param id   Identificador del histórico, usado como id del evento.
+ * @param json Histórico serializado como JSON.
+ */
+public record LiveReading(String id, String json) {
+}
@@ -0,0 +1,137 @@
+package app.smartpot.api.records.live;
+
+import org.bson.types.ObjectId;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Suscriptor de lecturas en vivo con un búfer acotado.
+ * <p>
+ * La publicación solo encola la lectura y programa el envío en el ejecutor compartido; nunca espera a la
+ * conexión del cliente. Si el búfer está lleno, el cliente es lento: se descarta la lectura más antigua y se
+ * cuenta la pérdida. Un suscriptor que acumula demasiadas pérdidas se desconecta para que el cliente reconecte.
+ * Como mucho hay un envío en curso por suscriptor, lo que mantiene el orden de los eventos.
+ * </p>
+ */
+public class LiveSubscriber {
+
+    private final SseEmitter emitter;
+    private final Set<ObjectId> crops;
+    private final ArrayBlockingQueue<LiveReading> buffer;
+    private final long maxDropped;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean closed = new AtomicBoolean();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public LiveSubscriber(SseEmitter emitter, Set<ObjectId> crops, int bufferSize, long maxDropped) {
+        this.emitter = emitter;
+        this.crops = crops;
+        this.buffer = new ArrayBlockingQueue<>(bufferSize);
+        this.maxDropped = maxDropped;
+    }
+
+    public SseEmitter getEmitter() {
+        return emitter;
+    }
+
+    public Set<ObjectId> getCrops() {
+        return crops;
+    }
+
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public boolean isClosed() {
+        return closed.get();
+    }
+
+    /**
+     * Encola una lectura y programa su envío.
+     *
+     * @param reading  Lectura a enviar.
+     * @param executor Ejecutor compartido de envíos.
+     */
+    public void offer(LiveReading reading, Executor executor) {
+        if (closed.get()) {
+            return;
+        }
+        while (!buffer.offer(reading)) {
+            if (buffer.poll() != null && dropped.incrementAndGet() > maxDropped) {
+                close();
+                return;
+            }
+        }
+        schedule(executor);
+    }
+
+    /**
+     * Envía un comentario de latido para mantener viva la conexión y detectar clientes desconectados.
+     *
+     * @return {@code false} si el envío falló y el suscriptor quedó cerrado.
+     */
+    public synchronized boolean heartbeat() {
+        if (closed.get()) {
+            return false;
+        }
+        try {
+            emitter.send(SseEmitter.event().comment("ping"));
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            close();
+            return false;
+        }
+    }
+
+    /**
+     * Cierra la conexión del suscriptor. Es idempotente.
+     */
+    public void close() {
+        if (closed.compareAndSet(false, true)) {
+            buffer.clear();
+            try {
+                emitter.complete();
+            } catch (IllegalStateException ignored) {
+                // La conexión ya estaba terminada
+            }
+        }
+    }
+
+    private void schedule(Executor executor) {
+        if (scheduled.compareAndSet(false, true)) {
+            executor.execute(() -> drain(executor));
+        }
+    }
+
+    private void drain(Executor executor) {
+        try {
+            LiveReading reading;
+            while (!closed.get() && (reading = buffer.poll()) != null) {
+                send(reading);
+            }
+        } finally {
+            scheduled.set(false);
+        }
+        if (!closed.get() && !buffer.isEmpty()) {
+            schedule(executor);
+        }
+    }
+
+    private synchronized void send(LiveReading reading) {
+        try {
+            emitter.send(SseEmitter.event()
+                    .name("reading")
+                    .id(reading.id())
+                    .data(reading.json(), MediaType.APPLICATION_JSON));
+        } catch (IOException | IllegalStateException e) {
+            close();
+        }
+    }
+}
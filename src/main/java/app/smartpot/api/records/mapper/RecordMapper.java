@@ -1,7 +1,10 @@
 package app.smartpot.api.records.mapper;
 
+import app.smartpot.api.records.model.dto.NumericMeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericRecordDTO;
 import app.smartpot.api.records.model.dto.RecordDTO;
 import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
 import org.bson.types.ObjectId;
 import org.mapstruct.Mapper;
 import org.mapstruct.Mapping;
@@ -18,10 +21,29 @@ public interface RecordMapper {
     @Mapping(source = "id", target = "id", qualifiedByName = "stringToObjectId")
     @Mapping(source = "crop", target = "crop", qualifiedByName = "stringToObjectId")
     @Mapping(source = "date", target = "date", qualifiedByName = "stringToDate")
+    @Mapping(target = "dedupKey", ignore = true)
     History toEntity(RecordDTO recordDTO);
 
+    default History toEntity(NumericRecordDTO recordDTO) {
+        NumericMeasuresDTO measures = recordDTO.getMeasures();
+        return History.builder()
+                .crop(stringToObjectId(recordDTO.getCrop()))
+                .date(recordDTO.getDate() > 0 ? new Date(recordDTO.getDate()) : null)
+                .measures(new Measures(
+                        measures.getAtmosphere(),
+                        measures.getBrightness(),
+                        measures.getTemperature(),
+                        measures.getPh(),
+                        measures.getTds(),
+                        measures.getHumidity()
+                ))
+                .build();
+    }
+
     @Mapping(source = "id", target = "id", qualifiedByName = "objectIdToString")
     @Mapping(source = "crop", target = "crop", qualifiedByName = "objectIdToString")
+    @Mapping(target = "device", ignore = true)
+    @Mapping(target = "sequence", ignore = true)
     RecordDTO toDTO(History history);
 
     @org.mapstruct.Named("objectIdToString")
@@ -0,0 +1,22 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Resumen estadístico de las medidas de un cultivo en un rango de fechas, indexado por el nombre de cada medida.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CropStatsDTO {
+    private String crop;
+    private Date startDate;
+    private Date endDate;
+    private long count;
+    private Map<String, MeasureSummaryDTO> measures;
+}
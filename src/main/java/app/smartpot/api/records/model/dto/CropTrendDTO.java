@@ -0,0 +1,22 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Tendencia actual de las medidas de un cultivo, indexada por el nombre de cada medida.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CropTrendDTO {
+    private String crop;
+    private Date updatedAt;
+    private long halfLifeSeconds;
+    private long windowSeconds;
+    private Map<String, MeasureTrendDTO> measures;
+}
@@ -0,0 +1,21 @@
+package app.smartpot.api.records.model.dto;
+
+import app.smartpot.api.records.model.entity.History;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Página de históricos de un cultivo ordenados por fecha.
+ * {@code next} es un token opaco para pedir la página siguiente, o {@code null} si no hay más resultados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class HistoryPageDTO {
+    private List<History> items;
+    private int size;
+    private String next;
+}
@@ -0,0 +1,74 @@
+package app.smartpot.api.records.model.dto;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.entity.History;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.Date;
+
+/**
+ * Posición de continuación de una paginación por clave: la fecha y el identificador del último histórico devuelto.
+ * <p>
+ * Se serializa como un token opaco (Base64 URL de 20 bytes: 8 de la fecha en milisegundos y 12 del ObjectId),
+ * de modo que el cliente no depende de su formato.
+ * </p>
+ *
+ * @param date Fecha del último histórico devuelto.
+ * @param id   Identificador del último histórico devuelto.
+ */
+public record HistoryPageToken(Date date, ObjectId id) {
+
+    private static final int LENGTH = Long.BYTES + 12;
+
+    /**
+     * Crea el token que continúa después del histórico indicado.
+     *
+     * @param last Último histórico de la página actual.
+     * @return El token de la página siguiente.
+     */
+    public static HistoryPageToken after(History last) {
+        return new HistoryPageToken(last.getDate(), last.getId());
+    }
+
+    /**
+     * Codifica el token en su representación opaca.
+     *
+     * @return El token codificado.
+     */
+    public String encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(LENGTH);
+        buffer.putLong(date.getTime());
+        id.putToByteBuffer(buffer);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(buffer.array());
+    }
+
+    /**
+     * Decodifica un token recibido del cliente.
+     *
+     * @param token Token codificado.
+     * @return La posición de continuación.
+     * @throws ApiException Si el token no es válido.
+     */
+    public static HistoryPageToken decode(String token) {
+        try {
+            byte[] bytes = Base64.getUrlDecoder().decode(token);
+            if (bytes.length != LENGTH) {
+                throw new IllegalArgumentException("Longitud inválida");
+            }
+            ByteBuffer buffer = ByteBuffer.wrap(bytes);
+            Date date = new Date(buffer.getLong());
+            byte[] id = new byte[12];
+            buffer.get(id);
+            return new HistoryPageToken(date, new ObjectId(id));
+        } catch (IllegalArgumentException e) {
+            throw new ApiException(new ApiResponse(
+                    "El token de paginación '" + token + "' no es válido",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+    }
+}
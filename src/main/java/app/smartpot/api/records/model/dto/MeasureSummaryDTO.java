@@ -0,0 +1,26 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Estadísticas de una medida en un rango de fechas.
+ * Los percentiles son aproximados y valen {@code null} si el servidor de MongoDB no soporta {@code $percentile}.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasureSummaryDTO {
+    private long count;
+    private Double min;
+    private Double max;
+    private Double mean;
+    private Double stdDev;
+    private Double p50;
+    private Double p90;
+    private Double p95;
+    private Double p99;
+}
@@ -0,0 +1,26 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Date;
+
+/**
+ * Tendencia de una medida: último valor, media móvil exponencial, mínimo y máximo de la ventana deslizante
+ * y tasa de cambio por hora. Los campos valen {@code null} si la medida no tiene lecturas.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasureTrendDTO {
+    private long count;
+    private Double last;
+    private Date lastDate;
+    private Double ewma;
+    private Double min;
+    private Double max;
+    private Double ratePerHour;
+}
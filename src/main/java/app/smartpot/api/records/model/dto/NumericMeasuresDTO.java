@@ -0,0 +1,28 @@
+package app.smartpot.api.records.model.dto;
+
+import com.fasterxml.jackson.annotation.JsonSetter;
+import com.fasterxml.jackson.annotation.Nulls;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Medidas de una lectura con valores numéricos, para la ingesta sin conversión desde texto.
+ * Los campos son primitivos para no reservar memoria por medida. Una medida ausente o nula queda en
+ * {@link Double#NaN} y la validación la rechaza, en lugar de tomarla como {@code 0}.
+ */
+@Data
+@NoArgsConstructor
+public class NumericMeasuresDTO {
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double atmosphere = Double.NaN;
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double brightness = Double.NaN;
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double temperature = Double.NaN;
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double ph = Double.NaN;
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double tds = Double.NaN;
+    @JsonSetter(nulls = Nulls.SKIP)
+    private double humidity = Double.NaN;
+}
@@ -0,0 +1,17 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.Data;
+
+/**
+ * Lectura de un cultivo con medidas numéricas.
+ * {@code date} es la fecha de la lectura en milisegundos desde epoch; si es 0 se usa la fecha del servidor.
+ * {@code device} y {@code sequence} identifican la lectura para descartar reintentos.
+ */
+@Data
+public class NumericRecordDTO {
+    private String crop;
+    private long date;
+    private NumericMeasuresDTO measures;
+    private String device;
+    private Long sequence;
+}
@@ -0,0 +1,18 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Resultado individual de un registro dentro de una ingesta por lotes.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordBatchItemDTO {
+    private int index;
+    private String id;
+    private boolean accepted;
+    private String message;
+}
@@ -0,0 +1,20 @@
+package app.smartpot.api.records.model.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Reporte de una ingesta por lotes: cuántos registros fueron aceptados, cuántos rechazados
+ * y el detalle de cada uno en el mismo orden en que fueron enviados.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RecordBatchResultDTO {
+    private int accepted;
+    private int rejected;
+    private List<RecordBatchItemDTO> items;
+}
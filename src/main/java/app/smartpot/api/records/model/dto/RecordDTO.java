@@ -8,4 +8,6 @@ public class RecordDTO {
     private String date;
     private MeasuresDTO measures;
     private String crop;
+    private String device;
+    private Long sequence;
 }
@@ -1,6 +1,7 @@
 package app.smartpot.api.records.model.entity;
 
 import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.PastOrPresent;
 import lombok.AllArgsConstructor;
@@ -9,6 +10,8 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -20,6 +23,7 @@ import java.util.Date;
 @NoArgsConstructor
 @AllArgsConstructor
 @Document(collection = "registros")
+@CompoundIndex(name = "crop_date_id", def = "{'crop': 1, 'date': 1, '_id': 1}")
 public class History implements Serializable {
 
     /**
@@ -49,4 +53,12 @@ public class History implements Serializable {
     @NotNull(message = "El registro debe estar asociado a un cultivo")
     @Field("crop")
     private ObjectId crop;
+
+    /**
+     * Clave de deduplicación de la lectura (clave de idempotencia o dispositivo y secuencia), si el cliente la envió.
+     */
+    @JsonIgnore
+    @Indexed(name = "dedupKey", unique = true, sparse = true)
+    @Field("dedupKey")
+    private String dedupKey;
 }
@@ -0,0 +1,66 @@
+package app.smartpot.api.records.model.entity;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.bson.types.ObjectId;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.io.Serializable;
+import java.util.Date;
+
+/**
+ * Resumen precalculado de las medidas de un cultivo dentro de un bucket horario o diario.
+ * <p>
+ * Se mantiene de forma incremental en cada ingesta y puede reconstruirse a partir de la colección
+ * "registros", por lo que es siempre un dato derivado.
+ * </p>
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+@Document(collection = "registros_resumen")
+@CompoundIndex(name = "crop_resolution_bucket", def = "{'crop': 1, 'resolution': 1, 'bucket': 1}", unique = true)
+public class HistoryRollup implements Serializable {
+
+    @Id
+    @Field("_id")
+    private ObjectId id;
+
+    @Field("crop")
+    private ObjectId crop;
+
+    @Field("resolution")
+    private RollupResolution resolution;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    @Field("bucket")
+    private Date bucket;
+
+    @Field("count")
+    private Long count;
+
+    @Field("atmosphere")
+    private MeasureStats atmosphere;
+
+    @Field("brightness")
+    private MeasureStats brightness;
+
+    @Field("temperature")
+    private MeasureStats temperature;
+
+    @Field("ph")
+    private MeasureStats ph;
+
+    @Field("tds")
+    private MeasureStats tds;
+
+    @Field("humidity")
+    private MeasureStats humidity;
+}
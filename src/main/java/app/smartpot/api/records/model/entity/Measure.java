@@ -0,0 +1,55 @@
+package app.smartpot.api.records.model.entity;
+
+import lombok.Getter;
+
+import java.util.function.Function;
+
+/**
+ * Catálogo de las medidas que reporta una maceta.
+ * <p>
+ * Cada constante conoce el nombre del campo dentro de {@link Measures} y cómo leer su valor, lo que permite
+ * recorrer las medidas de forma genérica (agregaciones, resúmenes, validaciones) sin repetir el código
+ * por cada campo.
+ * </p>
+ */
+@Getter
+public enum Measure {
+    ATMOSPHERE("atmosphere", Measures::getAtmosphere),
+    BRIGHTNESS("brightness", Measures::getBrightness),
+    TEMPERATURE("temperature", Measures::getTemperature),
+    PH("ph", Measures::getPh),
+    TDS("tds", Measures::getTds),
+    HUMIDITY("humidity", Measures::getHumidity);
+
+    /**
+     * Constantes en orden de declaración, para recorrerlas sin reservar un arreglo nuevo en cada llamada.
+     */
+    public static final Measure[] VALUES = values();
+
+    private final String field;
+    private final Function<Measures, Double> accessor;
+
+    Measure(String field, Function<Measures, Double> accessor) {
+        this.field = field;
+        this.accessor = accessor;
+    }
+
+    /**
+     * Obtiene el valor de esta medida dentro de las medidas proporcionadas.
+     *
+     * @param measures Medidas de un registro.
+     * @return El valor de la medida, o {@code null} si no fue reportada.
+     */
+    public Double valueOf(Measures measures) {
+        return measures == null ? null : accessor.apply(measures);
+    }
+
+    /**
+     * Ruta del campo dentro del documento de un histórico, por ejemplo {@code measures.ph}.
+     *
+     * @return La ruta del campo para usarla en consultas y agregaciones.
+     */
+    public String path() {
+        return "measures." + field;
+    }
+}
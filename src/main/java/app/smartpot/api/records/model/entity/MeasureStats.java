@@ -0,0 +1,41 @@
+package app.smartpot.api.records.model.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.mongodb.core.mapping.Field;
+
+import java.io.Serializable;
+
+/**
+ * Mínimo, máximo y acumulados de una medida dentro de un bucket de tiempo.
+ * El promedio se deriva de la suma y el conteo, lo que permite actualizar el resumen de forma incremental.
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class MeasureStats implements Serializable {
+
+    @Field("min")
+    private Double min;
+
+    @Field("max")
+    private Double max;
+
+    @Field("sum")
+    private Double sum;
+
+    @Field("count")
+    private Long count;
+
+    /**
+     * Promedio de la medida dentro del bucket.
+     *
+     * @return El promedio, o {@code null} si el bucket no contiene lecturas de esta medida.
+     */
+    public Double getAvg() {
+        return count == null || count == 0 || sum == null ? null : sum / count;
+    }
+}
@@ -0,0 +1,63 @@
+package app.smartpot.api.records.model.entity;
+
+import java.time.Duration;
+import java.time.temporal.ChronoUnit;
+import java.util.Date;
+
+/**
+ * Resoluciones temporales en las que se precalculan los resúmenes de medidas.
+ */
+public enum RollupResolution {
+    HOUR(ChronoUnit.HOURS, "hour"),
+    DAY(ChronoUnit.DAYS, "day");
+
+    private final ChronoUnit unit;
+    private final String mongoUnit;
+
+    RollupResolution(ChronoUnit unit, String mongoUnit) {
+        this.unit = unit;
+        this.mongoUnit = mongoUnit;
+    }
+
+    /**
+     * Trunca una fecha al inicio del bucket que le corresponde en esta resolución (en UTC).
+     *
+     * @param date Fecha a truncar.
+     * @return Inicio del bucket que contiene la fecha.
+     */
+    public Date truncate(Date date) {
+        return Date.from(date.toInstant().truncatedTo(unit));
+    }
+
+    /**
+     * Duración de un bucket en esta resolución.
+     *
+     * @return La duración de un bucket.
+     */
+    public Duration duration() {
+        return unit.getDuration();
+    }
+
+    /**
+     * Unidad equivalente para el operador {@code $dateTrunc} de MongoDB.
+     *
+     * @return El nombre de la unidad en MongoDB.
+     */
+    public String mongoUnit() {
+        return mongoUnit;
+    }
+
+    /**
+     * Elige la resolución más gruesa que mantenga un rango de fechas por debajo del número de puntos indicado.
+     * Se prefiere la resolución horaria mientras el rango no supere {@code maxPoints} horas.
+     *
+     * @param startDate Inicio del rango.
+     * @param endDate   Fin del rango.
+     * @param maxPoints Número máximo de buckets horarios aceptables.
+     * @return La resolución a usar para el rango.
+     */
+    public static RollupResolution forRange(Date startDate, Date endDate, long maxPoints) {
+        long hours = Duration.between(startDate.toInstant(), endDate.toInstant()).toHours();
+        return hours <= maxPoints ? HOUR : DAY;
+    }
+}
@@ -0,0 +1,271 @@
+package app.smartpot.api.records.query;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.HistoryRollup;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import app.smartpot.api.records.repository.HistoryRollupRepository;
+import app.smartpot.api.records.repository.RecordRepository;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lee los históricos de un cultivo en rangos de fechas largos dividiéndolos en tramos que se consultan en paralelo.
+ * <p>
+ * Los tramos se planifican con los conteos de los resúmenes horarios o diarios, de modo que cada uno contiene
+ * aproximadamente el mismo número de documentos aunque la densidad de lecturas varíe a lo largo del rango.
+ * Si no hay resúmenes, un rango suficientemente largo se divide en tramos de igual duración.
+ * </p>
+ * <p>
+ * Los tramos se consultan en un ejecutor acotado y se entregan en orden de fecha: como mucho hay
+ * {@code threads} tramos en curso o pendientes de consumir por petición, por lo que la memoria no depende del
+ * tamaño del rango cuando el resultado se recorre en streaming.
+ * </p>
+ */
+@Slf4j
+@Component
+public class ParallelRangeReader {
+
+    /**
+     * Máximo de buckets de resumen que se leen para planificar; por encima se usan buckets diarios.
+     */
+    private static final long MAX_PLAN_BUCKETS = 2000;
+
+    private final RecordRepository recordRepository;
+    private final HistoryRollupRepository rollupRepository;
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${records.slicing.enabled}")
+    private boolean enabled;
+
+    @Value("${records.slicing.threads}")
+    private int threads;
+
+    @Value("${records.slicing.slice-size}")
+    private long sliceSize;
+
+    @Value("${records.slicing.max-slices}")
+    private int maxSlices;
+
+    @Value("${records.slicing.min-range}")
+    private long minRangeHours;
+
+    @Autowired
+    public ParallelRangeReader(RecordRepository recordRepository, HistoryRollupRepository rollupRepository) {
+        this.recordRepository = recordRepository;
+        this.rollupRepository = rollupRepository;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(Math.max(1, threads));
+        executor.setMaxPoolSize(Math.max(1, threads));
+        executor.setThreadNamePrefix("Range-Records-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    /**
+     * Obtiene los históricos de un cultivo en el rango {@code (startDate, endDate)}, ordenados por fecha.
+     *
+     * @param cropId    Identificador del cultivo.
+     * @param startDate Inicio del rango (exclusivo).
+     * @param endDate   Fin del rango (exclusivo).
+     * @return Los históricos del rango.
+     */
+    public List<History> read(ObjectId cropId, Date startDate, Date endDate) {
+        List<Date> bounds = plan(cropId, startDate, endDate);
+        if (bounds.size() <= 2) {
+            return recordRepository.findSliceByCrop(cropId, bounds.get(0), bounds.get(1));
+        }
+        List<History> histories = new ArrayList<>();
+        try (Stream<History> slices = fetch(cropId, bounds)) {
+            slices.forEach(histories::add);
+        }
+        return histories;
+    }
+
+    /**
+     * Recorre los históricos de un cultivo en el rango {@code (startDate, endDate)}, ordenados por fecha.
+     *
+     * @param cropId    Identificador del cultivo.
+     * @param startDate Inicio del rango (exclusivo).
+     * @param endDate   Fin del rango (exclusivo).
+     * @return Secuencia de históricos; debe cerrarse para cancelar los tramos pendientes.
+     */
+    public Stream<History> stream(ObjectId cropId, Date startDate, Date endDate) {
+        List<Date> bounds = plan(cropId, startDate, endDate);
+        if (bounds.size() <= 2) {
+            return recordRepository.streamByCropAndDateBetween(cropId, startDate, endDate);
+        }
+        return fetch(cropId, bounds);
+    }
+
+    /**
+     * Calcula los límites de los tramos. El tramo {@code i} es {@code [bounds[i], bounds[i + 1])}.
+     *
+     * @return Los límites; dos elementos si el rango no conviene dividirlo.
+     */
+    private List<Date> plan(ObjectId cropId, Date startDate, Date endDate) {
+        // Las fechas tienen precisión de milisegundos: (startDate, endDate) equivale a [startDate + 1, endDate).
+        Date from = new Date(startDate.getTime() + 1);
+        if (!enabled || threads < 2 || !from.before(endDate)) {
+            return List.of(from, endDate);
+        }
+
+        RollupResolution resolution = RollupResolution.forRange(startDate, endDate, MAX_PLAN_BUCKETS);
+        List<HistoryRollup> buckets = rollupRepository.findByCropAndResolutionAndBucketBetween(
+                cropId, resolution.name(), resolution.truncate(startDate), endDate);
+        long total = 0;
+        for (HistoryRollup bucket : buckets) {
+            total += bucket.getCount() != null ? bucket.getCount() : 0;
+        }
+        if (total == 0) {
+            return evenSlices(from, endDate);
+        }
+        if (total <= sliceSize) {
+            return List.of(from, endDate);
+        }
+
+        long target = Math.max(sliceSize, (total + maxSlices - 1) / maxSlices);
+        long step = resolution.duration().toMillis();
+        List<Date> bounds = new ArrayList<>();
+        bounds.add(from);
+        long accumulated = 0;
+        for (HistoryRollup bucket : buckets) {
+            accumulated += bucket.getCount() != null ? bucket.getCount() : 0;
+            if (accumulated < target) {
+                continue;
+            }
+            Date boundary = new Date(bucket.getBucket().getTime() + step);
+            if (boundary.after(bounds.get(bounds.size() - 1)) && boundary.before(endDate)) {
+                bounds.add(boundary);
+                accumulated = 0;
+            }
+        }
+        bounds.add(endDate);
+        return bounds;
+    }
+
+    private List<Date> evenSlices(Date from, Date endDate) {
+        long length = endDate.getTime() - from.getTime();
+        if (length < minRangeHours * 3_600_000L) {
+            return List.of(from, endDate);
+        }
+        List<Date> bounds = new ArrayList<>(threads + 1);
+        for (int i = 0; i < threads; i++) {
+            bounds.add(new Date(from.getTime() + length / threads * i));
+        }
+        bounds.add(endDate);
+        return bounds;
+    }
+
+    private Stream<History> fetch(ObjectId cropId, List<Date> bounds) {
+        SliceIterator iterator = new SliceIterator(cropId, bounds);
+        return StreamSupport.stream(
+                Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false
+        ).onClose(iterator::cancel);
+    }
+
+    /**
+     * Recorre los tramos en orden manteniendo hasta {@code threads} consultas adelantadas.
+     */
+    private final class SliceIterator implements Iterator<History> {
+
+        private final ObjectId cropId;
+        private final List<Date> bounds;
+        private final ArrayDeque<Future<List<History>>> pending = new ArrayDeque<>();
+        private int nextSlice;
+        private Iterator<History> current = Collections.emptyIterator();
+
+        private SliceIterator(ObjectId cropId, List<Date> bounds) {
+            this.cropId = cropId;
+            this.bounds = bounds;
+            fill();
+        }
+
+        private void fill() {
+            while (pending.size() < threads && nextSlice < bounds.size() - 1) {
+                Date from = bounds.get(nextSlice);
+                Date until = bounds.get(nextSlice + 1);
+                nextSlice++;
+                pending.add(executor.submit(() -> recordRepository.findSliceByCrop(cropId, from, until)));
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                Future<List<History>> slice = pending.poll();
+                if (slice == null) {
+                    return false;
+                }
+                fill();
+                current = await(slice).iterator();
+            }
+            return true;
+        }
+
+        @Override
+        public History next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        private List<History> await(Future<List<History>> slice) {
+            try {
+                return slice.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                cancel();
+                throw readError();
+            } catch (ExecutionException e) {
+                cancel();
+                log.error("Falló la lectura de un tramo de históricos del cultivo {}: ", cropId, e.getCause());
+                throw readError();
+            }
+        }
+
+        private void cancel() {
+            pending.forEach(slice -> slice.cancel(true));
+            pending.clear();
+            nextSlice = bounds.size();
+        }
+
+        private ApiException readError() {
+            return new ApiException(new ApiResponse(
+                    "No se pudieron obtener los históricos del cultivo",
+                    HttpStatus.INTERNAL_SERVER_ERROR.value()
+            ));
+        }
+    }
+}
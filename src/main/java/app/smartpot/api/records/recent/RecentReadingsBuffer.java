@@ -0,0 +1,129 @@
+package app.smartpot.api.records.recent;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Búfer circular de tamaño fijo con las lecturas más recientes de un cultivo.
+ * <p>
+ * Las lecturas se guardan en arreglos primitivos (fecha, identificador y las seis medidas), sin un objeto
+ * por entrada; los {@link History} solo se construyen al leer. Las entradas se mantienen ordenadas por fecha:
+ * una lectura más antigua que la última se inserta en su posición y, con el búfer lleno, se descarta la más
+ * antigua. Las lecturas repetidas (misma fecha e identificador) se ignoran.
+ * </p>
+ */
+public class RecentReadingsBuffer {
+
+    private static final int ID_SIZE = 12;
+    private static final int MEASURES = Measure.VALUES.length;
+
+    private final ObjectId crop;
+    private final int capacity;
+    private final long[] dates;
+    private final byte[] ids;
+    private final double[] values;
+    private int start;
+    private int size;
+
+    public RecentReadingsBuffer(ObjectId crop, int capacity) {
+        this.crop = crop;
+        this.capacity = capacity;
+        this.dates = new long[capacity];
+        this.ids = new byte[capacity * ID_SIZE];
+        this.values = new double[capacity * MEASURES];
+    }
+
+    /**
+     * Añade una lectura en su posición según la fecha.
+     *
+     * @param history Lectura persistida, con identificador y fecha.
+     */
+    public synchronized void add(History history) {
+        long date = history.getDate().getTime();
+        byte[] id = history.getId().toByteArray();
+
+        int position = size;
+        while (position > 0 && dates[slot(position - 1)] > date) {
+            position--;
+        }
+        for (int i = position - 1; i >= 0 && dates[slot(i)] == date; i--) {
+            if (ByteBuffer.wrap(ids, slot(i) * ID_SIZE, ID_SIZE).equals(ByteBuffer.wrap(id))) {
+                return;
+            }
+        }
+        if (size == capacity) {
+            if (position == 0) {
+                return;
+            }
+            start = slot(1);
+            size--;
+            position--;
+        }
+        for (int i = size; i > position; i--) {
+            move(slot(i - 1), slot(i));
+        }
+
+        int target = slot(position);
+        dates[target] = date;
+        System.arraycopy(id, 0, ids, target * ID_SIZE, ID_SIZE);
+        for (int m = 0; m < MEASURES; m++) {
+            Double value = Measure.VALUES[m].valueOf(history.getMeasures());
+            values[target * MEASURES + m] = value != null ? value : Double.NaN;
+        }
+        size++;
+    }
+
+    /**
+     * Obtiene las lecturas más recientes, de la más nueva a la más antigua.
+     *
+     * @param limit Número máximo de lecturas.
+     * @return Hasta {@code limit} lecturas.
+     */
+    public synchronized List<History> latest(int limit) {
+        int count = Math.min(limit, size);
+        List<History> histories = new ArrayList<>(count);
+        for (int i = size - 1; i >= size - count; i--) {
+            histories.add(toHistory(slot(i)));
+        }
+        return histories;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    private int slot(int logical) {
+        return (start + logical) % capacity;
+    }
+
+    private void move(int from, int to) {
+        dates[to] = dates[from];
+        System.arraycopy(ids, from * ID_SIZE, ids, to * ID_SIZE, ID_SIZE);
+        System.arraycopy(values, from * MEASURES, values, to * MEASURES, MEASURES);
+    }
+
+    private History toHistory(int slot) {
+        int base = slot * MEASURES;
+        return History.builder()
+                .id(new ObjectId(ByteBuffer.wrap(ids, slot * ID_SIZE, ID_SIZE)))
+                .crop(crop)
+                .date(new Date(dates[slot]))
+                .measures(new Measures(
+                        value(base), value(base + 1), value(base + 2),
+                        value(base + 3), value(base + 4), value(base + 5)
+                ))
+                .build();
+    }
+
+    private Double value(int index) {
+        double value = values[index];
+        return Double.isNaN(value) ? null : value;
+    }
+}
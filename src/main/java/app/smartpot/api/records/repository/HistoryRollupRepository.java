@@ -0,0 +1,35 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.HistoryRollup;
+import org.bson.types.ObjectId;
+import org.springframework.data.mongodb.repository.MongoRepository;
+import org.springframework.data.mongodb.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.util.Date;
+import java.util.List;
+
+@Repository
+public interface HistoryRollupRepository extends MongoRepository<HistoryRollup, ObjectId>, HistoryRollupRepositoryCustom {
+
+    /**
+     * Busca los resúmenes de un cultivo en una resolución dada cuyo bucket empieza dentro del rango indicado.
+     *
+     * @param cropId     Identificador del cultivo.
+     * @param resolution Nombre de la resolución ({@code HOUR} o {@code DAY}).
+     * @param startDate  Inicio del rango (inclusivo).
+     * @param endDate    Fin del rango (inclusivo).
+     * @return Los resúmenes ordenados por bucket.
+     */
+    @Query(value = "{ 'crop' : ?0, 'resolution' : ?1, 'bucket' : { $gte: ?2, $lte: ?3 } }", sort = "{ 'bucket' : 1 }")
+    List<HistoryRollup> findByCropAndResolutionAndBucketBetween(ObjectId cropId, String resolution, Date startDate, Date endDate);
+
+    /**
+     * Elimina los resúmenes de una resolución cuyo bucket empieza antes de la fecha indicada.
+     *
+     * @param resolution Nombre de la resolución ({@code HOUR} o {@code DAY}).
+     * @param bucket     Fecha límite (exclusiva).
+     * @return Número de resúmenes eliminados.
+     */
+    long deleteByResolutionAndBucketBefore(String resolution, Date bucket);
+}
@@ -0,0 +1,33 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.RollupResolution;
+
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Operaciones de mantenimiento de los resúmenes de medidas que requieren escrituras masivas o agregaciones.
+ */
+public interface HistoryRollupRepositoryCustom {
+
+    /**
+     * Incorpora los históricos a los resúmenes de cada resolución.
+     * Los históricos se agrupan en memoria por cultivo y bucket, de modo que se emite una sola
+     * actualización por bucket afectado dentro de una escritura masiva.
+     *
+     * @param histories Históricos recién persistidos.
+     */
+    void accumulate(List<History> histories);
+
+    /**
+     * Recalcula desde la colección de históricos los resúmenes de una resolución para un rango de fechas,
+     * reemplazando los valores existentes. Los resúmenes del rango se eliminan antes, de modo que desaparecen
+     * los buckets que ya no tienen históricos. Sirve para reparar resúmenes desactualizados.
+     *
+     * @param resolution Resolución a recalcular.
+     * @param startDate  Inicio del rango (inclusivo).
+     * @param endDate    Fin del rango (exclusivo).
+     */
+    void rebuild(RollupResolution resolution, Date startDate, Date endDate);
+}
@@ -0,0 +1,157 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.HistoryRollup;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Implementación de {@link HistoryRollupRepositoryCustom} basada en {@link MongoTemplate}.
+ */
+public class HistoryRollupRepositoryCustomImpl implements HistoryRollupRepositoryCustom {
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public HistoryRollupRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public void accumulate(List<History> histories) {
+        Map<BucketKey, Accumulator> buckets = new HashMap<>();
+        for (History history : histories) {
+            if (history.getCrop() == null || history.getDate() == null || history.getMeasures() == null) {
+                continue;
+            }
+            for (RollupResolution resolution : RollupResolution.values()) {
+                BucketKey key = new BucketKey(history.getCrop(), resolution, resolution.truncate(history.getDate()));
+                buckets.computeIfAbsent(key, k -> new Accumulator()).add(history);
+            }
+        }
+        if (buckets.isEmpty()) {
+            return;
+        }
+
+        BulkOperations operations = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, HistoryRollup.class);
+        buckets.forEach((key, accumulator) -> operations.upsert(
+                new Query(Criteria.where("crop").is(key.crop())
+                        .and("resolution").is(key.resolution())
+                        .and("bucket").is(key.bucket())),
+                accumulator.toUpdate()
+        ));
+        operations.execute();
+    }
+
+    @Override
+    public void rebuild(RollupResolution resolution, Date startDate, Date endDate) {
+        Document group = new Document("_id", new Document("crop", "$crop")
+                .append("bucket", new Document("$dateTrunc", new Document("date", "$date").append("unit", resolution.mongoUnit()))))
+                .append("count", new Document("$sum", 1));
+        Document project = new Document("_id", 0)
+                .append("crop", "$_id.crop")
+                .append("resolution", new Document("$literal", resolution.name()))
+                .append("bucket", "$_id.bucket")
+                .append("count", 1);
+
+        for (Measure measure : Measure.VALUES) {
+            String field = measure.getField();
+            String value = "$" + measure.path();
+            group.append(field + "_min", new Document("$min", value))
+                    .append(field + "_max", new Document("$max", value))
+                    .append(field + "_sum", new Document("$sum", value))
+                    .append(field + "_count", new Document("$sum",
+                            new Document("$cond", Arrays.asList(new Document("$isNumber", value), 1, 0))));
+            project.append(field, new Document("min", "$" + field + "_min")
+                    .append("max", "$" + field + "_max")
+                    .append("sum", "$" + field + "_sum")
+                    .append("count", "$" + field + "_count"));
+        }
+
+        // Los buckets cuyos históricos se eliminaron no salen del $group, así que $merge no los tocaría.
+        mongoTemplate.remove(new Query(Criteria.where("resolution").is(resolution.name())
+                .and("bucket").gte(startDate).lt(endDate)), HistoryRollup.class);
+
+        List<Document> pipeline = new ArrayList<>();
+        pipeline.add(new Document("$match", new Document("date", new Document("$gte", startDate).append("$lt", endDate))));
+        pipeline.add(new Document("$group", group));
+        pipeline.add(new Document("$project", project));
+        pipeline.add(new Document("$merge", new Document("into", mongoTemplate.getCollectionName(HistoryRollup.class))
+                .append("on", Arrays.asList("crop", "resolution", "bucket"))
+                .append("whenMatched", "merge")
+                .append("whenNotMatched", "insert")));
+
+        mongoTemplate.getCollection(mongoTemplate.getCollectionName(History.class))
+                .aggregate(pipeline)
+                .allowDiskUse(true)
+                .toCollection();
+    }
+
+    /**
+     * Identifica un bucket de resumen: cultivo, resolución e inicio del bucket.
+     */
+    private record BucketKey(ObjectId crop, RollupResolution resolution, Date bucket) {
+    }
+
+    /**
+     * Acumula en arreglos primitivos el mínimo, máximo, suma y conteo de cada medida de un bucket.
+     */
+    private static final class Accumulator {
+        private final double[] min = new double[Measure.VALUES.length];
+        private final double[] max = new double[Measure.VALUES.length];
+        private final double[] sum = new double[Measure.VALUES.length];
+        private final long[] count = new long[Measure.VALUES.length];
+        private long total;
+
+        private Accumulator() {
+            Arrays.fill(min, Double.POSITIVE_INFINITY);
+            Arrays.fill(max, Double.NEGATIVE_INFINITY);
+        }
+
+        private void add(History history) {
+            total++;
+            for (Measure measure : Measure.VALUES) {
+                Double value = measure.valueOf(history.getMeasures());
+                if (value == null) {
+                    continue;
+                }
+                int i = measure.ordinal();
+                min[i] = Math.min(min[i], value);
+                max[i] = Math.max(max[i], value);
+                sum[i] += value;
+                count[i]++;
+            }
+        }
+
+        private Update toUpdate() {
+            Update update = new Update().inc("count", total);
+            for (Measure measure : Measure.VALUES) {
+                int i = measure.ordinal();
+                if (count[i] == 0) {
+                    continue;
+                }
+                String field = measure.getField();
+                update.min(field + ".min", min[i])
+                        .max(field + ".max", max[i])
+                        .inc(field + ".sum", sum[i])
+                        .inc(field + ".count", count[i]);
+            }
+            return update;
+        }
+    }
+}
@@ -10,13 +10,16 @@ import org.springframework.stereotype.Repository;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface RecordRepository extends MongoRepository<History, ObjectId> {
+public interface RecordRepository extends MongoRepository<History, ObjectId>, RecordRepositoryCustom {
 
     @Query("{ 'crop' : ?0 }")
     List<History> getHistoriesByCrop(ObjectId cropId);
 
+    Optional<History> findByDedupKey(String dedupKey);
+
     List<History> getHistoriesByCropAndDateBetween(
             ObjectId cropId,
             @NotNull(message = "La fecha no puede estar vacía")
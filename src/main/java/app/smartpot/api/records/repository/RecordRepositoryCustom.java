@@ -0,0 +1,172 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.History;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Operaciones del repositorio de históricos que no pueden expresarse como consultas derivadas
+ * o anotadas con {@link org.springframework.data.mongodb.repository.Query}.
+ * <p>
+ * La implementación se resuelve automáticamente por Spring Data mediante {@link RecordRepositoryCustomImpl}.
+ * </p>
+ */
+public interface RecordRepositoryCustom {
+
+    /**
+     * Inserta los históricos en una única escritura masiva no ordenada.
+     * <p>
+     * Al no ser ordenada, un documento fallido no detiene la inserción del resto del lote.
+     * </p>
+     *
+     * @param histories Históricos a insertar, con su identificador ya asignado.
+     * @return Mapa con la posición dentro de la lista de cada documento rechazado y el motivo del rechazo.
+     * Vacío si todos los documentos fueron insertados.
+     */
+    Map<Integer, String> insertUnordered(List<History> histories);
+
+    /**
+     * Recorre todos los históricos mediante un cursor, sin cargarlos en memoria.
+     * La secuencia debe cerrarse para liberar el cursor.
+     *
+     * @return Secuencia de históricos respaldada por un cursor de MongoDB.
+     */
+    Stream<History> streamAll();
+
+    /**
+     * Recorre mediante un cursor los históricos de un cultivo ordenados por fecha.
+     * La secuencia debe cerrarse para liberar el cursor.
+     *
+     * @param cropId Identificador del cultivo.
+     * @return Secuencia de históricos respaldada por un cursor de MongoDB.
+     */
+    Stream<History> streamByCrop(ObjectId cropId);
+
+    /**
+     * Recorre mediante un cursor los históricos de un cultivo dentro de un rango de fechas, ordenados por fecha.
+     * La secuencia debe cerrarse para liberar el cursor.
+     *
+     * @param cropId    Identificador del cultivo.
+     * @param startDate Inicio del rango (exclusivo, igual que la consulta derivada {@code Between}).
+     * @param endDate   Fin del rango (exclusivo).
+     * @return Secuencia de históricos respaldada por un cursor de MongoDB.
+     */
+    Stream<History> streamByCropAndDateBetween(ObjectId cropId, Date startDate, Date endDate);
+
+    /**
+     * Obtiene los históricos de un cultivo en un tramo semiabierto {@code [from, until)}, ordenados por
+     * {@code (date, _id)}. Los tramos contiguos no se solapan, por lo que pueden consultarse en paralelo y
+     * concatenarse.
+     *
+     * @param cropId Identificador del cultivo.
+     * @param from   Inicio del tramo (inclusivo).
+     * @param until  Fin del tramo (exclusivo).
+     * @return Los históricos del tramo, en orden.
+     */
+    List<History> findSliceByCrop(ObjectId cropId, Date from, Date until);
+
+    /**
+     * Obtiene una página de históricos de un cultivo ordenados por {@code (date, _id)}, continuando
+     * estrictamente después de la posición indicada.
+     * <p>
+     * Se apoya en el índice {@code (crop, date, _id)}, por lo que el coste de cada página es el mismo
+     * sin importar cuántas páginas se hayan recorrido antes.
+     * </p>
+     *
+     * @param cropId    Identificador del cultivo.
+     * @param afterDate Fecha del último histórico de la página anterior, o {@code null} para la primera página.
+     * @param afterId   Identificador del último histórico de la página anterior, o {@code null} para la primera página.
+     * @param limit     Número máximo de históricos a devolver.
+     * @return Los históricos de la página, en orden.
+     */
+    List<History> findPageByCrop(ObjectId cropId, Date afterDate, ObjectId afterId, int limit);
+
+    /**
+     * Obtiene los históricos más recientes de un cultivo, del más nuevo al más antiguo.
+     * Recorre el índice {@code (crop, date, _id)} en sentido inverso.
+     *
+     * @param cropId Identificador del cultivo.
+     * @param limit  Número máximo de históricos a devolver.
+     * @return Los históricos más recientes.
+     */
+    List<History> findLatestByCrop(ObjectId cropId, int limit);
+
+    /**
+     * Obtiene en una sola consulta {@code $in} los históricos de varios cultivos, opcionalmente dentro de un
+     * rango de fechas, ordenados por cultivo y fecha.
+     *
+     * @param cropIds   Identificadores de los cultivos.
+     * @param startDate Inicio del rango (exclusivo), o {@code null} para no filtrar por fecha.
+     * @param endDate   Fin del rango (exclusivo), o {@code null} para no filtrar por fecha.
+     * @return Los históricos de todos los cultivos.
+     */
+    List<History> findByCropIn(Collection<ObjectId> cropIds, Date startDate, Date endDate);
+
+    /**
+     * Recorre mediante un cursor los históricos de varios cultivos con una sola consulta {@code $in}.
+     * La secuencia debe cerrarse para liberar el cursor.
+     *
+     * @param cropIds   Identificadores de los cultivos.
+     * @param startDate Inicio del rango (exclusivo), o {@code null} para no filtrar por fecha.
+     * @param endDate   Fin del rango (exclusivo), o {@code null} para no filtrar por fecha.
+     * @return Secuencia de históricos respaldada por un cursor de MongoDB.
+     */
+    Stream<History> streamByCropIn(Collection<ObjectId> cropIds, Date startDate, Date endDate);
+
+    /**
+     * Calcula en el servidor las estadísticas de cada medida de un cultivo en un rango de fechas.
+     * <p>
+     * El documento resultante tiene {@code count} (históricos del rango) y, por cada medida, los campos
+     * {@code <medida>_count}, {@code _min}, {@code _max}, {@code _avg}, {@code _std} y, si se piden,
+     * {@code _pct} con los percentiles 50, 90, 95 y 99 calculados con {@code $percentile} aproximado.
+     * </p>
+     *
+     * @param cropId      Identificador del cultivo.
+     * @param startDate   Inicio del rango (exclusivo).
+     * @param endDate     Fin del rango (exclusivo).
+     * @param percentiles Si se calculan percentiles; requiere MongoDB 7.0 o superior.
+     * @return El documento de estadísticas, o {@code null} si no hay históricos en el rango.
+     */
+    Document aggregateStats(ObjectId cropId, Date startDate, Date endDate, boolean percentiles);
+
+    /**
+     * Obtiene la fecha del histórico más antiguo de la colección. Se resuelve con una lectura por cultivo sobre
+     * el índice {@code (crop, date, _id)}, sin ordenar la colección completa.
+     *
+     * @return La fecha más antigua, o {@code null} si no hay históricos.
+     */
+    Date findOldestDate();
+
+    /**
+     * Obtiene los cultivos que tienen algún histórico. Se resuelve recorriendo solo el prefijo {@code crop}
+     * del índice {@code (crop, date, _id)}.
+     *
+     * @return Identificadores de los cultivos, sin repetir.
+     */
+    List<ObjectId> findDistinctCrops();
+
+    /**
+     * Obtiene los históricos más antiguos de un cultivo anteriores a una fecha, ordenados por {@code (date, _id)}.
+     * Se apoya en el índice {@code (crop, date, _id)}; pensado para recorrer y borrar por lotes.
+     *
+     * @param cropId Identificador del cultivo.
+     * @param before Fecha límite (exclusiva).
+     * @param limit  Número máximo de históricos a devolver.
+     * @return Los históricos del lote, en orden.
+     */
+    List<History> findOldestByCrop(ObjectId cropId, Date before, int limit);
+
+    /**
+     * Elimina en una sola operación los históricos indicados.
+     *
+     * @param ids Identificadores de los históricos.
+     * @return Número de históricos eliminados.
+     */
+    long deleteByIds(Collection<ObjectId> ids);
+}
@@ -0,0 +1,199 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measure;
+import com.mongodb.bulk.BulkWriteError;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.BulkOperationException;
+import org.springframework.data.mongodb.core.BulkOperations;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+/**
+ * Implementación de {@link RecordRepositoryCustom} basada en {@link MongoTemplate}.
+ */
+public class RecordRepositoryCustomImpl implements RecordRepositoryCustom {
+
+    /**
+     * Documentos que el cursor trae por cada viaje al servidor al recorrer resultados grandes.
+     */
+    private static final int CURSOR_BATCH_SIZE = 1000;
+
+    /**
+     * Percentiles calculados por {@link #aggregateStats}.
+     */
+    private static final List<Double> PERCENTILES = List.of(0.5, 0.9, 0.95, 0.99);
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public RecordRepositoryCustomImpl(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    @Override
+    public Map<Integer, String> insertUnordered(List<History> histories) {
+        Map<Integer, String> failures = new LinkedHashMap<>();
+        if (histories.isEmpty()) {
+            return failures;
+        }
+        try {
+            mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, History.class)
+                    .insert(histories)
+                    .execute();
+        } catch (BulkOperationException e) {
+            for (BulkWriteError error : e.getErrors()) {
+                failures.put(error.getIndex(), error.getMessage());
+            }
+        }
+        return failures;
+    }
+
+    @Override
+    public Stream<History> streamAll() {
+        return mongoTemplate.stream(new Query().cursorBatchSize(CURSOR_BATCH_SIZE), History.class);
+    }
+
+    @Override
+    public Stream<History> streamByCrop(ObjectId cropId) {
+        Query query = new Query(Criteria.where("crop").is(cropId))
+                .with(Sort.by(Sort.Direction.ASC, "date"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, History.class);
+    }
+
+    @Override
+    public Stream<History> streamByCropAndDateBetween(ObjectId cropId, Date startDate, Date endDate) {
+        Query query = new Query(Criteria.where("crop").is(cropId).and("date").gt(startDate).lt(endDate))
+                .with(Sort.by(Sort.Direction.ASC, "date"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.stream(query, History.class);
+    }
+
+    @Override
+    public List<History> findSliceByCrop(ObjectId cropId, Date from, Date until) {
+        Query query = new Query(Criteria.where("crop").is(cropId).and("date").gte(from).lt(until))
+                .with(Sort.by(Sort.Direction.ASC, "date", "_id"))
+                .cursorBatchSize(CURSOR_BATCH_SIZE);
+        return mongoTemplate.find(query, History.class);
+    }
+
+    @Override
+    public List<History> findPageByCrop(ObjectId cropId, Date afterDate, ObjectId afterId, int limit) {
+        Criteria criteria = Criteria.where("crop").is(cropId);
+        if (afterDate != null && afterId != null) {
+            criteria = criteria.orOperator(
+                    Criteria.where("date").gt(afterDate),
+                    Criteria.where("date").is(afterDate).and("_id").gt(afterId)
+            );
+        }
+        Query query = new Query(criteria)
+                .with(Sort.by(Sort.Direction.ASC, "date", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, History.class);
+    }
+
+    @Override
+    public List<History> findLatestByCrop(ObjectId cropId, int limit) {
+        Query query = new Query(Criteria.where("crop").is(cropId))
+                .with(Sort.by(Sort.Direction.DESC, "date", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, History.class);
+    }
+
+    @Override
+    public List<History> findByCropIn(Collection<ObjectId> cropIds, Date startDate, Date endDate) {
+        return mongoTemplate.find(cropInQuery(cropIds, startDate, endDate), History.class);
+    }
+
+    @Override
+    public Stream<History> streamByCropIn(Collection<ObjectId> cropIds, Date startDate, Date endDate) {
+        return mongoTemplate.stream(cropInQuery(cropIds, startDate, endDate).cursorBatchSize(CURSOR_BATCH_SIZE), History.class);
+    }
+
+    private static Query cropInQuery(Collection<ObjectId> cropIds, Date startDate, Date endDate) {
+        Criteria criteria = Criteria.where("crop").in(cropIds);
+        if (startDate != null && endDate != null) {
+            criteria = criteria.and("date").gt(startDate).lt(endDate);
+        }
+        return new Query(criteria).with(Sort.by(Sort.Direction.ASC, "crop", "date"));
+    }
+
+    @Override
+    public Document aggregateStats(ObjectId cropId, Date startDate, Date endDate, boolean percentiles) {
+        Document group = new Document("_id", null).append("count", new Document("$sum", 1));
+        for (Measure measure : Measure.VALUES) {
+            String field = measure.getField();
+            String value = "$" + measure.path();
+            group.append(field + "_count", new Document("$sum",
+                            new Document("$cond", Arrays.asList(new Document("$isNumber", value), 1, 0))))
+                    .append(field + "_min", new Document("$min", value))
+                    .append(field + "_max", new Document("$max", value))
+                    .append(field + "_avg", new Document("$avg", value))
+                    .append(field + "_std", new Document("$stdDevPop", value));
+            if (percentiles) {
+                group.append(field + "_pct", new Document("$percentile", new Document("input", value)
+                        .append("p", PERCENTILES)
+                        .append("method", "approximate")));
+            }
+        }
+
+        List<Document> pipeline = List.of(
+                new Document("$match", new Document("crop", cropId)
+                        .append("date", new Document("$gt", startDate).append("$lt", endDate))),
+                new Document("$group", group)
+        );
+        return mongoTemplate.getCollection(mongoTemplate.getCollectionName(History.class))
+                .aggregate(pipeline)
+                .first();
+    }
+
+    @Override
+    public Date findOldestDate() {
+        Date oldest = null;
+        for (ObjectId cropId : findDistinctCrops()) {
+            Query query = new Query(Criteria.where("crop").is(cropId))
+                    .with(Sort.by(Sort.Direction.ASC, "date"))
+                    .limit(1);
+            query.fields().include("date");
+            History first = mongoTemplate.findOne(query, History.class);
+            if (first != null && first.getDate() != null && (oldest == null || first.getDate().before(oldest))) {
+                oldest = first.getDate();
+            }
+        }
+        return oldest;
+    }
+
+    @Override
+    public List<ObjectId> findDistinctCrops() {
+        return mongoTemplate.findDistinct(new Query(), "crop", History.class, ObjectId.class);
+    }
+
+    @Override
+    public List<History> findOldestByCrop(ObjectId cropId, Date before, int limit) {
+        Query query = new Query(Criteria.where("crop").is(cropId).and("date").lt(before))
+                .with(Sort.by(Sort.Direction.ASC, "date", "_id"))
+                .limit(limit);
+        return mongoTemplate.find(query, History.class);
+    }
+
+    @Override
+    public long deleteByIds(Collection<ObjectId> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        return mongoTemplate.remove(new Query(Criteria.where("_id").in(ids)), History.class).getDeletedCount();
+    }
+}
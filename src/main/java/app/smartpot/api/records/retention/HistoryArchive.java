@@ -0,0 +1,85 @@
+package app.smartpot.api.records.retention;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.stream.NdjsonWriter;
+import org.bson.types.ObjectId;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Archivo NDJSON comprimido con gzip donde se guardan los históricos de un cultivo antes de eliminarlos.
+ * <p>
+ * Cada lote se comprime con un vaciado síncrono y se fuerza a disco antes de volver, de modo que un histórico
+ * solo se borra de MongoDB cuando ya está archivado. Si el proceso se detiene antes de {@link #close()}, el
+ * archivo queda sin el cierre de gzip pero todos los lotes escritos se pueden recuperar (por ejemplo, con
+ * {@code zcat}, que avisa del final inesperado tras volcar los datos).
+ * </p>
+ */
+final class HistoryArchive implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final FileChannel channel;
+    private final GZIPOutputStream gzip;
+    private final Path path;
+    private final NdjsonWriter writer;
+
+    private HistoryArchive(Path path, NdjsonWriter writer) throws IOException {
+        this.path = path;
+        this.writer = writer;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        OutputStream out = Channels.newOutputStream(channel);
+        this.gzip = new GZIPOutputStream(out, BUFFER_SIZE, true);
+    }
+
+    /**
+     * Crea un archivo nuevo para un cultivo en {@code <directorio>/<cultivo>/registros-<marca>.ndjson.gz}.
+     *
+     * @param directory Directorio base de los archivos.
+     * @param cropId    Cultivo cuyos históricos se archivan.
+     * @param runMillis Marca de tiempo de la ejecución, para no sobrescribir archivos anteriores.
+     * @param writer    Escritor NDJSON con el que se serializan los lotes.
+     * @return El archivo abierto.
+     * @throws IOException Si no se puede crear.
+     */
+    static HistoryArchive open(Path directory, ObjectId cropId, long runMillis, NdjsonWriter writer) throws IOException {
+        Path cropDirectory = Files.createDirectories(directory.resolve(cropId.toHexString()));
+        return new HistoryArchive(cropDirectory.resolve("registros-" + runMillis + ".ndjson.gz"), writer);
+    }
+
+    /**
+     * Añade un lote de históricos y lo fuerza a disco.
+     *
+     * @param histories Históricos a archivar.
+     * @throws IOException Si falla la escritura.
+     */
+    void append(List<History> histories) throws IOException {
+        writer.write(histories.stream(), gzip);
+        gzip.flush();
+        channel.force(false);
+    }
+
+    Path getPath() {
+        return path;
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            gzip.finish();
+            gzip.flush();
+            channel.force(true);
+        } finally {
+            gzip.close();
+        }
+    }
+}
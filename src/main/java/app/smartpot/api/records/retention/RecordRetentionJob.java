@@ -0,0 +1,255 @@
+package app.smartpot.api.records.retention;
+
+import app.smartpot.api.records.admission.IngestionAdmissionFilter;
+import app.smartpot.api.records.cache.HistoryBucketCache;
+import app.smartpot.api.records.model.entity.DateRange;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import app.smartpot.api.records.repository.HistoryRollupRepository;
+import app.smartpot.api.records.repository.RecordRepository;
+import app.smartpot.api.records.service.RecordRollupService;
+import app.smartpot.api.records.stream.NdjsonWriter;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tarea periódica de retención de {@code registros}.
+ * <p>
+ * En cada ejecución:
+ * </p>
+ * <ol>
+ *     <li>Compacta: recalcula, día a día, los resúmenes horarios y diarios de los días que van a expirar, desde
+ *     el último punto de control hasta el corte, para que reflejen todas las lecturas antes de borrarlas. El punto
+ *     de control se guarda en MongoDB tras cada día y evita recalcular días ya parcialmente borrados. Cada
+ *     ejecución compacta como mucho {@code compaction-days} días, de modo que la primera, sin punto de control,
+ *     no recalcula de una vez todo el histórico.</li>
+ *     <li>Purga los históricos anteriores al día compactado más reciente (como mucho, el corte), cultivo por
+ *     cultivo y en lotes ordenados por el índice
+ *     {@code (crop, date, _id)}. Si el archivado está activo, cada lote se escribe en un NDJSON comprimido y se
+ *     fuerza a disco antes de borrarlo. Tras borrarlo se invalidan sus buckets en la caché de históricos.</li>
+ *     <li>Elimina los resúmenes horarios y diarios que superan su propia retención.</li>
+ * </ol>
+ * <p>
+ * Para no competir con el tráfico, entre lotes se hace una pausa y, mientras la ingesta use más de la fracción
+ * configurada de su límite de concurrencia, la purga espera. Cada ejecución tiene una duración máxima; lo que
+ * quede pendiente se retoma en la siguiente. La tarea corre en un hilo propio para no ocupar el planificador
+ * compartido con el resto de tareas periódicas; si al dispararse sigue en curso la ejecución anterior, se omite.
+ * </p>
+ */
+@Slf4j
+@Component
+public class RecordRetentionJob {
+
+    private final RecordRepository recordRepository;
+    private final HistoryRollupRepository rollupRepository;
+    private final RecordRollupService rollupService;
+    private final IngestionAdmissionFilter admissionFilter;
+    private final RetentionCheckpoint checkpoint;
+    private final HistoryBucketCache bucketCache;
+    private final NdjsonWriter ndjsonWriter;
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${records.retention.enabled}")
+    private boolean enabled;
+
+    @Value("${records.retention.raw-days}")
+    private long rawDays;
+
+    @Value("${records.retention.hourly-days}")
+    private long hourlyDays;
+
+    @Value("${records.retention.daily-days}")
+    private long dailyDays;
+
+    @Value("${records.retention.archive.enabled}")
+    private boolean archiveEnabled;
+
+    @Value("${records.retention.archive.directory}")
+    private String archiveDirectory;
+
+    @Value("${records.retention.batch-size}")
+    private int batchSize;
+
+    @Value("${records.retention.pause}")
+    private long pauseMillis;
+
+    @Value("${records.retention.max-load}")
+    private double maxLoad;
+
+    @Value("${records.retention.max-duration}")
+    private long maxDurationMinutes;
+
+    @Value("${records.retention.compaction-days}")
+    private int compactionDays;
+
+    @Autowired
+    public RecordRetentionJob(RecordRepository recordRepository, HistoryRollupRepository rollupRepository,
+                              RecordRollupService rollupService, IngestionAdmissionFilter admissionFilter,
+                              RetentionCheckpoint checkpoint, HistoryBucketCache bucketCache, NdjsonWriter ndjsonWriter) {
+        this.recordRepository = recordRepository;
+        this.rollupRepository = rollupRepository;
+        this.rollupService = rollupService;
+        this.admissionFilter = admissionFilter;
+        this.checkpoint = checkpoint;
+        this.bucketCache = bucketCache;
+        this.ndjsonWriter = ndjsonWriter;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(0);
+        executor.setThreadNamePrefix("Records-Retention-");
+        executor.initialize();
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdown();
+    }
+
+    @Scheduled(cron = "${records.retention.cron}")
+    public void run() {
+        if (!enabled || rawDays <= 0) {
+            return;
+        }
+        try {
+            executor.execute(this::retain);
+        } catch (TaskRejectedException e) {
+            log.warn("La retención de históricos anterior sigue en curso; se omite esta ejecución");
+        }
+    }
+
+    private void retain() {
+        Instant now = Instant.now();
+        Date cutoff = RollupResolution.DAY.truncate(Date.from(now.minus(Duration.ofDays(rawDays))));
+        long deadline = System.nanoTime() + TimeUnit.MINUTES.toNanos(maxDurationMinutes);
+        try {
+            Date compacted = compact(cutoff, deadline);
+            long deleted = purgeHistories(compacted, now.toEpochMilli(), deadline);
+            purgeRollups(now);
+            log.info("Retención de históricos completada: {} históricos anteriores a {} eliminados", deleted, compacted);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            log.warn("Retención de históricos interrumpida");
+        } catch (Exception e) {
+            log.error("Falló la retención de históricos, se reintentará en la siguiente ejecución: ", e);
+        }
+    }
+
+    /**
+     * Recalcula los resúmenes día a día desde el punto de control hacia el corte, avanzando el punto de control.
+     *
+     * @return Fecha hasta la que los resúmenes están compactados; solo los históricos anteriores pueden borrarse.
+     */
+    private Date compact(Date cutoff, long deadline) {
+        Date from = checkpoint.getCompactedThrough();
+        if (from == null) {
+            from = recordRepository.findOldestDate();
+            if (from == null) {
+                checkpoint.setCompactedThrough(cutoff);
+                return cutoff;
+            }
+            from = RollupResolution.DAY.truncate(from);
+        }
+        Date start = from;
+        for (int days = 0; from.before(cutoff) && days < compactionDays && System.nanoTime() < deadline; days++) {
+            Date to = new Date(Math.min(from.getTime() + TimeUnit.DAYS.toMillis(1), cutoff.getTime()));
+            DateRange ranges = new DateRange();
+            ranges.setStartDate(from);
+            ranges.setEndDate(new Date(to.getTime() - 1));
+            rollupService.rebuild(ranges);
+            checkpoint.setCompactedThrough(to);
+            from = to;
+        }
+        if (from.after(start)) {
+            log.info("Resúmenes compactados desde {} hasta {}", start, from);
+        }
+        if (from.before(cutoff)) {
+            log.info("Compactación pendiente desde {} hasta {}; se retomará en la siguiente ejecución", from, cutoff);
+            return from;
+        }
+        return cutoff;
+    }
+
+    private long purgeHistories(Date cutoff, long runMillis, long deadline) throws IOException, InterruptedException {
+        long deleted = 0;
+        for (ObjectId cropId : recordRepository.findDistinctCrops()) {
+            HistoryArchive archive = null;
+            try {
+                while (true) {
+                    if (System.nanoTime() > deadline) {
+                        log.info("Retención de históricos pausada por duración máxima; se retomará en la siguiente ejecución");
+                        return deleted;
+                    }
+                    List<History> batch = recordRepository.findOldestByCrop(cropId, cutoff, batchSize);
+                    if (batch.isEmpty()) {
+                        break;
+                    }
+                    if (archiveEnabled) {
+                        if (archive == null) {
+                            archive = HistoryArchive.open(Path.of(archiveDirectory), cropId, runMillis, ndjsonWriter);
+                        }
+                        archive.append(batch);
+                    }
+                    List<ObjectId> ids = new ArrayList<>(batch.size());
+                    for (History history : batch) {
+                        ids.add(history.getId());
+                    }
+                    long removed = recordRepository.deleteByIds(ids);
+                    if (removed == 0) {
+                        throw new IllegalStateException("No se pudo eliminar ningún histórico del cultivo " + cropId);
+                    }
+                    deleted += removed;
+                    bucketCache.evictAll(batch);
+                    throttle(deadline);
+                }
+            } finally {
+                if (archive != null) {
+                    archive.close();
+                    log.info("Históricos del cultivo {} archivados en {}", cropId, archive.getPath());
+                }
+            }
+        }
+        return deleted;
+    }
+
+    private void purgeRollups(Instant now) {
+        if (hourlyDays > 0) {
+            rollupRepository.deleteByResolutionAndBucketBefore(RollupResolution.HOUR.name(),
+                    Date.from(now.minus(Duration.ofDays(hourlyDays))));
+        }
+        if (dailyDays > 0) {
+            rollupRepository.deleteByResolutionAndBucketBefore(RollupResolution.DAY.name(),
+                    Date.from(now.minus(Duration.ofDays(dailyDays))));
+        }
+    }
+
+    /**
+     * Pausa entre lotes y espera mientras la ingesta esté por encima de la carga máxima.
+     */
+    private void throttle(long deadline) throws InterruptedException {
+        do {
+            Thread.sleep(pauseMillis);
+        } while (admissionFilter.getUtilization() >= maxLoad && System.nanoTime() < deadline);
+    }
+}
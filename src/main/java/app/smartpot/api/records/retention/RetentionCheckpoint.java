@@ -0,0 +1,51 @@
+package app.smartpot.api.records.retention;
+
+import org.bson.Document;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Component;
+
+import java.util.Date;
+
+/**
+ * Punto de control de la retención de {@code registros}, guardado en la colección {@code retencion}.
+ * <p>
+ * Indica la fecha hasta la que los resúmenes están compactados. Los históricos anteriores pueden haberse
+ * borrado ya, de modo que los resúmenes de ese tramo son la única copia de sus lecturas y no deben recalcularse.
+ * </p>
+ */
+@Component
+public class RetentionCheckpoint {
+
+    private static final String COLLECTION = "retencion";
+    private static final String ID = "registros";
+    private static final String FIELD = "compactedThrough";
+
+    private final MongoTemplate mongoTemplate;
+
+    @Autowired
+    public RetentionCheckpoint(MongoTemplate mongoTemplate) {
+        this.mongoTemplate = mongoTemplate;
+    }
+
+    /**
+     * @return Fecha hasta la que los resúmenes están compactados, o {@code null} si aún no se ha compactado nada.
+     */
+    public Date getCompactedThrough() {
+        Document checkpoint = mongoTemplate.findById(ID, Document.class, COLLECTION);
+        return checkpoint != null ? checkpoint.getDate(FIELD) : null;
+    }
+
+    /**
+     * Registra la fecha hasta la que los resúmenes están compactados.
+     *
+     * @param compactedThrough Fecha del punto de control.
+     */
+    public void setCompactedThrough(Date compactedThrough) {
+        mongoTemplate.upsert(new Query(Criteria.where("_id").is(ID)),
+                new Update().set(FIELD, compactedThrough), COLLECTION);
+    }
+}
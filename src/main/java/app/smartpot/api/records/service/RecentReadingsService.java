@@ -0,0 +1,14 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.records.model.entity.History;
+import org.bson.types.ObjectId;
+
+import java.util.List;
+
+public interface RecentReadingsService {
+    History getLatest(String cropId) throws Exception;
+
+    List<History> getRecent(String cropId, int limit) throws Exception;
+
+    void evict(ObjectId cropId);
+}
@@ -0,0 +1,146 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.crops.service.CropService;
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.recent.RecentReadingsBuffer;
+import app.smartpot.api.records.repository.RecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Servicio que mantiene en memoria las lecturas más recientes de cada cultivo.
+ * <p>
+ * El búfer de un cultivo se carga desde MongoDB la primera vez que se consulta y a partir de ahí se alimenta
+ * con cada ingesta, de modo que las consultas de últimas lecturas no acceden a la base de datos. Cuando se
+ * alcanza el número máximo de cultivos en memoria, los cultivos nuevos se consultan directamente en MongoDB.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RecentReadingsServiceImpl implements RecentReadingsService {
+
+    private final RecordRepository recordRepository;
+    private final CropService cropService;
+    private final Map<ObjectId, RecentReadingsBuffer> buffers = new ConcurrentHashMap<>();
+
+    @Value("${records.recent.capacity}")
+    private int capacity;
+
+    @Value("${records.recent.max-crops}")
+    private int maxCrops;
+
+    @Autowired
+    public RecentReadingsServiceImpl(RecordRepository recordRepository, CropService cropService) {
+        this.recordRepository = recordRepository;
+        this.cropService = cropService;
+    }
+
+    /**
+     * Añade los históricos recién persistidos a los búferes de los cultivos ya cargados.
+     * Si el búfer de un cultivo se está cargando, la actualización espera a que termine la carga;
+     * las lecturas que la carga ya incluyó se ignoran al estar repetidas.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        for (History history : event.histories()) {
+            if (history.getCrop() == null || history.getId() == null || history.getDate() == null) {
+                continue;
+            }
+            buffers.computeIfPresent(history.getCrop(), (crop, buffer) -> {
+                buffer.add(history);
+                return buffer;
+            });
+        }
+    }
+
+    /**
+     * Obtiene la lectura más reciente de un cultivo.
+     *
+     * @param cropId El ID del cultivo.
+     * @return La lectura más reciente.
+     * @throws Exception Si el cultivo no existe o no tiene lecturas.
+     */
+    @Override
+    public History getLatest(String cropId) throws Exception {
+        List<History> latest = getRecent(cropId, 1);
+        if (latest.isEmpty()) {
+            throw new ApiException(new ApiResponse(
+                    "El cultivo con id '" + cropId + "' no tiene registros.",
+                    HttpStatus.NOT_FOUND.value()
+            ));
+        }
+        return latest.get(0);
+    }
+
+    /**
+     * Obtiene las últimas lecturas de un cultivo, de la más nueva a la más antigua.
+     *
+     * @param cropId El ID del cultivo.
+     * @param limit  Número de lecturas, entre 1 y la capacidad del búfer.
+     * @return Hasta {@code limit} lecturas.
+     * @throws Exception Si el ID no es válido, el cultivo no existe o el límite está fuera de rango.
+     */
+    @Override
+    public List<History> getRecent(String cropId, int limit) throws Exception {
+        if (!ObjectId.isValid(cropId)) {
+            throw new ApiException(new ApiResponse(
+                    "El id '" + cropId + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        if (limit < 1 || limit > capacity) {
+            throw new ApiException(new ApiResponse(
+                    "El número de registros debe estar entre 1 y " + capacity,
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+
+        ObjectId crop = new ObjectId(cropId);
+        RecentReadingsBuffer buffer = buffers.get(crop);
+        if (buffer == null) {
+            cropService.getCropById(cropId);
+            if (buffers.size() >= maxCrops) {
+                return recordRepository.findLatestByCrop(crop, limit);
+            }
+            buffer = buffers.computeIfAbsent(crop, this::load);
+        }
+        return buffer.latest(limit);
+    }
+
+    /**
+     * Descarta el búfer de un cultivo, para que se recargue en la siguiente consulta.
+     * Se usa cuando un histórico se modifica o elimina.
+     *
+     * @param cropId El ID del cultivo.
+     */
+    @Override
+    public void evict(ObjectId cropId) {
+        if (cropId != null) {
+            buffers.remove(cropId);
+        }
+    }
+
+    private RecentReadingsBuffer load(ObjectId crop) {
+        RecentReadingsBuffer buffer = new RecentReadingsBuffer(crop, capacity);
+        List<History> latest = recordRepository.findLatestByCrop(crop, capacity);
+        for (int i = latest.size() - 1; i >= 0; i--) {
+            buffer.add(latest.get(i));
+        }
+        log.debug("Cargadas {} lecturas recientes del cultivo {}", latest.size(), crop);
+        return buffer;
+    }
+}
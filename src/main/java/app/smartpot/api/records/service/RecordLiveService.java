@@ -0,0 +1,9 @@
+package app.smartpot.api.records.service;
+
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+public interface RecordLiveService {
+    SseEmitter subscribeToCrop(String cropId) throws Exception;
+
+    SseEmitter subscribeToUser(String userId) throws Exception;
+}
@@ -0,0 +1,219 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.crops.model.dto.CropDTO;
+import app.smartpot.api.crops.service.CropService;
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.live.LiveReading;
+import app.smartpot.api.records.live.LiveSubscriber;
+import app.smartpot.api.records.model.entity.History;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.core.JacksonException;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicio que difunde las lecturas recién persistidas a los clientes suscritos mediante Server-Sent Events.
+ * <p>
+ * Cada lectura se serializa una sola vez y se reparte a los suscriptores del cultivo a través de sus búferes
+ * acotados; los envíos se realizan en un ejecutor compartido, por lo que un cliente lento no retrasa la ingesta
+ * ni al resto de suscriptores. Un suscriptor por usuario queda registrado en todos los cultivos del usuario.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RecordLiveServiceImpl implements RecordLiveService {
+
+    private final CropService cropService;
+    private final JsonMapper jsonMapper;
+    private final Map<ObjectId, Set<LiveSubscriber>> subscribers = new ConcurrentHashMap<>();
+    private final AtomicInteger connections = new AtomicInteger();
+    private ThreadPoolTaskExecutor executor;
+
+    @Value("${records.live.buffer-size}")
+    private int bufferSize;
+
+    @Value("${records.live.max-dropped}")
+    private long maxDropped;
+
+    @Value("${records.live.max-subscribers}")
+    private int maxSubscribers;
+
+    @Value("${records.live.timeout}")
+    private long timeout;
+
+    @Value("${records.live.dispatch-threads}")
+    private int dispatchThreads;
+
+    @Autowired
+    public RecordLiveServiceImpl(CropService cropService, JsonMapper jsonMapper) {
+        this.cropService = cropService;
+        this.jsonMapper = jsonMapper;
+    }
+
+    @PostConstruct
+    public void start() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(dispatchThreads);
+        executor.setMaxPoolSize(dispatchThreads);
+        executor.setThreadNamePrefix("Live-Records-");
+        executor.initialize();
+    }
+
+    /**
+     * Cierra las conexiones abiertas y detiene el ejecutor de envíos.
+     */
+    @PreDestroy
+    public void stop() {
+        subscribers.values().forEach(set -> set.forEach(LiveSubscriber::close));
+        executor.shutdown();
+    }
+
+    /**
+     * Suscribe al cliente a las lecturas de un cultivo.
+     *
+     * @param cropId El ID del cultivo.
+     * @return La conexión SSE del cliente.
+     * @throws Exception Si el cultivo no existe o se alcanzó el máximo de suscriptores.
+     */
+    @Override
+    public SseEmitter subscribeToCrop(String cropId) throws Exception {
+        CropDTO crop = cropService.getCropById(cropId);
+        return subscribe(Set.of(new ObjectId(crop.getId())));
+    }
+
+    /**
+     * Suscribe al cliente a las lecturas de todos los cultivos de un usuario.
+     * Los cultivos se resuelven al suscribirse.
+     *
+     * @param userId El ID del usuario.
+     * @return La conexión SSE del cliente.
+     * @throws Exception Si el usuario no existe, no tiene cultivos o se alcanzó el máximo de suscriptores.
+     */
+    @Override
+    public SseEmitter subscribeToUser(String userId) throws Exception {
+        List<CropDTO> crops = cropService.getCropsByUser(userId);
+        Set<ObjectId> cropIds = new HashSet<>(crops.size() * 2);
+        for (CropDTO crop : crops) {
+            cropIds.add(new ObjectId(crop.getId()));
+        }
+        return subscribe(cropIds);
+    }
+
+    /**
+     * Difunde los históricos recién persistidos a los suscriptores de sus cultivos.
+     * Solo se encolan las lecturas: el envío ocurre en el ejecutor compartido.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (History history : event.histories()) {
+            Set<LiveSubscriber> cropSubscribers = subscribers.get(history.getCrop());
+            if (cropSubscribers == null || cropSubscribers.isEmpty()) {
+                continue;
+            }
+            LiveReading reading = serialize(history);
+            if (reading == null) {
+                continue;
+            }
+            for (LiveSubscriber subscriber : cropSubscribers) {
+                subscriber.offer(reading, executor);
+                if (subscriber.isClosed()) {
+                    log.debug("Suscriptor lento desconectado tras descartar {} lecturas", subscriber.getDropped());
+                    unsubscribe(subscriber);
+                }
+            }
+        }
+    }
+
+    /**
+     * Envía un latido a cada suscriptor para mantener las conexiones y liberar las que ya no responden.
+     */
+    @Scheduled(fixedDelayString = "${records.live.heartbeat}")
+    public void heartbeat() {
+        Set<LiveSubscriber> all = new HashSet<>();
+        subscribers.values().forEach(all::addAll);
+        for (LiveSubscriber subscriber : all) {
+            if (!subscriber.isClosed()) {
+                executor.execute(subscriber::heartbeat);
+            }
+        }
+    }
+
+    private SseEmitter subscribe(Set<ObjectId> crops) {
+        if (connections.incrementAndGet() > maxSubscribers) {
+            connections.decrementAndGet();
+            throw new ApiException(new ApiResponse(
+                    "Se alcanzó el máximo de " + maxSubscribers + " suscriptores en vivo",
+                    HttpStatus.SERVICE_UNAVAILABLE.value()
+            ));
+        }
+
+        SseEmitter emitter = new SseEmitter(timeout);
+        LiveSubscriber subscriber = new LiveSubscriber(emitter, crops, bufferSize, maxDropped);
+        Runnable unsubscribe = () -> unsubscribe(subscriber);
+        emitter.onCompletion(unsubscribe);
+        emitter.onTimeout(unsubscribe);
+        emitter.onError(error -> unsubscribe.run());
+
+        for (ObjectId crop : crops) {
+            subscribers.compute(crop, (key, set) -> {
+                Set<LiveSubscriber> cropSubscribers = set != null ? set : ConcurrentHashMap.newKeySet();
+                cropSubscribers.add(subscriber);
+                return cropSubscribers;
+            });
+        }
+        return emitter;
+    }
+
+    private void unsubscribe(LiveSubscriber subscriber) {
+        AtomicBoolean removed = new AtomicBoolean();
+        for (ObjectId crop : subscriber.getCrops()) {
+            subscribers.computeIfPresent(crop, (key, set) -> {
+                if (set.remove(subscriber)) {
+                    removed.set(true);
+                }
+                return set.isEmpty() ? null : set;
+            });
+        }
+        if (removed.get()) {
+            connections.decrementAndGet();
+        }
+        subscriber.close();
+    }
+
+    private LiveReading serialize(History history) {
+        try {
+            return new LiveReading(
+                    history.getId() != null ? history.getId().toHexString() : null,
+                    jsonMapper.writeValueAsString(history)
+            );
+        } catch (JacksonException e) {
+            log.warn("No se pudo serializar el histórico {} para los suscriptores en vivo: {}", history.getId(), e.getMessage());
+            return null;
+        }
+    }
+}
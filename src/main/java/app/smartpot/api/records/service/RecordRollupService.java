@@ -0,0 +1,12 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.records.model.entity.DateRange;
+import app.smartpot.api.records.model.entity.HistoryRollup;
+
+import java.util.List;
+
+public interface RecordRollupService {
+    List<HistoryRollup> getRollups(String cropId, DateRange ranges);
+
+    void rebuild(DateRange ranges);
+}
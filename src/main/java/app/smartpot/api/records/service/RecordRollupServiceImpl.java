@@ -0,0 +1,163 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.DateRange;
+import app.smartpot.api.records.model.entity.HistoryRollup;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import app.smartpot.api.records.repository.HistoryRollupRepository;
+import app.smartpot.api.records.retention.RetentionCheckpoint;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Servicio que mantiene y consulta los resúmenes horarios y diarios de las medidas de cada cultivo.
+ * <p>
+ * Los resúmenes se actualizan de forma incremental con cada ingesta y se reparan periódicamente
+ * recalculando una ventana reciente a partir de la colección de históricos.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RecordRollupServiceImpl implements RecordRollupService {
+
+    private final HistoryRollupRepository rollupRepository;
+    private final RetentionCheckpoint retentionCheckpoint;
+
+    @Value("${records.rollups.enabled}")
+    private boolean enabled;
+
+    @Value("${records.rollups.max-points}")
+    private long maxPoints;
+
+    @Value("${records.rollups.backfill-window}")
+    private long backfillWindowHours;
+
+    @Autowired
+    public RecordRollupServiceImpl(HistoryRollupRepository rollupRepository, RetentionCheckpoint retentionCheckpoint) {
+        this.rollupRepository = rollupRepository;
+        this.retentionCheckpoint = retentionCheckpoint;
+    }
+
+    /**
+     * Incorpora los históricos recién persistidos a los resúmenes.
+     * Un fallo aquí no afecta a la ingesta: el resumen se corrige en la siguiente reparación.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        if (!enabled || event.histories().isEmpty()) {
+            return;
+        }
+        try {
+            rollupRepository.accumulate(event.histories());
+        } catch (Exception e) {
+            log.warn("No se pudieron actualizar los resúmenes de {} registros: {}", event.histories().size(), e.getMessage());
+        }
+    }
+
+    /**
+     * Obtiene los resúmenes de un cultivo para un rango de fechas.
+     * Se usa la resolución más gruesa que mantenga el número de puntos por debajo del máximo configurado,
+     * de modo que el tamaño de la respuesta no crece con la cantidad de lecturas.
+     *
+     * @param cropId El ID del cultivo.
+     * @param ranges Rango de fechas a consultar.
+     * @return Los resúmenes del rango, ordenados por bucket.
+     */
+    @Override
+    public List<HistoryRollup> getRollups(String cropId, DateRange ranges) {
+        if (!ObjectId.isValid(cropId)) {
+            throw new ApiException(new ApiResponse(
+                    "El id '" + cropId + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        validateRange(ranges);
+
+        RollupResolution resolution = RollupResolution.forRange(ranges.getStartDate(), ranges.getEndDate(), maxPoints);
+        return rollupRepository.findByCropAndResolutionAndBucketBetween(
+                new ObjectId(cropId),
+                resolution.name(),
+                resolution.truncate(ranges.getStartDate()),
+                ranges.getEndDate()
+        );
+    }
+
+    /**
+     * Recalcula todos los resúmenes de un rango de fechas a partir de los históricos.
+     * El tramo ya compactado por la retención se excluye: sus históricos pueden haberse borrado y los
+     * resúmenes son la única copia de esas lecturas.
+     *
+     * @param ranges Rango de fechas a reparar.
+     * @throws ApiException Si el rango no es válido o está completamente compactado.
+     */
+    @Override
+    public void rebuild(DateRange ranges) {
+        validateRange(ranges);
+        Date from = ranges.getStartDate();
+        Date compactedThrough = retentionCheckpoint.getCompactedThrough();
+        if (compactedThrough != null && from.before(compactedThrough)) {
+            if (!ranges.getEndDate().after(compactedThrough)) {
+                throw new ApiException(new ApiResponse(
+                        "El rango ya está compactado hasta " + compactedThrough.toInstant() + " y sus resúmenes no pueden recalcularse",
+                        HttpStatus.BAD_REQUEST.value()
+                ));
+            }
+            from = compactedThrough;
+        }
+        for (RollupResolution resolution : RollupResolution.values()) {
+            Date start = resolution.truncate(from);
+            Date end = Date.from(resolution.truncate(ranges.getEndDate()).toInstant().plus(resolution.duration()));
+            rollupRepository.rebuild(resolution, start, end);
+        }
+    }
+
+    /**
+     * Repara periódicamente la ventana reciente de resúmenes, corrigiendo actualizaciones perdidas
+     * o históricos modificados y eliminados.
+     */
+    @Scheduled(cron = "${records.rollups.backfill-cron}")
+    public void repairRecent() {
+        if (!enabled) {
+            return;
+        }
+        DateRange ranges = new DateRange();
+        ranges.setEndDate(new Date());
+        ranges.setStartDate(Date.from(Instant.now().minus(Duration.ofHours(backfillWindowHours))));
+        try {
+            rebuild(ranges);
+            log.info("Resúmenes reparados para las últimas {} horas", backfillWindowHours);
+        } catch (Exception e) {
+            log.error("No se pudieron reparar los resúmenes: ", e);
+        }
+    }
+
+    private void validateRange(DateRange ranges) {
+        if (ranges == null || ranges.getEndDate() == null || ranges.getStartDate() == null) {
+            throw new ApiException(new ApiResponse(
+                    "Los rangos de fechas no están definidos",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        if (ranges.getStartDate().after(ranges.getEndDate())) {
+            throw new ApiException(new ApiResponse(
+                    "La fecha de inicio debe ser anterior a la fecha de fin",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+    }
+}
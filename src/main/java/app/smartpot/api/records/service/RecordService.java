@@ -2,12 +2,17 @@ package app.smartpot.api.records.service;
 
 import app.smartpot.api.exception.ApiResponse;
 import app.smartpot.api.records.model.dto.CropRecordDTO;
+import app.smartpot.api.records.model.dto.HistoryPageDTO;
+import app.smartpot.api.records.model.dto.NumericRecordDTO;
+import app.smartpot.api.records.model.dto.RecordBatchResultDTO;
 import app.smartpot.api.records.model.dto.RecordDTO;
 import app.smartpot.api.records.model.entity.DateRange;
 import app.smartpot.api.records.model.entity.History;
 import org.springframework.http.ResponseEntity;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Stream;
 
 public interface RecordService {
     List<History> getAllHistories();
@@ -18,9 +23,29 @@ public interface RecordService {
 
     List<History> getHistoriesByCropAndDateBetween(String cropId, DateRange ranges);
 
+    HistoryPageDTO getPageByCrop(String cropId, String token, int size) throws Exception;
+
     List<CropRecordDTO> getByUser(String id) throws Exception;
 
-    History Createhistory(RecordDTO recordDTO) throws Exception;
+    List<CropRecordDTO> getByUser(String id, DateRange ranges) throws Exception;
+
+    Stream<CropRecordDTO> streamByUser(String id, DateRange ranges) throws Exception;
+
+    Stream<History> streamAllHistories();
+
+    Stream<History> streamByCrop(String cropId) throws Exception;
+
+    Stream<History> streamHistoriesByCropAndDateBetween(String cropId, DateRange ranges);
+
+    CompletableFuture<History> Createhistory(RecordDTO recordDTO, String idempotencyKey) throws Exception;
+
+    RecordBatchResultDTO createHistories(List<RecordDTO> records);
+
+    CompletableFuture<History> createNumericHistory(NumericRecordDTO recordDTO, String idempotencyKey) throws Exception;
+
+    RecordBatchResultDTO createNumericHistories(List<NumericRecordDTO> records);
+
+    RecordBatchResultDTO ingestHistories(List<History> histories);
 
     History updatedHistory(History existingHistory, RecordDTO updateHistory);
 
@@ -4,24 +4,48 @@ import app.smartpot.api.crops.model.dto.CropDTO;
 import app.smartpot.api.crops.service.CropService;
 import app.smartpot.api.exception.ApiException;
 import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.cache.HistoryBucketCache;
+import app.smartpot.api.records.dedup.RecordDeduplicator;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.ingest.HistoryWriteBehind;
 import app.smartpot.api.records.mapper.RecordMapper;
 import app.smartpot.api.records.model.dto.CropRecordDTO;
+import app.smartpot.api.records.model.dto.HistoryPageDTO;
+import app.smartpot.api.records.model.dto.HistoryPageToken;
 import app.smartpot.api.records.model.dto.MeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericMeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericRecordDTO;
+import app.smartpot.api.records.model.dto.RecordBatchItemDTO;
+import app.smartpot.api.records.model.dto.RecordBatchResultDTO;
 import app.smartpot.api.records.model.dto.RecordDTO;
 import app.smartpot.api.records.model.entity.DateRange;
 import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.query.ParallelRangeReader;
+import app.smartpot.api.records.model.entity.Measures;
 import app.smartpot.api.records.repository.RecordRepository;
+import app.smartpot.api.records.validator.MeasureErrors;
+import app.smartpot.api.records.validator.MeasuresValidator;
+import app.smartpot.api.records.wal.HistoryWriteAheadLog;
 import lombok.Builder;
 import lombok.Data;
 import lombok.extern.slf4j.Slf4j;
 import org.bson.types.ObjectId;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import java.util.stream.Stream;
 
 @Slf4j
 @Data
@@ -29,138 +53,83 @@ import java.util.List;
 @Service
 public class RecordServiceImpl implements RecordService {
 
+    private static final String DUPLICATE_KEY = "E11000";
+
     private final RecordRepository recordRepository;
     private final CropService cropService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final MeasuresValidator measuresValidator;
+    private final RecentReadingsService recentReadingsService;
+    private final HistoryWriteBehind writeBehind;
+    private final HistoryWriteAheadLog writeAheadLog;
+    private final RecordDeduplicator deduplicator;
+    private final ParallelRangeReader rangeReader;
+    private final HistoryBucketCache bucketCache;
+    private final RecordTrendService recordTrendService;
 
     @Autowired
-    public RecordServiceImpl(RecordRepository recordRepository, CropService cropService) {
+    public RecordServiceImpl(RecordRepository recordRepository, CropService cropService, ApplicationEventPublisher eventPublisher,
+                             MeasuresValidator measuresValidator, RecentReadingsService recentReadingsService,
+                             HistoryWriteBehind writeBehind, HistoryWriteAheadLog writeAheadLog,
+                             RecordDeduplicator deduplicator, ParallelRangeReader rangeReader,
+                             HistoryBucketCache bucketCache, RecordTrendService recordTrendService) {
         this.recordRepository = recordRepository;
         this.cropService = cropService;
+        this.eventPublisher = eventPublisher;
+        this.measuresValidator = measuresValidator;
+        this.recentReadingsService = recentReadingsService;
+        this.writeBehind = writeBehind;
+        this.writeAheadLog = writeAheadLog;
+        this.deduplicator = deduplicator;
+        this.rangeReader = rangeReader;
+        this.bucketCache = bucketCache;
+        this.recordTrendService = recordTrendService;
     }
 
     //Validations
 
     /**
-     * Válida las medidas proporcionadas en el objeto `MeasuresDTO`.
-     * Llama a las funciones de validación específicas para cada tipo de medida.
+     * Válida las medidas proporcionadas en el objeto `MeasuresDTO` contra la tabla de rangos.
+     * Se reportan todas las medidas inválidas en un único error.
      *
      * @param measures Objeto que contiene las medidas a validar.
+     * @throws ApiException Si alguna medida no es un número válido o está fuera de rango.
      */
     private void ValidationMesuares(MeasuresDTO measures) {
-        validateAtmosphere(measures.getAtmosphere());
-        validateBrightness(measures.getBrightness());
-        validateTemperature(measures.getTemperature());
-        validatePh(measures.getPh());
-        validateTds(measures.getTds());
-        validateHumidity(measures.getHumidity());
-    }
-
-    /**
-     * Valida el valor de la atmósfera (temperatura).
-     * La temperatura debe ser mayor que -40°C y menor o igual a 80°C.
-     *
-     * @param atmosphereValue Valor de la atmósfera (temperatura) a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
-     */
-    private void validateAtmosphere(String atmosphereValue) {
-        try {
-            double atmosphere = Double.parseDouble(atmosphereValue);
-            if (atmosphere <= 0) {
-                throw new ApiException(new ApiResponse("La atmósfera debe ser un valor positivo", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("La atmósfera debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
+        MeasureErrors errors = MeasureErrors.local();
+        if (!measuresValidator.validate(measures, errors)) {
+            throw invalidMeasures(errors);
         }
     }
 
     /**
-     * Válida el valor del brillo (luz).
-     * El brillo debe estar dentro del rango [0, 1000].
+     * Válida medidas numéricas contra la tabla de rangos sin conversiones desde texto.
      *
-     * @param brightnessValue Valor del brillo a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
+     * @param measures Medidas a validar.
+     * @throws ApiException Si alguna medida está fuera de rango.
      */
-    private void validateBrightness(String brightnessValue) {
-        try {
-            double brightness = Double.parseDouble(brightnessValue);
-            if (brightness < 0 || brightness > 1000) {
-                throw new ApiException(new ApiResponse("El brillo debe estar entre 0 y 1000", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("El brillo debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
+    private void validateNumericMeasures(NumericMeasuresDTO measures) {
+        MeasureErrors errors = MeasureErrors.local();
+        if (!measuresValidator.validate(measures, errors)) {
+            throw invalidMeasures(errors);
         }
     }
 
     /**
-     * Válida el valor de la temperatura.
-     * La temperatura debe estar dentro del rango [-40 °C, 80 °C].
+     * Válida las medidas de un histórico ya construido.
      *
-     * @param temperatureValue Valor de la temperatura a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
+     * @param measures Medidas a validar.
+     * @throws ApiException Si alguna medida falta o está fuera de rango.
      */
-    private void validateTemperature(String temperatureValue) {
-        try {
-            double temperature = Double.parseDouble(temperatureValue);
-            if (temperature < -40 || temperature > 80) {
-                throw new ApiException(new ApiResponse("La temperatura debe estar entre -40°C y 80°C", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("La temperatura debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
+    private void validateMeasures(Measures measures) {
+        MeasureErrors errors = MeasureErrors.local();
+        if (!measuresValidator.validate(measures, errors)) {
+            throw invalidMeasures(errors);
         }
     }
 
-    /**
-     * Válida el valor del pH.
-     * El pH debe estar dentro del rango [0, 14].
-     *
-     * @param phValue Valor del pH a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
-     */
-    private void validatePh(String phValue) {
-        try {
-            double ph = Double.parseDouble(phValue);
-            if (ph < 0 || ph > 14) {
-                throw new ApiException(new ApiResponse("El pH debe estar entre 0 y 14", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("El pH debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
-        }
-    }
-
-    /**
-     * Válida el valor de TDS (Total Dissolved Solids).
-     * El TDS debe estar dentro del rango [0, 1000 ppm].
-     *
-     * @param tdsValue Valor de TDS a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
-     */
-    private void validateTds(String tdsValue) {
-        try {
-            double tds = Double.parseDouble(tdsValue);
-            if (tds < 0 || tds > 1000) {
-                throw new ApiException(new ApiResponse("El TDS debe estar entre 0 y 1000 ppm", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("El TDS debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
-        }
-    }
-
-    /**
-     * Válida el valor de la humedad.
-     * La humedad debe estar dentro del rango [0%, 100%].
-     *
-     * @param humidityValue Valor de la humedad a validar.
-     * @throws ApiException Si el valor no es válido o está fuera de rango.
-     */
-    private void validateHumidity(String humidityValue) {
-        try {
-            double humidity = Double.parseDouble(humidityValue);
-            if (humidity < 0 || humidity > 100) {
-                throw new ApiException(new ApiResponse("La humedad debe estar entre 0% y 100%", HttpStatus.BAD_REQUEST.value()));
-            }
-        } catch (NumberFormatException e) {
-            throw new ApiException(new ApiResponse("La humedad debe ser un número válido", HttpStatus.BAD_REQUEST.value()));
-        }
+    private static ApiException invalidMeasures(MeasureErrors errors) {
+        return new ApiException(new ApiResponse(String.join("; ", errors.messages()), HttpStatus.BAD_REQUEST.value()));
     }
 
     /**
@@ -219,14 +188,100 @@ public class RecordServiceImpl implements RecordService {
     /**
      * Obtiene la lista de históricos asociada a un cultivo específico y a un rango de fechas.
      * Se busca el cultivo por su ID, luego se recuperan los históricos relacionados con ese cultivo
-     * si están dentro de las fechas.
+     * si están dentro de las fechas. Los buckets de tiempo ya cerrados se sirven desde caché; los rangos largos
+     * se dividen en tramos que se consultan en paralelo.
      *
      * @param cropId El ID del cultivo cuyo historial se desea recuperar.
-     * @return Una lista de objetos {@link History} que representan los históricos asociados al cultivo.
+     * @return Una lista de objetos {@link History} que representan los históricos asociados al cultivo, ordenados por fecha.
      * @throws ApiException Si el cultivo con el ID proporcionado no se encuentra o si ocurre un error en la consulta.
      */
     @Override
     public List<History> getHistoriesByCropAndDateBetween(String cropId, DateRange ranges) {
+        validateCropAndRange(cropId, ranges);
+
+        return bucketCache.read(
+                new ObjectId(cropId),
+                ranges.getStartDate(),
+                ranges.getEndDate()
+        );
+    }
+
+    /**
+     * Obtiene una página de históricos de un cultivo ordenados por fecha, usando paginación por clave.
+     * Cada página continúa después del último histórico de la anterior, por lo que su coste no crece
+     * con el número de páginas recorridas.
+     *
+     * @param cropId El ID del cultivo cuyo historial se desea recuperar.
+     * @param token  Token de continuación devuelto por la página anterior, o {@code null} para la primera página.
+     * @param size   Número máximo de históricos de la página.
+     * @return La página de históricos y el token de la siguiente, si existe.
+     * @throws Exception Si el cultivo con el ID proporcionado no se encuentra o el token no es válido.
+     */
+    @Override
+    public HistoryPageDTO getPageByCrop(String cropId, String token, int size) throws Exception {
+        ObjectId crop = new ObjectId(cropService.getCropById(cropId).getId());
+        HistoryPageToken after = token == null || token.isBlank() ? null : HistoryPageToken.decode(token);
+
+        List<History> histories = recordRepository.findPageByCrop(
+                crop,
+                after != null ? after.date() : null,
+                after != null ? after.id() : null,
+                size + 1
+        );
+
+        String next = null;
+        if (histories.size() > size) {
+            histories = histories.subList(0, size);
+            next = HistoryPageToken.after(histories.get(size - 1)).encode();
+        }
+        return new HistoryPageDTO(histories, histories.size(), next);
+    }
+
+    /**
+     * Recorre todos los históricos mediante un cursor, sin cargarlos en memoria.
+     *
+     * @return Secuencia de históricos; debe cerrarse al terminar de consumirla.
+     */
+    @Override
+    public Stream<History> streamAllHistories() {
+        return recordRepository.streamAll();
+    }
+
+    /**
+     * Recorre mediante un cursor los históricos de un cultivo, ordenados por fecha.
+     * El cultivo se valida antes de abrir el cursor, de modo que los errores se reportan con el estado HTTP adecuado.
+     *
+     * @param cropId El ID del cultivo cuyo historial se desea recorrer.
+     * @return Secuencia de históricos; debe cerrarse al terminar de consumirla.
+     * @throws Exception Si el cultivo con el ID proporcionado no se encuentra.
+     */
+    @Override
+    public Stream<History> streamByCrop(String cropId) throws Exception {
+        return recordRepository.streamByCrop(new ObjectId(cropService.getCropById(cropId).getId()));
+    }
+
+    /**
+     * Recorre los históricos de un cultivo dentro de un rango de fechas, ordenados por fecha.
+     * Los rangos largos se leen por tramos en paralelo y se entregan en orden a medida que se completan.
+     *
+     * @param cropId El ID del cultivo cuyo historial se desea recorrer.
+     * @param ranges Rango de fechas.
+     * @return Secuencia de históricos; debe cerrarse al terminar de consumirla.
+     */
+    @Override
+    public Stream<History> streamHistoriesByCropAndDateBetween(String cropId, DateRange ranges) {
+        validateCropAndRange(cropId, ranges);
+        return rangeReader.stream(new ObjectId(cropId), ranges.getStartDate(), ranges.getEndDate());
+    }
+
+    /**
+     * Válida el identificador del cultivo y que el rango de fechas esté definido.
+     *
+     * @param cropId El ID del cultivo.
+     * @param ranges Rango de fechas.
+     * @throws ApiException Si el ID no es válido o el rango no está definido.
+     */
+    private void validateCropAndRange(String cropId, DateRange ranges) {
         if (!ObjectId.isValid(cropId)) {
             throw new ApiException(new ApiResponse(
                     "El id '" + cropId + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
@@ -234,7 +289,7 @@ public class RecordServiceImpl implements RecordService {
             ));
         }
 
-        if (ranges.getEndDate() == null || ranges.getStartDate() == null) {
+        if (ranges == null || ranges.getEndDate() == null || ranges.getStartDate() == null) {
             throw new ApiException(new ApiResponse(
                     "Los rangos de fechas no están definidos",
                     HttpStatus.BAD_REQUEST.value()
@@ -242,18 +297,11 @@ public class RecordServiceImpl implements RecordService {
         }
 
         // TODO: Validar correctamente las fechas
-
-        return recordRepository.getHistoriesByCropAndDateBetween(
-                new ObjectId(cropId),
-                ranges.getStartDate(),
-                ranges.getEndDate()
-        );
     }
 
     /**
      * Obtiene los registros históricos de cultivo asociados a un usuario específico.
-     * Verifica que el ID del usuario sea válido y lanza una excepción si no se encuentra el usuario o si
-     * alguno de los cultivos del usuario no tiene registros históricos asociados.
+     * Los históricos de todos los cultivos del usuario se recuperan con una sola consulta.
      *
      * @param id El identificador del usuario cuyo historial de cultivos se quiere obtener.
      * @return Una lista de objetos {@link CropRecordDTO} que contienen información de los cultivos y sus registros históricos.
@@ -261,7 +309,63 @@ public class RecordServiceImpl implements RecordService {
      */
     @Override
     public List<CropRecordDTO> getByUser(String id) throws Exception {
-        List<CropRecordDTO> records = new ArrayList<>();
+        return getByUser(id, null);
+    }
+
+    /**
+     * Obtiene los registros históricos de los cultivos de un usuario, opcionalmente dentro de un rango de fechas.
+     * Se realiza una única consulta {@code $in} sobre todos los cultivos, en lugar de una por cultivo.
+     *
+     * @param id     El identificador del usuario.
+     * @param ranges Rango de fechas, o {@code null} para obtener todo el historial.
+     * @return Los registros de todos los cultivos del usuario, agrupados por cultivo y ordenados por fecha.
+     * @throws Exception Si el usuario no existe, no tiene cultivos o el rango no está completo.
+     */
+    @Override
+    public List<CropRecordDTO> getByUser(String id, DateRange ranges) throws Exception {
+        Map<ObjectId, CropDTO> crops = getUserCrops(id);
+        validateOptionalRange(ranges);
+        List<History> histories = recordRepository.findByCropIn(
+                crops.keySet(),
+                ranges != null ? ranges.getStartDate() : null,
+                ranges != null ? ranges.getEndDate() : null
+        );
+
+        List<CropRecordDTO> records = new ArrayList<>(histories.size());
+        for (History history : histories) {
+            records.add(new CropRecordDTO(crops.get(history.getCrop()), history));
+        }
+        return records;
+    }
+
+    /**
+     * Recorre mediante un cursor los registros históricos de los cultivos de un usuario.
+     * El usuario y sus cultivos se resuelven antes de abrir el cursor.
+     *
+     * @param id     El identificador del usuario.
+     * @param ranges Rango de fechas, o {@code null} para recorrer todo el historial.
+     * @return Secuencia de registros; debe cerrarse al terminar de consumirla.
+     * @throws Exception Si el usuario no existe, no tiene cultivos o el rango no está completo.
+     */
+    @Override
+    public Stream<CropRecordDTO> streamByUser(String id, DateRange ranges) throws Exception {
+        Map<ObjectId, CropDTO> crops = getUserCrops(id);
+        validateOptionalRange(ranges);
+        return recordRepository.streamByCropIn(
+                crops.keySet(),
+                ranges != null ? ranges.getStartDate() : null,
+                ranges != null ? ranges.getEndDate() : null
+        ).map(history -> new CropRecordDTO(crops.get(history.getCrop()), history));
+    }
+
+    /**
+     * Obtiene los cultivos de un usuario indexados por su identificador.
+     *
+     * @param id El identificador del usuario.
+     * @return Los cultivos del usuario.
+     * @throws Exception Si el usuario no existe o no tiene cultivos.
+     */
+    private Map<ObjectId, CropDTO> getUserCrops(String id) throws Exception {
         List<CropDTO> crops = cropService.getCropsByUser(id);
         // Verificar si el usuario tiene cultivos
         if (crops.isEmpty()) {
@@ -270,30 +374,300 @@ public class RecordServiceImpl implements RecordService {
                     HttpStatus.NOT_FOUND.value()
             ));
         }
+        Map<ObjectId, CropDTO> byId = new HashMap<>(crops.size() * 2);
         for (CropDTO crop : crops) {
-            List<History> histories = recordRepository.getHistoriesByCrop(new ObjectId(crop.getId()));
+            byId.put(new ObjectId(crop.getId()), crop);
+        }
+        return byId;
+    }
 
-            for (History history : histories) {
-                records.add(new CropRecordDTO(crop, history));
-            }
+    /**
+     * Válida que un rango de fechas opcional, si se proporciona, tenga ambas fechas.
+     *
+     * @param ranges Rango de fechas, o {@code null}.
+     * @throws ApiException Si el rango está incompleto.
+     */
+    private void validateOptionalRange(DateRange ranges) {
+        if (ranges != null && (ranges.getStartDate() == null || ranges.getEndDate() == null)) {
+            throw new ApiException(new ApiResponse(
+                    "Los rangos de fechas no están definidos",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
         }
-        return records;
     }
 
     /**
      * Crea un nuevo histórico.
      * Válida que los datos del histórico sean correctos y luego lo guarda en la base de datos.
+     * Si la lectura trae una clave de idempotencia o un par (dispositivo, secuencia) ya recibido,
+     * no se crea un documento nuevo y se devuelve el existente.
      *
-     * @param recordDTO Datos del nuevo histórico a crear
-     * @return El histórico creado
+     * @param recordDTO      Datos del nuevo histórico a crear
+     * @param idempotencyKey Clave de idempotencia enviada por el cliente, o {@code null}
+     * @return Futuro con el histórico creado; con escritura diferida se completa según la durabilidad configurada
      */
     @Override
-    public History Createhistory(RecordDTO recordDTO) throws Exception {
+    public CompletableFuture<History> Createhistory(RecordDTO recordDTO, String idempotencyKey) throws Exception {
         ValidationMesuares(recordDTO.getMeasures());
         cropService.getCropById(recordDTO.getCrop());
         History history = RecordMapper.INSTANCE.toEntity(recordDTO);
         history.setDate(new java.util.Date());
-        return recordRepository.save(history);
+        return persist(history, deduplicator.keyOf(idempotencyKey, recordDTO.getDevice(), recordDTO.getSequence()));
+    }
+
+    /**
+     * Crea un nuevo histórico a partir de medidas numéricas.
+     * Las medidas se validan sin conversiones desde texto; si no se indica fecha se usa la del servidor.
+     *
+     * @param recordDTO      Datos del nuevo histórico a crear
+     * @param idempotencyKey Clave de idempotencia enviada por el cliente, o {@code null}
+     * @return Futuro con el histórico creado; con escritura diferida se completa según la durabilidad configurada
+     */
+    @Override
+    public CompletableFuture<History> createNumericHistory(NumericRecordDTO recordDTO, String idempotencyKey) throws Exception {
+        if (recordDTO.getMeasures() == null) {
+            throw new ApiException(new ApiResponse("El registro no contiene medidas", HttpStatus.BAD_REQUEST.value()));
+        }
+        validateNumericMeasures(recordDTO.getMeasures());
+        cropService.getCropById(recordDTO.getCrop());
+        History history = RecordMapper.INSTANCE.toEntity(recordDTO);
+        if (history.getDate() == null) {
+            history.setDate(new Date());
+        }
+        return persist(history, deduplicator.keyOf(idempotencyKey, recordDTO.getDevice(), recordDTO.getSequence()));
+    }
+
+    /**
+     * Persiste un histórico individual.
+     * Con el WAL activo se asigna el identificador y se confirma en cuanto la lectura está en disco local;
+     * el replayer la insertará en MongoDB. Con la escritura diferida activa se encola para la siguiente
+     * escritura agrupada. En otro caso se guarda de inmediato.
+     * Una lectura repetida (misma clave de deduplicación) no se persiste: se devuelve el histórico existente.
+     *
+     * @param history Histórico validado.
+     * @param key     Clave de deduplicación, o {@code null}.
+     * @return Futuro con el histórico persistido (o aceptado, según la durabilidad).
+     */
+    private CompletableFuture<History> persist(History history, String key) {
+        if (key != null) {
+            history.setDedupKey(key);
+            history.setId(new ObjectId());
+            History accepted = deduplicator.claim(history);
+            if (accepted != null) {
+                return CompletableFuture.completedFuture(accepted);
+            }
+            Optional<History> existing = deduplicator.findExisting(key);
+            if (existing.isPresent()) {
+                deduplicator.release(history);
+                return CompletableFuture.completedFuture(existing.get());
+            }
+        }
+
+        if (writeAheadLog.isEnabled()) {
+            if (history.getId() == null) {
+                history.setId(new ObjectId());
+            }
+            try {
+                writeAheadLog.append(history);
+            } catch (RuntimeException e) {
+                deduplicator.release(history);
+                throw e;
+            }
+            deduplicator.remember(key);
+            return CompletableFuture.completedFuture(history);
+        }
+        if (writeBehind.isEnabled()) {
+            if (history.getId() == null) {
+                history.setId(new ObjectId());
+            }
+            CompletableFuture<History> ack = writeBehind.submit(history);
+            deduplicator.remember(key);
+            return ack.whenComplete((persisted, error) -> deduplicator.release(history));
+        }
+
+        History saved;
+        try {
+            saved = recordRepository.save(history);
+        } catch (DuplicateKeyException e) {
+            if (key == null) {
+                throw e;
+            }
+            return CompletableFuture.completedFuture(deduplicator.findPersisted(key).orElseThrow(() -> e));
+        } finally {
+            deduplicator.release(history);
+        }
+        deduplicator.remember(key);
+        eventPublisher.publishEvent(new HistoryIngestedEvent(List.of(saved)));
+        return CompletableFuture.completedFuture(saved);
+    }
+
+    /**
+     * Crea un lote de históricos en una sola escritura.
+     * <p>
+     * Todos los registros se validan en una única pasada; cada cultivo distinto se resuelve una sola vez
+     * y los registros válidos se persisten con una inserción masiva no ordenada. Un registro inválido
+     * no impide la inserción del resto: su rechazo queda reflejado en el reporte.
+     * </p>
+     *
+     * @param records Registros a crear, en el orden en que fueron recibidos.
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada.
+     */
+    @Override
+    public RecordBatchResultDTO createHistories(List<RecordDTO> records) {
+        return ingestBatch(records, RecordDTO::getCrop,
+                recordDTO -> deduplicator.keyOf(null, recordDTO.getDevice(), recordDTO.getSequence()), recordDTO -> {
+            if (recordDTO.getMeasures() == null) {
+                throw new ApiException(new ApiResponse("El registro no contiene medidas", HttpStatus.BAD_REQUEST.value()));
+            }
+            ValidationMesuares(recordDTO.getMeasures());
+            return RecordMapper.INSTANCE.toEntity(recordDTO);
+        });
+    }
+
+    /**
+     * Crea un lote de históricos con medidas numéricas en una sola escritura.
+     * Sigue las mismas reglas que {@link #createHistories(List)}.
+     *
+     * @param records Registros a crear, en el orden en que fueron recibidos.
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada.
+     */
+    @Override
+    public RecordBatchResultDTO createNumericHistories(List<NumericRecordDTO> records) {
+        return ingestBatch(records, NumericRecordDTO::getCrop,
+                recordDTO -> deduplicator.keyOf(null, recordDTO.getDevice(), recordDTO.getSequence()), recordDTO -> {
+            if (recordDTO.getMeasures() == null) {
+                throw new ApiException(new ApiResponse("El registro no contiene medidas", HttpStatus.BAD_REQUEST.value()));
+            }
+            validateNumericMeasures(recordDTO.getMeasures());
+            return RecordMapper.INSTANCE.toEntity(recordDTO);
+        });
+    }
+
+    /**
+     * Crea un lote de históricos ya decodificados, por ejemplo desde el formato binario de las macetas.
+     * Sigue las mismas reglas que {@link #createHistories(List)}.
+     *
+     * @param histories Históricos a crear, en el orden en que fueron recibidos.
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada.
+     */
+    @Override
+    public RecordBatchResultDTO ingestHistories(List<History> histories) {
+        return ingestBatch(histories, History::getCrop, history -> null, history -> {
+            validateMeasures(history.getMeasures());
+            return history;
+        });
+    }
+
+    /**
+     * Valida, convierte y persiste un lote de registros con una inserción masiva no ordenada.
+     *
+     * @param records   Registros recibidos.
+     * @param cropOf    Obtiene el identificador del cultivo de un registro.
+     * @param keyOf     Obtiene la clave de deduplicación de un registro, o {@code null} si no tiene.
+     * @param converter Valida las medidas de un registro y lo convierte en histórico; lanza {@link ApiException} si no es válido.
+     * @return Reporte con el resultado de cada registro, en el mismo orden de entrada.
+     */
+    private <T> RecordBatchResultDTO ingestBatch(List<T> records, Function<T, ?> cropOf, Function<T, String> keyOf,
+                                                 Function<T, History> converter) {
+        RecordBatchItemDTO[] items = new RecordBatchItemDTO[records.size()];
+        Map<Object, String> cropErrors = new HashMap<>();
+        int accepted = 0;
+        List<History> histories = new ArrayList<>(records.size());
+        List<Integer> positions = new ArrayList<>(records.size());
+        Date now = new Date();
+
+        for (int i = 0; i < records.size(); i++) {
+            T record = records.get(i);
+            try {
+                if (record == null) {
+                    throw new ApiException(new ApiResponse("El registro no contiene medidas", HttpStatus.BAD_REQUEST.value()));
+                }
+                String cropError = cropErrors.computeIfAbsent(cropOf.apply(record), crop -> resolveCropError(String.valueOf(crop)));
+                if (!cropError.isEmpty()) {
+                    throw new ApiException(new ApiResponse(cropError, HttpStatus.NOT_FOUND.value()));
+                }
+                History history = converter.apply(record);
+                String key = keyOf.apply(record);
+                history.setId(new ObjectId());
+                if (key != null) {
+                    history.setDedupKey(key);
+                    History existing = deduplicator.claim(history);
+                    if (existing == null) {
+                        existing = deduplicator.findExisting(key).orElse(null);
+                        if (existing != null) {
+                            deduplicator.release(history);
+                        }
+                    }
+                    if (existing != null) {
+                        items[i] = duplicateItem(i, existing);
+                        accepted++;
+                        continue;
+                    }
+                }
+                if (history.getDate() == null) {
+                    history.setDate(now);
+                }
+                histories.add(history);
+                positions.add(i);
+            } catch (Exception e) {
+                items[i] = new RecordBatchItemDTO(i, null, false, e.getMessage());
+            }
+        }
+
+        Map<Integer, String> failures;
+        try {
+            failures = recordRepository.insertUnordered(histories);
+        } finally {
+            histories.forEach(deduplicator::release);
+        }
+        List<History> persisted = new ArrayList<>(histories.size());
+        for (int j = 0; j < histories.size(); j++) {
+            int index = positions.get(j);
+            History history = histories.get(j);
+            String failure = failures.get(j);
+            Optional<History> existing = failure != null && history.getDedupKey() != null && failure.contains(DUPLICATE_KEY)
+                    ? deduplicator.findPersisted(history.getDedupKey())
+                    : Optional.empty();
+            if (failure == null) {
+                persisted.add(history);
+                deduplicator.remember(history.getDedupKey());
+                items[index] = new RecordBatchItemDTO(index, history.getId().toHexString(), true, null);
+                accepted++;
+            } else if (existing.isPresent()) {
+                // Otra petición guardó la misma lectura entre la comprobación y la inserción.
+                items[index] = duplicateItem(index, existing.get());
+                accepted++;
+            } else {
+                items[index] = new RecordBatchItemDTO(index, null, false, failure);
+            }
+        }
+        if (!persisted.isEmpty()) {
+            eventPublisher.publishEvent(new HistoryIngestedEvent(persisted));
+        }
+
+        return new RecordBatchResultDTO(accepted, records.size() - accepted, List.of(items));
+    }
+
+    private static RecordBatchItemDTO duplicateItem(int index, History existing) {
+        return new RecordBatchItemDTO(index, existing.getId().toHexString(), true, "Registro duplicado, se conserva el existente");
+    }
+
+    /**
+     * Verifica que el cultivo exista. Se usa para resolver cada cultivo distinto una sola vez por lote.
+     *
+     * @param cropId Identificador del cultivo.
+     * @return Cadena vacía si el cultivo existe, o el motivo por el que no pudo resolverse.
+     */
+    private String resolveCropError(String cropId) {
+        if (!ObjectId.isValid(cropId)) {
+            return "El id '" + cropId + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).";
+        }
+        try {
+            cropService.getCropById(cropId);
+            return "";
+        } catch (Exception e) {
+            return e.getMessage() != null ? e.getMessage() : "El cultivo con id '" + cropId + "' no fue encontrado.";
+        }
     }
 
     /**
@@ -306,12 +680,19 @@ public class RecordServiceImpl implements RecordService {
      */
     @Override
     public History updatedHistory(History existingHistory, RecordDTO updateHistory) {
+        recentReadingsService.evict(existingHistory.getCrop());
+        bucketCache.evict(existingHistory);
+        recordTrendService.evict(existingHistory.getCrop());
         if (updateHistory.getMeasures() != null && updateHistory.getCrop() != null) {
             existingHistory = RecordMapper.INSTANCE.toEntity(updateHistory);
         }
 
         try {
-            return recordRepository.save(existingHistory);
+            History saved = recordRepository.save(existingHistory);
+            recentReadingsService.evict(saved.getCrop());
+            bucketCache.evict(saved);
+            recordTrendService.evict(saved.getCrop());
+            return saved;
         } catch (Exception e) {
             log.error("e: ", e);
             throw new ApiException(
@@ -331,6 +712,9 @@ public class RecordServiceImpl implements RecordService {
     public ResponseEntity<ApiResponse> deleteHistory(History existingHistory) {
         try {
             recordRepository.deleteById(existingHistory.getId());
+            recentReadingsService.evict(existingHistory.getCrop());
+            bucketCache.evict(existingHistory);
+            recordTrendService.evict(existingHistory.getCrop());
             return ResponseEntity.status(HttpStatus.OK.value()).body(
                     new ApiResponse("El History con ID '" + existingHistory.getId() + "' fue eliminado.",
                             HttpStatus.OK.value())
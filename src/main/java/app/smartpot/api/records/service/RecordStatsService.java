@@ -0,0 +1,8 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.records.model.dto.CropStatsDTO;
+import app.smartpot.api.records.model.entity.DateRange;
+
+public interface RecordStatsService {
+    CropStatsDTO getStats(String cropId, DateRange ranges) throws Exception;
+}
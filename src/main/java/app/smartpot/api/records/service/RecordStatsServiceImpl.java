@@ -0,0 +1,126 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.crops.service.CropService;
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.dto.CropStatsDTO;
+import app.smartpot.api.records.model.dto.MeasureSummaryDTO;
+import app.smartpot.api.records.model.entity.DateRange;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.repository.RecordRepository;
+import com.mongodb.MongoCommandException;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.Document;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Servicio que calcula en MongoDB las estadísticas de las medidas de un cultivo, de modo que solo el resumen
+ * viaja al cliente en lugar de todos los históricos del rango.
+ * <p>
+ * Los percentiles usan {@code $percentile} (MongoDB 7.0+). Si el servidor rechaza el operador por desconocido,
+ * se desactivan y las estadísticas se calculan sin ellos; cualquier otro error de MongoDB se propaga.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RecordStatsServiceImpl implements RecordStatsService {
+
+    /**
+     * Códigos con los que MongoDB rechaza un operador desconocido: {@code InvalidPipelineOperator} (168) y
+     * el de acumulador de {@code $group} desconocido de versiones anteriores (15952).
+     */
+    private static final Set<Integer> UNSUPPORTED_OPERATOR_CODES = Set.of(168, 15952);
+
+    private final RecordRepository recordRepository;
+    private final CropService cropService;
+
+    @Value("${records.stats.percentiles}")
+    private volatile boolean percentiles;
+
+    @Autowired
+    public RecordStatsServiceImpl(RecordRepository recordRepository, CropService cropService) {
+        this.recordRepository = recordRepository;
+        this.cropService = cropService;
+    }
+
+    /**
+     * Obtiene las estadísticas de cada medida de un cultivo en un rango de fechas.
+     *
+     * @param cropId El ID del cultivo.
+     * @param ranges Rango de fechas.
+     * @return El resumen estadístico; con {@code count} igual a 0 si no hay históricos en el rango.
+     * @throws Exception Si el cultivo no existe o el rango no está definido.
+     */
+    @Override
+    public CropStatsDTO getStats(String cropId, DateRange ranges) throws Exception {
+        if (ranges == null || ranges.getStartDate() == null || ranges.getEndDate() == null) {
+            throw new ApiException(new ApiResponse(
+                    "Los rangos de fechas no están definidos",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        ObjectId crop = new ObjectId(cropService.getCropById(cropId).getId());
+
+        Document stats = aggregate(crop, ranges);
+        Map<String, MeasureSummaryDTO> measures = new LinkedHashMap<>();
+        long count = 0;
+        if (stats != null) {
+            count = number(stats, "count").longValue();
+            for (Measure measure : Measure.VALUES) {
+                measures.put(measure.getField(), summary(stats, measure.getField()));
+            }
+        }
+        return new CropStatsDTO(cropId, ranges.getStartDate(), ranges.getEndDate(), count, measures);
+    }
+
+    private Document aggregate(ObjectId crop, DateRange ranges) {
+        if (percentiles) {
+            try {
+                return recordRepository.aggregateStats(crop, ranges.getStartDate(), ranges.getEndDate(), true);
+            } catch (MongoCommandException e) {
+                if (!UNSUPPORTED_OPERATOR_CODES.contains(e.getErrorCode())) {
+                    throw e;
+                }
+                log.warn("El servidor no soporta $percentile, las estadísticas se calcularán sin percentiles: {}", e.getErrorMessage());
+                percentiles = false;
+            }
+        }
+        return recordRepository.aggregateStats(crop, ranges.getStartDate(), ranges.getEndDate(), false);
+    }
+
+    private static MeasureSummaryDTO summary(Document stats, String field) {
+        MeasureSummaryDTO.MeasureSummaryDTOBuilder summary = MeasureSummaryDTO.builder()
+                .count(number(stats, field + "_count").longValue())
+                .min(toDouble(stats.get(field + "_min")))
+                .max(toDouble(stats.get(field + "_max")))
+                .mean(toDouble(stats.get(field + "_avg")))
+                .stdDev(toDouble(stats.get(field + "_std")));
+
+        List<?> pct = stats.get(field + "_pct", List.class);
+        if (pct != null && pct.size() == 4) {
+            summary.p50(toDouble(pct.get(0)))
+                    .p90(toDouble(pct.get(1)))
+                    .p95(toDouble(pct.get(2)))
+                    .p99(toDouble(pct.get(3)));
+        }
+        return summary.build();
+    }
+
+    private static Number number(Document stats, String key) {
+        Object value = stats.get(key);
+        return value instanceof Number number ? number : 0;
+    }
+
+    private static Double toDouble(Object value) {
+        return value instanceof Number number ? number.doubleValue() : null;
+    }
+}
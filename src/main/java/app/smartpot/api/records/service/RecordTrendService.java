@@ -0,0 +1,10 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.records.model.dto.CropTrendDTO;
+import org.bson.types.ObjectId;
+
+public interface RecordTrendService {
+    CropTrendDTO getTrend(String cropId) throws Exception;
+
+    void evict(ObjectId cropId);
+}
@@ -0,0 +1,211 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.crops.service.CropService;
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.dto.CropTrendDTO;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.repository.RecordRepository;
+import app.smartpot.api.records.trend.CropTrendState;
+import lombok.extern.slf4j.Slf4j;
+import org.bson.types.ObjectId;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.RedisOperations;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.SessionCallback;
+import org.springframework.http.HttpStatus;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Servicio que mantiene en memoria la tendencia de las medidas de cada cultivo (media exponencial, mínimo y
+ * máximo de una ventana deslizante y tasa de cambio), actualizada con cada ingesta.
+ * <p>
+ * El estado de un cultivo se carga la primera vez que se consulta: se restaura la instantánea guardada en Redis,
+ * si existe, y se completa con las lecturas posteriores más recientes de MongoDB. Después se alimenta con cada
+ * ingesta y se guarda periódicamente en Redis, de modo que un reinicio no obliga a recalcularlo. Cuando se alcanza
+ * el número máximo de cultivos en memoria, los cultivos nuevos se calculan en cada consulta sin conservarse.
+ * </p>
+ */
+@Slf4j
+@Service
+public class RecordTrendServiceImpl implements RecordTrendService {
+
+    private static final String KEY_PREFIX = "records:trend:";
+
+    private final RecordRepository recordRepository;
+    private final CropService cropService;
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final Map<ObjectId, CropTrendState> states = new ConcurrentHashMap<>();
+
+    @Value("${records.trend.enabled}")
+    private boolean enabled;
+
+    @Value("${records.trend.half-life}")
+    private long halfLifeSeconds;
+
+    @Value("${records.trend.window}")
+    private long windowSeconds;
+
+    @Value("${records.trend.capacity}")
+    private int capacity;
+
+    @Value("${records.trend.warmup}")
+    private int warmup;
+
+    @Value("${records.trend.max-crops}")
+    private int maxCrops;
+
+    @Value("${records.trend.snapshot-ttl}")
+    private long snapshotTtlHours;
+
+    @Autowired
+    public RecordTrendServiceImpl(RecordRepository recordRepository, CropService cropService,
+                                  RedisTemplate<String, Object> redisTemplate) {
+        this.recordRepository = recordRepository;
+        this.cropService = cropService;
+        this.redisTemplate = redisTemplate;
+    }
+
+    /**
+     * Incorpora los históricos recién persistidos al estado de los cultivos ya cargados.
+     *
+     * @param event Evento con los históricos persistidos.
+     */
+    @EventListener
+    public void onHistoryIngested(HistoryIngestedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        for (History history : event.histories()) {
+            if (history.getCrop() == null || history.getDate() == null) {
+                continue;
+            }
+            states.computeIfPresent(history.getCrop(), (crop, state) -> {
+                state.add(history);
+                return state;
+            });
+        }
+    }
+
+    /**
+     * Obtiene la tendencia actual de las medidas de un cultivo.
+     *
+     * @param cropId El ID del cultivo.
+     * @return La tendencia por medida.
+     * @throws Exception Si el ID no es válido, el cultivo no existe o las tendencias están desactivadas.
+     */
+    @Override
+    public CropTrendDTO getTrend(String cropId) throws Exception {
+        if (!enabled) {
+            throw new ApiException(new ApiResponse(
+                    "Las tendencias de medidas están desactivadas",
+                    HttpStatus.NOT_FOUND.value()
+            ));
+        }
+        if (!ObjectId.isValid(cropId)) {
+            throw new ApiException(new ApiResponse(
+                    "El id '" + cropId + "' no es válido. Asegúrate de que tiene 24 caracteres y solo incluye dígitos hexadecimales (0-9, a-f, A-F).",
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+
+        ObjectId crop = new ObjectId(cropId);
+        CropTrendState state = states.get(crop);
+        if (state == null) {
+            cropService.getCropById(cropId);
+            state = states.size() >= maxCrops ? load(crop) : states.computeIfAbsent(crop, this::load);
+        }
+        return state.toDTO(cropId);
+    }
+
+    /**
+     * Descarta el estado de un cultivo y su instantánea, para que se recalcule desde MongoDB en la siguiente
+     * consulta. Se usa cuando un histórico se modifica o elimina.
+     *
+     * @param cropId El ID del cultivo.
+     */
+    @Override
+    public void evict(ObjectId cropId) {
+        if (cropId == null) {
+            return;
+        }
+        states.remove(cropId);
+        try {
+            redisTemplate.delete(KEY_PREFIX + cropId.toHexString());
+        } catch (DataAccessException e) {
+            log.warn("No se pudo eliminar la tendencia del cultivo {} en Redis: {}", cropId, e.getMessage());
+        }
+    }
+
+    /**
+     * Guarda en Redis, en una sola escritura encadenada, el estado de los cultivos que cambiaron.
+     */
+    @Scheduled(fixedDelayString = "${records.trend.snapshot-interval}")
+    @SuppressWarnings("unchecked")
+    public void snapshot() {
+        if (!enabled || states.isEmpty()) {
+            return;
+        }
+        Map<String, byte[]> snapshots = new HashMap<>();
+        states.forEach((crop, state) -> {
+            byte[] bytes = state.snapshotIfDirty();
+            if (bytes != null) {
+                snapshots.put(KEY_PREFIX + crop.toHexString(), bytes);
+            }
+        });
+        if (snapshots.isEmpty()) {
+            return;
+        }
+        Duration ttl = Duration.ofHours(snapshotTtlHours);
+        try {
+            redisTemplate.executePipelined(new SessionCallback<Object>() {
+                @Override
+                public <K, V> Object execute(RedisOperations<K, V> operations) {
+                    snapshots.forEach((key, value) -> operations.opsForValue().set((K) key, (V) value, ttl));
+                    return null;
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("No se pudieron guardar {} tendencias en Redis: {}", snapshots.size(), e.getMessage());
+        }
+    }
+
+    private CropTrendState load(ObjectId crop) {
+        CropTrendState state = new CropTrendState(
+                TimeUnit.SECONDS.toMillis(halfLifeSeconds), TimeUnit.SECONDS.toMillis(windowSeconds), capacity);
+        try {
+            Object stored = redisTemplate.opsForValue().get(KEY_PREFIX + crop.toHexString());
+            if (stored instanceof byte[] bytes && !state.restore(bytes)) {
+                state = new CropTrendState(
+                        TimeUnit.SECONDS.toMillis(halfLifeSeconds), TimeUnit.SECONDS.toMillis(windowSeconds), capacity);
+            }
+        } catch (DataAccessException e) {
+            log.warn("No se pudo leer la tendencia del cultivo {} de Redis: {}", crop, e.getMessage());
+        }
+
+        long restoredUntil = state.latest();
+        List<History> latest = recordRepository.findLatestByCrop(crop, warmup);
+        int applied = 0;
+        for (int i = latest.size() - 1; i >= 0; i--) {
+            History history = latest.get(i);
+            if (history.getDate().getTime() > restoredUntil) {
+                state.add(history);
+                applied++;
+            }
+        }
+        log.debug("Tendencia del cultivo {} cargada con {} lecturas de MongoDB", crop, applied);
+        return state;
+    }
+}
@@ -0,0 +1,116 @@
+package app.smartpot.api.records.stream;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+import org.springframework.http.HttpStatus;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+
+/**
+ * Lee lecturas en el formato binario compacto que envían las macetas.
+ * <p>
+ * Cada registro ocupa {@value #RECORD_SIZE} bytes en orden big-endian y los registros se repiten sin
+ * separadores hasta el final del cuerpo:
+ * </p>
+ * <pre>
+ *  0  crop         12 bytes  ObjectId del cultivo
+ * 12  date          8 bytes  milisegundos desde epoch (0 = fecha del servidor)
+ * 20  atmosphere    float32
+ * 24  brightness    float32
+ * 28  temperature   float32
+ * 32  ph            float32
+ * 36  tds           float32
+ * 40  humidity      float32
+ * </pre>
+ * <p>
+ * Los registros se decodifican directamente del flujo a {@link History} sin pasar por texto. Las medidas
+ * conservan la precisión de float32 al ampliarse a {@code double}.
+ * </p>
+ */
+public final class BinaryRecordReader {
+
+    /**
+     * Tipo de contenido del formato binario.
+     */
+    public static final String MEDIA_TYPE = "application/vnd.smartpot.records";
+
+    /**
+     * Tamaño en bytes de cada registro.
+     */
+    public static final int RECORD_SIZE = 12 + 8 + 6 * Float.BYTES;
+
+    private static final int RECORDS_PER_READ = 256;
+
+    private BinaryRecordReader() {
+    }
+
+    /**
+     * Lee todos los registros del flujo.
+     *
+     * @param in         Cuerpo de la petición; no se cierra.
+     * @param maxRecords Número máximo de registros aceptados.
+     * @return Los históricos decodificados, en el orden recibido.
+     * @throws IOException  Si ocurre un error al leer el flujo.
+     * @throws ApiException Si el cuerpo está vacío, termina con un registro incompleto o supera el máximo.
+     */
+    public static List<History> read(InputStream in, int maxRecords) throws IOException {
+        byte[] buffer = new byte[RECORD_SIZE * RECORDS_PER_READ];
+        ByteBuffer view = ByteBuffer.wrap(buffer);
+        List<History> histories = new ArrayList<>();
+        int filled = 0;
+        int read;
+
+        while ((read = in.read(buffer, filled, buffer.length - filled)) != -1) {
+            filled += read;
+            int complete = filled - filled % RECORD_SIZE;
+            if (histories.size() + complete / RECORD_SIZE > maxRecords) {
+                throw new ApiException(new ApiResponse(
+                        "El lote supera el máximo de " + maxRecords + " registros",
+                        HttpStatus.CONTENT_TOO_LARGE.value()
+                ));
+            }
+            for (int offset = 0; offset < complete; offset += RECORD_SIZE) {
+                histories.add(decode(view, offset));
+            }
+            System.arraycopy(buffer, complete, buffer, 0, filled - complete);
+            filled -= complete;
+        }
+
+        if (filled != 0) {
+            throw new ApiException(new ApiResponse(
+                    "El cuerpo termina con un registro incompleto de " + filled + " bytes; cada registro ocupa " + RECORD_SIZE,
+                    HttpStatus.BAD_REQUEST.value()
+            ));
+        }
+        if (histories.isEmpty()) {
+            throw new ApiException(new ApiResponse("El lote no contiene registros", HttpStatus.BAD_REQUEST.value()));
+        }
+        return histories;
+    }
+
+    private static History decode(ByteBuffer view, int offset) {
+        ObjectId crop = new ObjectId(view.position(offset).slice().limit(12));
+        long millis = view.getLong(offset + 12);
+        Measures measures = new Measures(
+                (double) view.getFloat(offset + 20),
+                (double) view.getFloat(offset + 24),
+                (double) view.getFloat(offset + 28),
+                (double) view.getFloat(offset + 32),
+                (double) view.getFloat(offset + 36),
+                (double) view.getFloat(offset + 40)
+        );
+        return History.builder()
+                .crop(crop)
+                .date(millis > 0 ? new Date(millis) : null)
+                .measures(measures)
+                .build();
+    }
+}
@@ -0,0 +1,72 @@
+package app.smartpot.api.records.stream;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tools.jackson.core.JsonGenerator;
+import tools.jackson.core.StreamWriteFeature;
+import tools.jackson.databind.ObjectWriter;
+import tools.jackson.databind.SerializationFeature;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Escribe secuencias de documentos como NDJSON (un documento JSON por línea).
+ * <p>
+ * Cada documento se serializa en cuanto se lee del cursor de MongoDB y se descarta después de escribirlo,
+ * de modo que la memoria usada no depende del tamaño del resultado. Se usa el {@link JsonMapper} configurado
+ * por Spring, así que cada línea tiene el mismo formato que las respuestas JSON de la API.
+ * </p>
+ */
+@Component
+public class NdjsonWriter {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ObjectWriter writer;
+
+    @Autowired
+    public NdjsonWriter(JsonMapper jsonMapper) {
+        this.writer = jsonMapper.writer()
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(StreamWriteFeature.AUTO_CLOSE_TARGET)
+                .withRootValueSeparator((String) null);
+    }
+
+    /**
+     * Crea el cuerpo de una respuesta que escribe los documentos de la secuencia a medida que se consumen.
+     * La secuencia se cierra (liberando el cursor) al terminar o si falla la escritura.
+     *
+     * @param documents Secuencia de documentos, normalmente respaldada por un cursor de MongoDB.
+     * @return El cuerpo de la respuesta en streaming.
+     */
+    public StreamingResponseBody of(Stream<?> documents) {
+        return out -> write(documents, out);
+    }
+
+    /**
+     * Escribe todos los documentos de la secuencia en el flujo de salida y la cierra.
+     *
+     * @param documents Secuencia de documentos.
+     * @param out       Flujo de salida; no se cierra.
+     * @throws IOException Si ocurre un error al escribir.
+     */
+    public void write(Stream<?> documents, OutputStream out) throws IOException {
+        BufferedOutputStream buffered = new BufferedOutputStream(out, BUFFER_SIZE);
+        try (Stream<?> source = documents;
+             JsonGenerator generator = writer.createGenerator(buffered)) {
+            Iterator<?> iterator = source.iterator();
+            while (iterator.hasNext()) {
+                writer.writeValue(generator, iterator.next());
+                generator.writeRaw('\n');
+            }
+            generator.flush();
+        }
+        buffered.flush();
+    }
+}
@@ -0,0 +1,271 @@
+package app.smartpot.api.records.trend;
+
+import app.smartpot.api.records.model.dto.CropTrendDTO;
+import app.smartpot.api.records.model.dto.MeasureTrendDTO;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measure;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Estadísticas incrementales de las medidas de un cultivo, actualizadas en O(1) amortizado por lectura.
+ * <p>
+ * Por cada medida se mantiene, en arreglos primitivos:
+ * </p>
+ * <ul>
+ *     <li>Una media móvil exponencial ponderada por tiempo: el peso de una lectura se reduce a la mitad cada
+ *     {@code halfLife} milisegundos, de modo que lecturas irregulares no sesgan la media.</li>
+ *     <li>La tasa de cambio por hora, suavizada con la misma media exponencial.</li>
+ *     <li>El mínimo y el máximo de la ventana deslizante de {@code window} milisegundos que termina en la última
+ *     lectura, con dos colas monótonas circulares de capacidad fija; si una cola se llena se descarta su
+ *     elemento más antiguo.</li>
+ * </ul>
+ * <p>
+ * Las lecturas con fecha igual o anterior a la última de una medida se ignoran para esa medida, lo que también
+ * descarta las repetidas. El estado se puede serializar para guardarlo en Redis y restaurarlo al arrancar.
+ * </p>
+ */
+public class CropTrendState {
+
+    private static final int VERSION = 1;
+    private static final int MEASURES = Measure.VALUES.length;
+    private static final double MILLIS_PER_HOUR = 3_600_000d;
+
+    private final long halfLifeMillis;
+    private final long windowMillis;
+    private final int capacity;
+
+    private final long[] count = new long[MEASURES];
+    private final long[] lastTime = new long[MEASURES];
+    private final double[] last = new double[MEASURES];
+    private final double[] ewma = new double[MEASURES];
+    private final double[] rate = new double[MEASURES];
+
+    private final MonotonicDeque min;
+    private final MonotonicDeque max;
+
+    private boolean dirty;
+
+    public CropTrendState(long halfLifeMillis, long windowMillis, int capacity) {
+        this.halfLifeMillis = halfLifeMillis;
+        this.windowMillis = windowMillis;
+        this.capacity = capacity;
+        this.min = new MonotonicDeque(capacity, true);
+        this.max = new MonotonicDeque(capacity, false);
+    }
+
+    /**
+     * Incorpora una lectura.
+     *
+     * @param history Lectura persistida, con fecha.
+     */
+    public synchronized void add(History history) {
+        if (history.getDate() == null || history.getMeasures() == null) {
+            return;
+        }
+        long time = history.getDate().getTime();
+        for (Measure measure : Measure.VALUES) {
+            Double value = measure.valueOf(history.getMeasures());
+            if (value == null || value.isNaN()) {
+                continue;
+            }
+            add(measure.ordinal(), time, value);
+        }
+    }
+
+    private void add(int m, long time, double value) {
+        if (count[m] > 0) {
+            if (time <= lastTime[m]) {
+                return;
+            }
+            long elapsed = time - lastTime[m];
+            double alpha = 1 - Math.pow(0.5, (double) elapsed / halfLifeMillis);
+            double change = (value - last[m]) / (elapsed / MILLIS_PER_HOUR);
+            rate[m] = count[m] == 1 ? change : rate[m] + alpha * (change - rate[m]);
+            ewma[m] += alpha * (value - ewma[m]);
+        } else {
+            ewma[m] = value;
+            rate[m] = 0;
+        }
+        count[m]++;
+        last[m] = value;
+        lastTime[m] = time;
+        min.push(m, time, value, time - windowMillis);
+        max.push(m, time, value, time - windowMillis);
+        dirty = true;
+    }
+
+    /**
+     * Fecha de la lectura más reciente incorporada, de cualquier medida.
+     *
+     * @return Milisegundos desde epoch, o {@link Long#MIN_VALUE} si no hay lecturas.
+     */
+    public synchronized long latest() {
+        long latest = Long.MIN_VALUE;
+        for (int m = 0; m < MEASURES; m++) {
+            if (count[m] > 0) {
+                latest = Math.max(latest, lastTime[m]);
+            }
+        }
+        return latest;
+    }
+
+    public synchronized CropTrendDTO toDTO(String cropId) {
+        Map<String, MeasureTrendDTO> measures = new LinkedHashMap<>();
+        for (Measure measure : Measure.VALUES) {
+            int m = measure.ordinal();
+            if (count[m] == 0) {
+                measures.put(measure.getField(), MeasureTrendDTO.builder().build());
+                continue;
+            }
+            measures.put(measure.getField(), MeasureTrendDTO.builder()
+                    .count(count[m])
+                    .last(last[m])
+                    .lastDate(new Date(lastTime[m]))
+                    .ewma(ewma[m])
+                    .ratePerHour(rate[m])
+                    .min(min.front(m))
+                    .max(max.front(m))
+                    .build());
+        }
+        long latest = latest();
+        return new CropTrendDTO(cropId, latest == Long.MIN_VALUE ? null : new Date(latest),
+                halfLifeMillis / 1000, windowMillis / 1000, measures);
+    }
+
+    /**
+     * Serializa el estado si cambió desde la última serialización.
+     *
+     * @return El estado serializado, o {@code null} si no hubo cambios.
+     */
+    public synchronized byte[] snapshotIfDirty() {
+        if (!dirty) {
+            return null;
+        }
+        dirty = false;
+        int size = Integer.BYTES * 2 + MEASURES * (Long.BYTES * 2 + Double.BYTES * 3)
+                + min.serializedSize() + max.serializedSize();
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(VERSION).putInt(MEASURES);
+        for (int m = 0; m < MEASURES; m++) {
+            buffer.putLong(count[m]).putLong(lastTime[m])
+                    .putDouble(last[m]).putDouble(ewma[m]).putDouble(rate[m]);
+        }
+        min.writeTo(buffer);
+        max.writeTo(buffer);
+        return buffer.array();
+    }
+
+    /**
+     * Restaura un estado serializado con {@link #snapshotIfDirty()}.
+     * Si la capacidad configurada cambió, se conservan los elementos más recientes de cada cola.
+     *
+     * @param bytes Estado serializado.
+     * @return {@code false} si el formato no es compatible y el estado quedó vacío.
+     */
+    public synchronized boolean restore(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        if (buffer.getInt() != VERSION || buffer.getInt() != MEASURES) {
+            return false;
+        }
+        for (int m = 0; m < MEASURES; m++) {
+            count[m] = buffer.getLong();
+            lastTime[m] = buffer.getLong();
+            last[m] = buffer.getDouble();
+            ewma[m] = buffer.getDouble();
+            rate[m] = buffer.getDouble();
+        }
+        min.readFrom(buffer);
+        max.readFrom(buffer);
+        return true;
+    }
+
+    /**
+     * Colas monótonas circulares, una por medida, sobre arreglos compartidos.
+     * En la cola de mínimos los valores crecen de frente a fondo; en la de máximos decrecen,
+     * así que el frente es siempre el extremo de la ventana.
+     */
+    private final class MonotonicDeque {
+
+        private final boolean ascending;
+        private final long[] times;
+        private final double[] values;
+        private final int[] head = new int[MEASURES];
+        private final int[] size = new int[MEASURES];
+
+        private MonotonicDeque(int capacity, boolean ascending) {
+            this.ascending = ascending;
+            this.times = new long[MEASURES * capacity];
+            this.values = new double[MEASURES * capacity];
+        }
+
+        private void push(int m, long time, double value, long expiredBefore) {
+            while (size[m] > 0 && dominated(values[slot(m, size[m] - 1)], value)) {
+                size[m]--;
+            }
+            while (size[m] > 0 && times[slot(m, 0)] <= expiredBefore) {
+                pollFirst(m);
+            }
+            if (size[m] == capacity) {
+                pollFirst(m);
+            }
+            int slot = slot(m, size[m]);
+            times[slot] = time;
+            values[slot] = value;
+            size[m]++;
+        }
+
+        private boolean dominated(double back, double value) {
+            return ascending ? back >= value : back <= value;
+        }
+
+        private void pollFirst(int m) {
+            head[m] = (head[m] + 1) % capacity;
+            size[m]--;
+        }
+
+        private Double front(int m) {
+            return size[m] > 0 ? values[slot(m, 0)] : null;
+        }
+
+        private int slot(int m, int index) {
+            return m * capacity + (head[m] + index) % capacity;
+        }
+
+        private int serializedSize() {
+            int total = 0;
+            for (int m = 0; m < MEASURES; m++) {
+                total += Integer.BYTES + size[m] * (Long.BYTES + Double.BYTES);
+            }
+            return total;
+        }
+
+        private void writeTo(ByteBuffer buffer) {
+            for (int m = 0; m < MEASURES; m++) {
+                buffer.putInt(size[m]);
+                for (int i = 0; i < size[m]; i++) {
+                    int slot = slot(m, i);
+                    buffer.putLong(times[slot]).putDouble(values[slot]);
+                }
+            }
+        }
+
+        private void readFrom(ByteBuffer buffer) {
+            for (int m = 0; m < MEASURES; m++) {
+                int stored = buffer.getInt();
+                int skip = Math.max(0, stored - capacity);
+                buffer.position(buffer.position() + skip * (Long.BYTES + Double.BYTES));
+                head[m] = 0;
+                size[m] = stored - skip;
+                for (int i = 0; i < size[m]; i++) {
+                    int slot = m * capacity + i;
+                    times[slot] = buffer.getLong();
+                    values[slot] = buffer.getDouble();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,85 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.records.model.entity.Measure;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Búfer reutilizable de errores de validación de medidas.
+ * <p>
+ * Registra qué medidas fallaron y por qué sin crear objetos ni lanzar excepciones, de modo que validar
+ * una lectura correcta no reserva memoria. Los mensajes solo se construyen cuando se piden, en el camino
+ * de error. No es seguro compartir una instancia entre hilos.
+ * </p>
+ */
+public final class MeasureErrors {
+
+    private static final ThreadLocal<MeasureErrors> LOCAL = ThreadLocal.withInitial(MeasureErrors::new);
+
+    private final Measure[] measures = new Measure[Measure.VALUES.length];
+    private final boolean[] formatErrors = new boolean[Measure.VALUES.length];
+    private int size;
+
+    /**
+     * Búfer propio del hilo actual, para reutilizarlo entre peticiones sin reservar uno nuevo.
+     *
+     * @return El búfer del hilo; su contenido se descarta en la siguiente validación.
+     */
+    public static MeasureErrors local() {
+        return LOCAL.get();
+    }
+
+    /**
+     * Vacía el búfer para reutilizarlo con otra lectura.
+     */
+    public void reset() {
+        size = 0;
+    }
+
+    void rejectRange(Measure measure) {
+        add(measure, false);
+    }
+
+    void rejectFormat(Measure measure) {
+        add(measure, true);
+    }
+
+    private void add(Measure measure, boolean format) {
+        measures[size] = measure;
+        formatErrors[size] = format;
+        size++;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Mensaje del error en la posición indicada.
+     *
+     * @param index Posición del error, entre 0 y {@link #size()}.
+     * @return El mensaje del error.
+     */
+    public String message(int index) {
+        MeasureRule rule = MeasureRules.of(measures[index]);
+        return formatErrors[index] ? rule.formatMessage() : rule.rangeMessage();
+    }
+
+    /**
+     * Mensajes de todos los errores registrados.
+     *
+     * @return Lista con un mensaje por error.
+     */
+    public List<String> messages() {
+        List<String> messages = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            messages.add(message(i));
+        }
+        return messages;
+    }
+}
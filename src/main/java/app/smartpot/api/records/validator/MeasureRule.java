@@ -0,0 +1,27 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.records.model.entity.Measure;
+
+/**
+ * Rango aceptado para una medida y los mensajes que se reportan cuando un valor no lo cumple.
+ *
+ * @param measure       Medida a la que aplica la regla.
+ * @param min           Límite inferior del rango.
+ * @param minExclusive  Indica si el límite inferior queda excluido del rango.
+ * @param max           Límite superior del rango (inclusivo).
+ * @param rangeMessage  Mensaje cuando el valor está fuera de rango.
+ * @param formatMessage Mensaje cuando el valor no es un número válido.
+ */
+public record MeasureRule(Measure measure, double min, boolean minExclusive, double max,
+                          String rangeMessage, String formatMessage) {
+
+    /**
+     * Comprueba si un valor está dentro del rango. Los valores {@code NaN} nunca lo están.
+     *
+     * @param value Valor a comprobar.
+     * @return {@code true} si el valor es aceptado.
+     */
+    public boolean accepts(double value) {
+        return (minExclusive ? value > min : value >= min) && value <= max;
+    }
+}
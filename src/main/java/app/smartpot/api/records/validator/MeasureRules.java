@@ -0,0 +1,43 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.records.model.entity.Measure;
+
+/**
+ * Tabla de rangos aceptados para cada medida, indexada por {@link Measure}.
+ */
+public final class MeasureRules {
+
+    private static final MeasureRule[] RULES = new MeasureRule[Measure.VALUES.length];
+
+    static {
+        register(new MeasureRule(Measure.ATMOSPHERE, 0, true, Double.MAX_VALUE,
+                "La atmósfera debe ser un valor positivo", "La atmósfera debe ser un número válido"));
+        register(new MeasureRule(Measure.BRIGHTNESS, 0, false, 1000,
+                "El brillo debe estar entre 0 y 1000", "El brillo debe ser un número válido"));
+        register(new MeasureRule(Measure.TEMPERATURE, -40, false, 80,
+                "La temperatura debe estar entre -40°C y 80°C", "La temperatura debe ser un número válido"));
+        register(new MeasureRule(Measure.PH, 0, false, 14,
+                "El pH debe estar entre 0 y 14", "El pH debe ser un número válido"));
+        register(new MeasureRule(Measure.TDS, 0, false, 1000,
+                "El TDS debe estar entre 0 y 1000 ppm", "El TDS debe ser un número válido"));
+        register(new MeasureRule(Measure.HUMIDITY, 0, false, 100,
+                "La humedad debe estar entre 0% y 100%", "La humedad debe ser un número válido"));
+    }
+
+    private MeasureRules() {
+    }
+
+    private static void register(MeasureRule rule) {
+        RULES[rule.measure().ordinal()] = rule;
+    }
+
+    /**
+     * Obtiene la regla de una medida.
+     *
+     * @param measure Medida a consultar.
+     * @return La regla de la medida.
+     */
+    public static MeasureRule of(Measure measure) {
+        return RULES[measure.ordinal()];
+    }
+}
@@ -0,0 +1,13 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.records.model.dto.MeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericMeasuresDTO;
+import app.smartpot.api.records.model.entity.Measures;
+
+public interface MeasuresValidator {
+    boolean validate(NumericMeasuresDTO measures, MeasureErrors errors);
+
+    boolean validate(MeasuresDTO measures, MeasureErrors errors);
+
+    boolean validate(Measures measures, MeasureErrors errors);
+}
@@ -0,0 +1,97 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.records.model.dto.MeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericMeasuresDTO;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.model.entity.Measures;
+import org.springframework.stereotype.Component;
+
+/**
+ * Válida las medidas de una lectura contra la tabla de {@link MeasureRules}.
+ * <p>
+ * Los errores se acumulan en el {@link MeasureErrors} proporcionado en lugar de lanzarse, por lo que
+ * se reportan todas las medidas inválidas de una lectura y el camino sin errores no reserva memoria.
+ * El componente no guarda estado y puede usarse desde varios hilos.
+ * </p>
+ */
+@Component
+public class MeasuresValidatorImpl implements MeasuresValidator {
+
+    /**
+     * Válida medidas ya numéricas.
+     *
+     * @param measures Medidas a validar; una medida ausente ({@code NaN}) se reporta como número no válido.
+     * @param errors   Búfer donde se registran los errores; se vacía antes de validar.
+     * @return {@code true} si todas las medidas son válidas.
+     */
+    @Override
+    public boolean validate(NumericMeasuresDTO measures, MeasureErrors errors) {
+        errors.reset();
+        check(Measure.ATMOSPHERE, measures.getAtmosphere(), errors);
+        check(Measure.BRIGHTNESS, measures.getBrightness(), errors);
+        check(Measure.TEMPERATURE, measures.getTemperature(), errors);
+        check(Measure.PH, measures.getPh(), errors);
+        check(Measure.TDS, measures.getTds(), errors);
+        check(Measure.HUMIDITY, measures.getHumidity(), errors);
+        return errors.isEmpty();
+    }
+
+    /**
+     * Válida medidas recibidas como texto, interpretando cada valor como número.
+     *
+     * @param measures Medidas a validar.
+     * @param errors   Búfer donde se registran los errores; se vacía antes de validar.
+     * @return {@code true} si todas las medidas son números válidos dentro de rango.
+     */
+    @Override
+    public boolean validate(MeasuresDTO measures, MeasureErrors errors) {
+        errors.reset();
+        check(Measure.ATMOSPHERE, measures.getAtmosphere(), errors);
+        check(Measure.BRIGHTNESS, measures.getBrightness(), errors);
+        check(Measure.TEMPERATURE, measures.getTemperature(), errors);
+        check(Measure.PH, measures.getPh(), errors);
+        check(Measure.TDS, measures.getTds(), errors);
+        check(Measure.HUMIDITY, measures.getHumidity(), errors);
+        return errors.isEmpty();
+    }
+
+    /**
+     * Válida las medidas de un histórico ya construido, por ejemplo uno decodificado del formato binario.
+     *
+     * @param measures Medidas a validar; una medida ausente se reporta como número no válido.
+     * @param errors   Búfer donde se registran los errores; se vacía antes de validar.
+     * @return {@code true} si todas las medidas están presentes y dentro de rango.
+     */
+    @Override
+    public boolean validate(Measures measures, MeasureErrors errors) {
+        errors.reset();
+        for (Measure measure : Measure.VALUES) {
+            Double value = measure.valueOf(measures);
+            check(measure, value != null ? value : Double.NaN, errors);
+        }
+        return errors.isEmpty();
+    }
+
+    private static void check(Measure measure, double value, MeasureErrors errors) {
+        if (Double.isNaN(value)) {
+            errors.rejectFormat(measure);
+        } else if (!MeasureRules.of(measure).accepts(value)) {
+            errors.rejectRange(measure);
+        }
+    }
+
+    private static void check(Measure measure, String value, MeasureErrors errors) {
+        if (value == null) {
+            errors.rejectFormat(measure);
+            return;
+        }
+        double parsed;
+        try {
+            parsed = Double.parseDouble(value);
+        } catch (NumberFormatException e) {
+            errors.rejectFormat(measure);
+            return;
+        }
+        check(measure, parsed, errors);
+    }
+}
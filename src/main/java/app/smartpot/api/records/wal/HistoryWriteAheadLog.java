@@ -0,0 +1,302 @@
+package app.smartpot.api.records.wal;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.model.entity.History;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.stream.Stream;
+
+/**
+ * Registro local de escritura anticipada (WAL) para las lecturas entrantes.
+ * <p>
+ * Las lecturas se añaden a segmentos de tamaño fijo mapeados en memoria y cada escritura se fuerza a disco
+ * antes de confirmar, de modo que una lectura confirmada sobrevive a una caída del proceso aunque MongoDB no
+ * esté disponible. Los forzados se agrupan: mientras un hilo fuerza a disco, los demás siguen añadiendo
+ * entradas, y el siguiente forzado cubre de una vez todas las escritas entre tanto. El replayer solo lee
+ * entradas ya forzadas. Cuando un segmento se llena se abre el siguiente. El {@link WalReplayer} lee los segmentos
+ * desde el último punto de control, los inserta en {@code registros} y avanza el punto de control; los
+ * segmentos ya aplicados se eliminan.
+ * </p>
+ * <p>
+ * Al arrancar se localiza el final de los datos válidos del último segmento para continuar escribiendo a
+ * partir de ahí; lo pendiente desde el punto de control se reaplica en la siguiente pasada del replayer.
+ * </p>
+ */
+@Slf4j
+@Component
+public class HistoryWriteAheadLog {
+
+    private static final String SEGMENT_PREFIX = "wal-";
+    private static final String SEGMENT_SUFFIX = ".log";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+
+    @Getter
+    @Value("${records.wal.enabled}")
+    private boolean enabled;
+
+    @Value("${records.wal.directory}")
+    private String directoryName;
+
+    @Value("${records.wal.segment-size}")
+    private long segmentSize;
+
+    private Path directory;
+    private int segmentBytes;
+    private final NavigableSet<Long> segments = new ConcurrentSkipListSet<>();
+    private final ByteBuffer scratch = ByteBuffer.allocate(WalEntryCodec.ENTRY_SIZE);
+
+    private long activeSegment;
+    private FileChannel activeChannel;
+    private MappedByteBuffer active;
+    private volatile long writeOffset;
+    private final Object forceLock = new Object();
+    private volatile WalPosition durable;
+
+    @Getter
+    private volatile WalPosition checkpoint;
+
+    @PostConstruct
+    public void open() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        directory = Paths.get(directoryName).toAbsolutePath();
+        Files.createDirectories(directory);
+        segmentBytes = (int) Math.min(Integer.MAX_VALUE, segmentSize) / WalEntryCodec.ENTRY_SIZE * WalEntryCodec.ENTRY_SIZE;
+
+        try (Stream<Path> files = Files.list(directory)) {
+            files.map(path -> path.getFileName().toString())
+                    .filter(name -> name.startsWith(SEGMENT_PREFIX) && name.endsWith(SEGMENT_SUFFIX))
+                    .map(name -> Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length())))
+                    .forEach(segments::add);
+        }
+        checkpoint = readCheckpoint();
+
+        if (segments.isEmpty()) {
+            openSegment(Math.max(1, checkpoint.segment()), 0);
+        } else {
+            long last = segments.last();
+            openSegment(last, findEnd(last));
+        }
+        durable = new WalPosition(activeSegment, writeOffset);
+        log.info("WAL de históricos en {} (segmento {}, punto de control {})", directory, activeSegment, checkpoint);
+    }
+
+    /**
+     * Añade un histórico al registro y lo fuerza a disco antes de volver.
+     *
+     * @param history Histórico con identificador, cultivo y fecha asignados.
+     * @throws ApiException Si no se pudo escribir en el registro.
+     */
+    public void append(History history) {
+        try {
+            WalPosition end;
+            synchronized (this) {
+                if (writeOffset + WalEntryCodec.ENTRY_SIZE > segmentBytes) {
+                    rotate();
+                }
+                scratch.clear();
+                WalEntryCodec.encode(history, scratch);
+                int offset = (int) writeOffset;
+                active.put(offset, scratch, 0, WalEntryCodec.ENTRY_SIZE);
+                writeOffset = offset + WalEntryCodec.ENTRY_SIZE;
+                end = new WalPosition(activeSegment, writeOffset);
+            }
+            awaitDurable(end);
+        } catch (IOException | UncheckedIOException e) {
+            log.error("No se pudo escribir en el WAL de históricos: {}", e.getMessage());
+            throw new ApiException(new ApiResponse("No se pudo registrar la lectura", HttpStatus.SERVICE_UNAVAILABLE.value()));
+        }
+    }
+
+    /**
+     * Espera a que el registro esté forzado a disco hasta la posición indicada. El hilo que obtiene el turno
+     * fuerza todo lo escrito hasta ese momento; los que esperaban encuentran su entrada ya cubierta.
+     */
+    private void awaitDurable(WalPosition end) {
+        synchronized (forceLock) {
+            WalPosition forced = durable;
+            if (forced.segment() > end.segment()
+                    || (forced.segment() == end.segment() && forced.offset() >= end.offset())) {
+                return;
+            }
+            long segment;
+            long upTo;
+            MappedByteBuffer buffer;
+            synchronized (this) {
+                if (end.segment() < activeSegment) {
+                    // La rotación ya forzó el segmento completo.
+                    return;
+                }
+                segment = activeSegment;
+                upTo = writeOffset;
+                buffer = active;
+            }
+            long from = forced.segment() == segment ? forced.offset() : 0;
+            buffer.force((int) from, (int) (upTo - from));
+            durable = new WalPosition(segment, upTo);
+        }
+    }
+
+    /**
+     * Lee hasta {@code max} históricos a partir de una posición, avanzando a los segmentos siguientes si hace falta.
+     *
+     * @param from Posición desde la que leer, normalmente el punto de control.
+     * @param max  Número máximo de históricos.
+     * @return Los históricos leídos y la posición siguiente.
+     * @throws IOException Si no se pudo leer un segmento.
+     */
+    public WalBatch read(WalPosition from, int max) throws IOException {
+        List<History> histories = new ArrayList<>(Math.min(max, 1024));
+        long segment = from.segment();
+        long offset = from.offset();
+
+        while (histories.size() < max) {
+            boolean isActive;
+            long limit;
+            synchronized (this) {
+                isActive = segment == activeSegment;
+            }
+            WalPosition forced = durable;
+            limit = !isActive ? segmentBytes : forced.segment() == segment ? forced.offset() : 0;
+            if (segment > activeSegment) {
+                break;
+            }
+            if (segments.contains(segment) && offset < limit) {
+                int count = (int) Math.min(max - histories.size(), (limit - offset) / WalEntryCodec.ENTRY_SIZE);
+                ByteBuffer buffer = ByteBuffer.allocate(count * WalEntryCodec.ENTRY_SIZE);
+                try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+                    while (buffer.hasRemaining() && channel.read(buffer, offset + buffer.position()) > 0) {
+                        // Lectura completa del tramo solicitado
+                    }
+                }
+                buffer.flip();
+                boolean ended = false;
+                while (buffer.remaining() >= WalEntryCodec.ENTRY_SIZE) {
+                    History history = WalEntryCodec.decode(buffer);
+                    if (history == null) {
+                        ended = true;
+                        break;
+                    }
+                    histories.add(history);
+                    offset += WalEntryCodec.ENTRY_SIZE;
+                }
+                if (!ended) {
+                    continue;
+                }
+                if (isActive) {
+                    break;
+                }
+            }
+            if (isActive) {
+                break;
+            }
+            Long next = segments.higher(segment);
+            if (next == null) {
+                break;
+            }
+            segment = next;
+            offset = 0;
+        }
+        return new WalBatch(histories, new WalPosition(segment, offset));
+    }
+
+    /**
+     * Registra de forma atómica el punto de control y elimina los segmentos anteriores, ya aplicados.
+     *
+     * @param position Posición hasta la que los históricos ya están en MongoDB.
+     * @throws IOException Si no se pudo escribir el punto de control.
+     */
+    public void checkpoint(WalPosition position) throws IOException {
+        Path temporary = directory.resolve(CHECKPOINT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            channel.write(ByteBuffer.allocate(2 * Long.BYTES).putLong(position.segment()).putLong(position.offset()).flip());
+            channel.force(true);
+        }
+        Files.move(temporary, directory.resolve(CHECKPOINT_FILE), StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        checkpoint = position;
+
+        for (Long segment : segments.headSet(position.segment(), false)) {
+            segments.remove(segment);
+            Files.deleteIfExists(segmentPath(segment));
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (activeChannel != null) {
+            active.force();
+            activeChannel.close();
+        }
+    }
+
+    private void rotate() throws IOException {
+        active.force();
+        activeChannel.close();
+        openSegment(activeSegment + 1, 0);
+        log.debug("WAL de históricos: nuevo segmento {}", activeSegment);
+    }
+
+    private void openSegment(long segment, long offset) throws IOException {
+        activeChannel = FileChannel.open(segmentPath(segment), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        active = activeChannel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        activeSegment = segment;
+        writeOffset = offset;
+        segments.add(segment);
+    }
+
+    /**
+     * Busca el final de los datos válidos de un segmento: la primera entrada vacía o escrita a medias.
+     */
+    private long findEnd(long segment) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(segment), StandardOpenOption.READ)) {
+            ByteBuffer entry = ByteBuffer.allocate(WalEntryCodec.ENTRY_SIZE);
+            long offset = 0;
+            while (offset + WalEntryCodec.ENTRY_SIZE <= Math.min(channel.size(), segmentBytes)) {
+                entry.clear();
+                channel.read(entry, offset);
+                entry.flip();
+                if (entry.remaining() < WalEntryCodec.ENTRY_SIZE || WalEntryCodec.decode(entry) == null) {
+                    break;
+                }
+                offset += WalEntryCodec.ENTRY_SIZE;
+            }
+            return offset;
+        }
+    }
+
+    private WalPosition readCheckpoint() throws IOException {
+        Path file = directory.resolve(CHECKPOINT_FILE);
+        if (!Files.exists(file)) {
+            return new WalPosition(segments.isEmpty() ? 1 : segments.first(), 0);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(file));
+        return new WalPosition(buffer.getLong(), buffer.getLong());
+    }
+
+    private Path segmentPath(long segment) {
+        return directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, segment, SEGMENT_SUFFIX));
+    }
+}
@@ -0,0 +1,14 @@
+package app.smartpot.api.records.wal;
+
+import app.smartpot.api.records.model.entity.History;
+
+import java.util.List;
+
+/**
+ * Lote de históricos leídos del registro de escritura anticipada.
+ *
+ * @param histories Históricos leídos, en orden de escritura.
+ * @param next      Posición inmediatamente posterior al último histórico leído.
+ */
+public record WalBatch(List<History> histories, WalPosition next) {
+}
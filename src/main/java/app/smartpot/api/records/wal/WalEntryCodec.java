@@ -0,0 +1,101 @@
+package app.smartpot.api.records.wal;
+
+import app.smartpot.api.records.dedup.RecordDeduplicator;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measure;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Date;
+import java.util.zip.CRC32;
+
+/**
+ * Codifica los históricos como entradas de tamaño fijo del registro de escritura anticipada.
+ * <pre>
+ *   0  id      12 bytes  ObjectId del histórico
+ *  12  crop    12 bytes  ObjectId del cultivo
+ *  24  date     8 bytes  milisegundos desde epoch
+ *  32  medidas 48 bytes  seis float64 en el orden de {@link Measure} (NaN = ausente)
+ *  80  keyLen   2 bytes  longitud en bytes UTF-8 de la clave de deduplicación (-1 = sin clave)
+ *  82  key    200 bytes  clave de deduplicación, rellenada con ceros
+ * 282  crc      4 bytes  CRC32 de los 282 bytes anteriores
+ * </pre>
+ * Una entrada con CRC incorrecto (por ejemplo, escrita a medias antes de una caída, o la zona aún vacía del
+ * segmento) marca el final de los datos válidos.
+ */
+final class WalEntryCodec {
+
+    private static final int KEY_OFFSET = 80;
+    static final int ENTRY_SIZE = KEY_OFFSET + Short.BYTES + RecordDeduplicator.MAX_KEY_BYTES + Integer.BYTES;
+    private static final int PAYLOAD_SIZE = ENTRY_SIZE - Integer.BYTES;
+
+    private WalEntryCodec() {
+    }
+
+    static void encode(History history, ByteBuffer target) {
+        int start = target.position();
+        history.getId().putToByteBuffer(target);
+        history.getCrop().putToByteBuffer(target);
+        target.putLong(history.getDate().getTime());
+        for (Measure measure : Measure.VALUES) {
+            Double value = measure.valueOf(history.getMeasures());
+            target.putDouble(value != null ? value : Double.NaN);
+        }
+        byte[] key = history.getDedupKey() != null ? history.getDedupKey().getBytes(StandardCharsets.UTF_8) : null;
+        target.putShort(key != null ? (short) key.length : -1);
+        if (key != null) {
+            target.put(key);
+        }
+        target.put(new byte[RecordDeduplicator.MAX_KEY_BYTES - (key != null ? key.length : 0)]);
+        target.putInt(checksum(target, start));
+    }
+
+    /**
+     * Decodifica la entrada que comienza en la posición actual del búfer.
+     *
+     * @param source Búfer con al menos {@link #ENTRY_SIZE} bytes restantes; avanza una entrada.
+     * @return El histórico, o {@code null} si la entrada no es válida.
+     */
+    static History decode(ByteBuffer source) {
+        int start = source.position();
+        int expected = source.getInt(start + PAYLOAD_SIZE);
+        if (checksum(source, start) != expected) {
+            return null;
+        }
+        ObjectId id = new ObjectId(source.slice(start, 12));
+        ObjectId crop = new ObjectId(source.slice(start + 12, 12));
+        long date = source.getLong(start + 24);
+        double[] values = new double[Measure.VALUES.length];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = source.getDouble(start + 32 + i * Double.BYTES);
+        }
+        short keyLength = source.getShort(start + KEY_OFFSET);
+        String key = null;
+        if (keyLength >= 0) {
+            byte[] bytes = new byte[keyLength];
+            source.get(start + KEY_OFFSET + Short.BYTES, bytes);
+            key = new String(bytes, StandardCharsets.UTF_8);
+        }
+        source.position(start + ENTRY_SIZE);
+        return History.builder()
+                .id(id)
+                .crop(crop)
+                .date(new Date(date))
+                .measures(new Measures(value(values[0]), value(values[1]), value(values[2]),
+                        value(values[3]), value(values[4]), value(values[5])))
+                .dedupKey(key)
+                .build();
+    }
+
+    private static int checksum(ByteBuffer buffer, int start) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(start, PAYLOAD_SIZE));
+        return (int) crc.getValue();
+    }
+
+    private static Double value(double value) {
+        return Double.isNaN(value) ? null : value;
+    }
+}
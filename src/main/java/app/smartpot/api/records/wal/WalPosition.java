@@ -0,0 +1,10 @@
+package app.smartpot.api.records.wal;
+
+/**
+ * Posición dentro del registro de escritura anticipada.
+ *
+ * @param segment Número de segmento.
+ * @param offset  Desplazamiento en bytes dentro del segmento.
+ */
+public record WalPosition(long segment, long offset) {
+}
@@ -0,0 +1,97 @@
+package app.smartpot.api.records.wal;
+
+import app.smartpot.api.records.dedup.RecordDeduplicator;
+import app.smartpot.api.records.event.HistoryIngestedEvent;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.repository.RecordRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aplica en {@code registros} las lecturas del registro de escritura anticipada.
+ * <p>
+ * En cada pasada lee lotes desde el punto de control, los inserta con una escritura masiva no ordenada y
+ * avanza el punto de control. Los históricos llevan su identificador desde la ingesta, así que reaplicar un
+ * lote tras una caída solo produce errores de clave duplicada, que se ignoran. Si MongoDB no responde, la
+ * pasada se interrumpe sin mover el punto de control y se reintenta en la siguiente; la primera pasada,
+ * al arrancar, reaplica lo que quedó pendiente.
+ * </p>
+ */
+@Slf4j
+@Component
+public class WalReplayer {
+
+    private static final String DUPLICATE_KEY = "E11000";
+
+    private final HistoryWriteAheadLog writeAheadLog;
+    private final RecordRepository recordRepository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final RecordDeduplicator deduplicator;
+
+    @Value("${records.wal.replay-batch}")
+    private int replayBatch;
+
+    @Autowired
+    public WalReplayer(HistoryWriteAheadLog writeAheadLog, RecordRepository recordRepository,
+                       ApplicationEventPublisher eventPublisher, RecordDeduplicator deduplicator) {
+        this.writeAheadLog = writeAheadLog;
+        this.recordRepository = recordRepository;
+        this.eventPublisher = eventPublisher;
+        this.deduplicator = deduplicator;
+    }
+
+    @Scheduled(fixedDelayString = "${records.wal.replay-interval}")
+    public void replay() {
+        if (!writeAheadLog.isEnabled()) {
+            return;
+        }
+        try {
+            while (true) {
+                WalPosition from = writeAheadLog.getCheckpoint();
+                WalBatch batch = writeAheadLog.read(from, replayBatch);
+                if (!batch.histories().isEmpty()) {
+                    apply(batch.histories());
+                }
+                if (!batch.next().equals(from)) {
+                    writeAheadLog.checkpoint(batch.next());
+                }
+                if (batch.histories().size() < replayBatch) {
+                    return;
+                }
+            }
+        } catch (Exception e) {
+            log.warn("Reaplicación del WAL de históricos interrumpida, se reintentará: {}", e.getMessage());
+        }
+    }
+
+    private void apply(List<History> histories) {
+        Map<Integer, String> failures = recordRepository.insertUnordered(histories);
+        List<History> inserted = new ArrayList<>(histories.size());
+        for (int i = 0; i < histories.size(); i++) {
+            String failure = failures.get(i);
+            if (failure == null) {
+                inserted.add(histories.get(i));
+                continue;
+            }
+            if (!failure.contains(DUPLICATE_KEY)) {
+                log.error("Histórico {} del WAL descartado: {}", histories.get(i).getId(), failure);
+            }
+            deduplicator.release(histories.get(i));
+        }
+        if (!inserted.isEmpty()) {
+            try {
+                eventPublisher.publishEvent(new HistoryIngestedEvent(inserted));
+            } catch (Exception e) {
+                log.warn("Falló la notificación de {} históricos reaplicados: {}", inserted.size(), e.getMessage());
+            }
+        }
+    }
+}
@@ -9,6 +9,7 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.bson.types.ObjectId;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 import org.springframework.data.mongodb.core.mapping.Field;
 
@@ -38,11 +39,13 @@ public class Session implements Serializable {
     @NotNull(message = "La fecha de registro no puede estar vacía")
     @FutureOrPresent(message = "La fecha de registro debe ser hoy o en el futuro")
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = "yyyy-MM-dd'T'HH:mm:ss.SSSZ")
+    @Indexed(name = "registration")
     @Field("registration")
     private Date registration;
 
     //@DBRef
     @NotNull(message = "La sesión debe estar asociada a un usuario")
+    @Indexed(name = "user")
     @Field("user")
     private String user;
 }
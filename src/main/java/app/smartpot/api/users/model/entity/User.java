@@ -73,6 +73,7 @@ public class User implements Serializable {
     private String password;
 
     @NotEmpty(message = "El rol no puede estar vacío")
+    @Indexed(name = "role")
     @Field("role")
     private UserRole userRole;
 }
@@ -0,0 +1,27 @@
+package app.smartpot.api.commands.expiry;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class HashedTimingWheelTest {
+
+    @Test
+    void expiresItemsAtTheirDeadlineAcrossTurns() {
+        HashedTimingWheel<String> wheel = new HashedTimingWheel<>(100, 4, 1000);
+        wheel.add("overdue", 500);
+        wheel.add("soon", 1150);
+        wheel.add("later", 2000);
+
+        assertEquals(List.of("overdue"), wheel.advance(1100));
+        assertTrue(wheel.advance(1199).isEmpty());
+        assertEquals(List.of("soon"), wheel.advance(1200));
+        // "later" shares a slot with earlier ticks and stays until its own turn
+        assertTrue(wheel.advance(1900).isEmpty());
+        assertEquals(List.of("later"), wheel.advance(5000));
+        assertEquals(0, wheel.size());
+    }
+}
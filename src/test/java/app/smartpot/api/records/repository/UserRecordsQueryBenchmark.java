@@ -0,0 +1,104 @@
+package app.smartpot.api.records.repository;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
+import com.mongodb.client.MongoClient;
+import com.mongodb.client.MongoClients;
+import org.bson.types.ObjectId;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.Index;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara la carga de los históricos de un usuario con una consulta por cultivo (N+1) frente a una única
+ * consulta {@code $in}, variando el número de cultivos.
+ * <p>
+ * Necesita un MongoDB accesible; la URI se toma de la propiedad {@code smartpot.benchmark.mongo-uri}
+ * (por defecto {@code mongodb://localhost:27017}). Los datos se siembran en una base de datos propia que
+ * se elimina al terminar.
+ * </p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class UserRecordsQueryBenchmark {
+
+    private static final String DATABASE = "smartpot_benchmark";
+    private static final int READINGS_PER_CROP = 50;
+
+    @Param({"1", "10", "50", "100"})
+    private int crops;
+
+    private MongoClient client;
+    private MongoTemplate mongoTemplate;
+    private RecordRepositoryCustomImpl repository;
+    private List<ObjectId> cropIds;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        client = MongoClients.create(System.getProperty("smartpot.benchmark.mongo-uri", "mongodb://localhost:27017"));
+        mongoTemplate = new MongoTemplate(client, DATABASE);
+        repository = new RecordRepositoryCustomImpl(mongoTemplate);
+        mongoTemplate.dropCollection(History.class);
+        mongoTemplate.indexOps(History.class).createIndex(new Index()
+                .on("crop", Sort.Direction.ASC)
+                .on("date", Sort.Direction.ASC)
+                .on("_id", Sort.Direction.ASC));
+
+        cropIds = new ArrayList<>(crops);
+        List<History> histories = new ArrayList<>(crops * READINGS_PER_CROP);
+        long now = System.currentTimeMillis();
+        for (int c = 0; c < crops; c++) {
+            ObjectId crop = new ObjectId();
+            cropIds.add(crop);
+            for (int r = 0; r < READINGS_PER_CROP; r++) {
+                histories.add(History.builder()
+                        .id(new ObjectId())
+                        .crop(crop)
+                        .date(new Date(now - r * 60_000L))
+                        .measures(new Measures(1013.0, 500.0, 22.0, 6.5, 300.0, 60.0))
+                        .build());
+            }
+        }
+        repository.insertUnordered(histories);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        mongoTemplate.getDb().drop();
+        client.close();
+    }
+
+    @Benchmark
+    public void queryPerCrop(Blackhole blackhole) {
+        for (ObjectId crop : cropIds) {
+            blackhole.consume(mongoTemplate.find(new Query(Criteria.where("crop").is(crop)), History.class));
+        }
+    }
+
+    @Benchmark
+    public void singleInQuery(Blackhole blackhole) {
+        blackhole.consume(repository.findByCropIn(cropIds, null, null));
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(UserRecordsQueryBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,63 @@
+package app.smartpot.api.records.service;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.records.model.entity.DateRange;
+import app.smartpot.api.records.model.entity.RollupResolution;
+import app.smartpot.api.records.repository.HistoryRollupRepository;
+import app.smartpot.api.records.retention.RetentionCheckpoint;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Instant;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class RecordRollupServiceImplTest {
+
+    private static final Date COMPACTED_THROUGH = Date.from(Instant.parse("2026-01-10T00:00:00Z"));
+
+    private HistoryRollupRepository rollupRepository;
+    private RecordRollupServiceImpl service;
+
+    @BeforeEach
+    void setUp() {
+        rollupRepository = mock(HistoryRollupRepository.class);
+        RetentionCheckpoint checkpoint = mock(RetentionCheckpoint.class);
+        when(checkpoint.getCompactedThrough()).thenReturn(COMPACTED_THROUGH);
+        service = new RecordRollupServiceImpl(rollupRepository, checkpoint);
+    }
+
+    @Test
+    void compactedRangeKeepsItsRollups() {
+        ApiException e = assertThrows(ApiException.class,
+                () -> service.rebuild(range("2026-01-01T00:00:00Z", "2026-01-09T12:00:00Z")));
+
+        assertEquals(400, e.getApiResponse().getStatus());
+        verify(rollupRepository, never()).rebuild(any(), any(), any());
+    }
+
+    @Test
+    void rebuildStartsAfterTheCompactedStretch() {
+        service.rebuild(range("2026-01-05T00:00:00Z", "2026-01-11T06:30:00Z"));
+
+        verify(rollupRepository).rebuild(eq(RollupResolution.HOUR), eq(COMPACTED_THROUGH),
+                eq(Date.from(Instant.parse("2026-01-11T07:00:00Z"))));
+        verify(rollupRepository).rebuild(eq(RollupResolution.DAY), eq(COMPACTED_THROUGH),
+                eq(Date.from(Instant.parse("2026-01-12T00:00:00Z"))));
+    }
+
+    private static DateRange range(String start, String end) {
+        DateRange ranges = new DateRange();
+        ranges.setStartDate(Date.from(Instant.parse(start)));
+        ranges.setEndDate(Date.from(Instant.parse(end)));
+        return ranges;
+    }
+}
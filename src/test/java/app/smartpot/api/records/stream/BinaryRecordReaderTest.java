@@ -0,0 +1,67 @@
+package app.smartpot.api.records.stream;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class BinaryRecordReaderTest {
+
+    @Test
+    void roundTrip() throws IOException {
+        ObjectId crop = new ObjectId();
+        ByteBuffer body = ByteBuffer.allocate(3 * BinaryRecordReader.RECORD_SIZE);
+        put(body, crop, 1_700_000_000_123L, 1013.25f, 540f, 22.5f, 6.5f, 320f, 61.5f);
+        put(body, crop, 0, 1000f, 0f, -40f, 14f, 1000f, 100f);
+        put(body, new ObjectId(), 1_700_000_060_000L, 1.5f, 2.5f, 3.5f, 4.5f, 5.5f, 6.5f);
+
+        List<History> histories = BinaryRecordReader.read(new ByteArrayInputStream(body.array()), 10);
+
+        assertEquals(3, histories.size());
+        assertEquals(crop, histories.get(0).getCrop());
+        assertEquals(new Date(1_700_000_000_123L), histories.get(0).getDate());
+        assertEquals(new Measures(1013.25, 540.0, 22.5, 6.5, 320.0, 61.5), histories.get(0).getMeasures());
+        assertNull(histories.get(1).getDate());
+        assertEquals(new Measures(1000.0, 0.0, -40.0, 14.0, 1000.0, 100.0), histories.get(1).getMeasures());
+        assertEquals(new Date(1_700_000_060_000L), histories.get(2).getDate());
+    }
+
+    @Test
+    void truncatedOrOversizedBodyIsRejected() {
+        ByteBuffer body = ByteBuffer.allocate(3 * BinaryRecordReader.RECORD_SIZE);
+        for (int i = 0; i < 3; i++) {
+            put(body, new ObjectId(), 1_700_000_000_000L, 1f, 2f, 3f, 4f, 5f, 6f);
+        }
+        byte[] truncated = Arrays.copyOf(body.array(), body.capacity() - 5);
+
+        ApiException incomplete = assertThrows(ApiException.class,
+                () -> BinaryRecordReader.read(new ByteArrayInputStream(truncated), 10));
+        ApiException tooLarge = assertThrows(ApiException.class,
+                () -> BinaryRecordReader.read(new ByteArrayInputStream(body.array()), 2));
+        ApiException empty = assertThrows(ApiException.class,
+                () -> BinaryRecordReader.read(new ByteArrayInputStream(new byte[0]), 10));
+
+        assertEquals(400, incomplete.getApiResponse().getStatus());
+        assertEquals(413, tooLarge.getApiResponse().getStatus());
+        assertEquals(400, empty.getApiResponse().getStatus());
+    }
+
+    private static void put(ByteBuffer body, ObjectId crop, long millis, float... measures) {
+        body.put(crop.toByteArray()).putLong(millis);
+        for (float measure : measures) {
+            body.putFloat(measure);
+        }
+    }
+}
@@ -0,0 +1,56 @@
+package app.smartpot.api.records.trend;
+
+import app.smartpot.api.records.model.dto.MeasureTrendDTO;
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
+import org.junit.jupiter.api.Test;
+
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class CropTrendStateTest {
+
+    private static final long MINUTE = 60_000L;
+
+    @Test
+    void slidingWindowAndEwma() {
+        CropTrendState state = new CropTrendState(10 * MINUTE, 30 * MINUTE, 16);
+        state.add(reading(0, 20.0));
+        state.add(reading(10 * MINUTE, 30.0));
+        state.add(reading(20 * MINUTE, 25.0));
+        state.add(reading(40 * MINUTE, 24.0));
+
+        MeasureTrendDTO temperature = state.toDTO("crop").getMeasures().get("temperature");
+        assertEquals(4, temperature.getCount());
+        assertEquals(24.0, temperature.getMin());
+        assertEquals(25.0, temperature.getMax());
+        // 20 -> 25 (alpha 0.5) -> 25 (alpha 0.5) -> 24.25 (alpha 0.75)
+        assertEquals(24.25, temperature.getEwma(), 1e-9);
+        assertNull(state.toDTO("crop").getMeasures().get("ph").getEwma());
+    }
+
+    @Test
+    void repeatedReadingsAreIgnoredAndSnapshotRoundTrips() {
+        CropTrendState state = new CropTrendState(10 * MINUTE, 30 * MINUTE, 16);
+        state.add(reading(0, 20.0));
+        state.add(reading(10 * MINUTE, 22.0));
+        state.add(reading(10 * MINUTE, 99.0));
+
+        CropTrendState restored = new CropTrendState(10 * MINUTE, 30 * MINUTE, 16);
+        restored.restore(state.snapshotIfDirty());
+
+        assertNull(state.snapshotIfDirty());
+        assertEquals(state.toDTO("crop"), restored.toDTO("crop"));
+        assertEquals(2, restored.toDTO("crop").getMeasures().get("temperature").getCount());
+        assertEquals(12.0, restored.toDTO("crop").getMeasures().get("temperature").getRatePerHour(), 1e-9);
+    }
+
+    private static History reading(long time, double temperature) {
+        return History.builder()
+                .date(new Date(time))
+                .measures(Measures.builder().temperature(temperature).build())
+                .build();
+    }
+}
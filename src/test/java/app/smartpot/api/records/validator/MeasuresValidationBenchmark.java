@@ -0,0 +1,118 @@
+package app.smartpot.api.records.validator;
+
+import app.smartpot.api.exception.ApiException;
+import app.smartpot.api.exception.ApiResponse;
+import app.smartpot.api.records.mapper.RecordMapper;
+import app.smartpot.api.records.model.dto.MeasuresDTO;
+import app.smartpot.api.records.model.dto.NumericRecordDTO;
+import app.smartpot.api.records.model.dto.RecordDTO;
+import app.smartpot.api.records.model.entity.History;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.http.HttpStatus;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.charset.StandardCharsets;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compara el camino de validación con medidas en texto, que lanza una excepción por error,
+ * con el camino numérico basado en la tabla de reglas y el búfer de errores reutilizable.
+ * <p>
+ * Cada operación deserializa el cuerpo JSON de la lectura, como en una petición real, de modo que la memoria
+ * medida incluye la que reserva Jackson al construir cada DTO.
+ * </p>
+ * <p>
+ * Se ejecuta con el método {@code main} desde las clases de prueba compiladas; el perfilador de GC
+ * reporta la memoria reservada por operación ({@code gc.alloc.rate.norm}).
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasuresValidationBenchmark {
+
+    private static final String CROP = "65a1f0c2e4b0a1b2c3d4e5f6";
+
+    @Param({"valid", "invalid"})
+    private String reading;
+
+    private final MeasuresValidator validator = new MeasuresValidatorImpl();
+    private final MeasureErrors errors = new MeasureErrors();
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+
+    private byte[] textBody;
+    private byte[] numericBody;
+
+    @Setup
+    public void setup() {
+        String ph = "valid".equals(reading) ? "6.5" : "15.2";
+
+        textBody = ("{\"crop\":\"" + CROP + "\",\"measures\":{\"atmosphere\":\"1013.2\",\"brightness\":\"540\","
+                + "\"temperature\":\"22.4\",\"ph\":\"" + ph + "\",\"tds\":\"320\",\"humidity\":\"61.5\"}}")
+                .getBytes(StandardCharsets.UTF_8);
+        numericBody = ("{\"crop\":\"" + CROP + "\",\"date\":" + System.currentTimeMillis() + ",\"measures\":{\"atmosphere\":1013.2,"
+                + "\"brightness\":540.0,\"temperature\":22.4,\"ph\":" + ph + ",\"tds\":320.0,\"humidity\":61.5}}")
+                .getBytes(StandardCharsets.UTF_8);
+    }
+
+    @Benchmark
+    public void textPath(Blackhole blackhole) {
+        RecordDTO textRecord = jsonMapper.readValue(textBody, RecordDTO.class);
+        try {
+            legacyValidate(textRecord.getMeasures());
+            blackhole.consume(RecordMapper.INSTANCE.toEntity(textRecord));
+        } catch (ApiException e) {
+            blackhole.consume(e);
+        }
+    }
+
+    @Benchmark
+    public void numericPath(Blackhole blackhole) {
+        NumericRecordDTO numericRecord = jsonMapper.readValue(numericBody, NumericRecordDTO.class);
+        if (validator.validate(numericRecord.getMeasures(), errors)) {
+            History history = RecordMapper.INSTANCE.toEntity(numericRecord);
+            blackhole.consume(history);
+        } else {
+            blackhole.consume(errors.size());
+        }
+    }
+
+    /**
+     * Réplica de la validación por campo que usaba el servicio antes de la tabla de reglas.
+     */
+    private static void legacyValidate(MeasuresDTO measures) {
+        legacyCheck(measures.getAtmosphere(), 0, true, Double.MAX_VALUE, "La atmósfera debe ser un valor positivo");
+        legacyCheck(measures.getBrightness(), 0, false, 1000, "El brillo debe estar entre 0 y 1000");
+        legacyCheck(measures.getTemperature(), -40, false, 80, "La temperatura debe estar entre -40°C y 80°C");
+        legacyCheck(measures.getPh(), 0, false, 14, "El pH debe estar entre 0 y 14");
+        legacyCheck(measures.getTds(), 0, false, 1000, "El TDS debe estar entre 0 y 1000 ppm");
+        legacyCheck(measures.getHumidity(), 0, false, 100, "La humedad debe estar entre 0% y 100%");
+    }
+
+    private static void legacyCheck(String value, double min, boolean minExclusive, double max, String message) {
+        try {
+            double parsed = Double.parseDouble(value);
+            if ((minExclusive ? parsed <= min : parsed < min) || parsed > max) {
+                throw new ApiException(new ApiResponse(message, HttpStatus.BAD_REQUEST.value()));
+            }
+        } catch (NumberFormatException e) {
+            throw new ApiException(new ApiResponse(message, HttpStatus.BAD_REQUEST.value()));
+        }
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(MeasuresValidationBenchmark.class.getSimpleName())
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,50 @@
+package app.smartpot.api.records.wal;
+
+import app.smartpot.api.records.model.entity.History;
+import app.smartpot.api.records.model.entity.Measures;
+import org.bson.types.ObjectId;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Date;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class WalEntryCodecTest {
+
+    @Test
+    void roundTrip() {
+        History history = History.builder()
+                .id(new ObjectId())
+                .crop(new ObjectId())
+                .date(new Date(1_700_000_000_123L))
+                .measures(new Measures(1013.25, 540.0, 22.4, 6.5, 320.0, null))
+                .dedupKey("d:gateway-7:42")
+                .build();
+        ByteBuffer buffer = ByteBuffer.allocate(WalEntryCodec.ENTRY_SIZE);
+
+        WalEntryCodec.encode(history, buffer);
+        buffer.flip();
+
+        assertEquals(history, WalEntryCodec.decode(buffer));
+        assertEquals(WalEntryCodec.ENTRY_SIZE, buffer.position());
+    }
+
+    @Test
+    void tornEntryIsRejected() {
+        History history = History.builder()
+                .id(new ObjectId())
+                .crop(new ObjectId())
+                .date(new Date())
+                .measures(new Measures(1.0, 2.0, 3.0, 4.0, 5.0, 6.0))
+                .build();
+        ByteBuffer buffer = ByteBuffer.allocate(WalEntryCodec.ENTRY_SIZE);
+        WalEntryCodec.encode(history, buffer);
+        buffer.put(40, (byte) 0x7f);
+        buffer.flip();
+
+        assertNull(WalEntryCodec.decode(buffer));
+        assertNull(WalEntryCodec.decode(ByteBuffer.allocate(WalEntryCodec.ENTRY_SIZE)));
+    }
+}